@@ -0,0 +1,73 @@
+package Maze;
+
+/**
+ * Binary tree maze generator on a bitboard. Every cell opens either its east
+ * or its south wall, cells on the last column must open south and cells on
+ * the last row must open east, so every cell has exactly one way towards the
+ * south east corner and the maze is a perfect maze. Since the choice of every
+ * cell is independent, a single random word decides 64 cells at once. The
+ * mazes have a strong diagonal bias and two open corridors along the south
+ * and east edges.
+ *
+ * @see BitboardMaze
+ */
+public class BinaryTreeGenerator implements MazeGenerator
+{
+
+    /**
+     * Returns the name of this generator.
+     *
+     * @return Generator name
+     */
+    @Override
+    public String getName()
+    {
+        return "binary-tree";
+    }
+
+    /**
+     * Carves a maze through the whole grid, the start cell is not needed
+     * since every cell is decided independently.
+     *
+     * @param grid Grid to carve the maze into.
+     * @param start Cell number where the algorithm starts carving (unused).
+     * @param random Source of randomness for this generation.
+     */
+    @Override
+    public void generate(MazeGrid grid, int start, MazeRandom random)
+    {
+        int dim = grid.getDimensions();
+        BitboardMaze maze = new BitboardMaze(dim, dim);
+        carve(maze, random);
+        maze.writeTo(grid);
+    }
+
+    /**
+     * Carves a binary tree maze into a completely closed bitboard, one random
+     * word per 64 cells. Bit set in the random word opens the east wall of the
+     * cell, a clear bit opens its south wall.
+     *
+     * @param maze Completely closed bitboard.
+     * @param random Source of randomness for this generation.
+     */
+    public static void carve(BitboardMaze maze, MazeRandom random)
+    {
+        int words = maze.getWords();
+        int height = maze.getHeight();
+
+        for (int y = 1; y < height; y++)
+        {
+            for (int w = 0; w < words; w++)
+            {
+                long openEast = random.nextLong() & ~maze.lastCellMask(w);
+                maze.setEastWord(y, w, ~openEast);
+                maze.setSouthWord(y, w, openEast);
+            }
+        }
+        //The last row can only open east.
+        for (int w = 0; w < words; w++)
+        {
+            maze.setEastWord(height, w, maze.lastCellMask(w));
+        }
+    }
+}
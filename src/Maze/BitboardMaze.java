@@ -0,0 +1,280 @@
+package Maze;
+
+import java.util.Arrays;
+
+/**
+ * Bit packed maze which stores only the east and south wall of every cell,
+ * one bit each, in rows of 64 bit words. The north and west walls of a cell
+ * are the south and east walls of its neighbours, and the outer walls always
+ * exist, so two bits per cell describe the whole maze. Bitboard generators
+ * decide the walls of 64 cells at once with a single word operation, which
+ * makes bulk generation of enormous mazes very fast. writeTo() converts the
+ * maze into a MazeGrid so that it can be drawn, collided with and solved like
+ * any other maze.
+ *
+ * Cells are addressed by row x (1 to width) and column y (1 to height) like
+ * in MazeGrid. Bit (x - 1) % 64 of word (x - 1) / 64 of a row holds the wall
+ * of cell x, bits beyond the width are always zero.
+ *
+ * @see BinaryTreeGenerator
+ * @see SidewinderGenerator
+ */
+public class BitboardMaze
+{
+
+    /**
+     * Number of cells in each row.
+     */
+    private final int width;
+    /**
+     * Number of rows.
+     */
+    private final int height;
+    /**
+     * Number of words in each row.
+     */
+    private final int words;
+    /**
+     * East wall bits, row after row.
+     */
+    private final long[] east;
+    /**
+     * South wall bits, row after row.
+     */
+    private final long[] south;
+
+    /**
+     * Initializes a maze of the given size where every cell is completely
+     * closed (all walls exist).
+     *
+     * @param width Number of cells in each row.
+     * @param height Number of rows.
+     */
+    public BitboardMaze(int width, int height)
+    {
+        if (width < 1 || height < 1)
+        {
+            throw new IllegalArgumentException("maze size must be positive: " + width + " x " + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.words = (width + 63) >>> 6;
+        this.east = new long[words * height];
+        this.south = new long[words * height];
+
+        for (int y = 0; y < height; y++)
+        {
+            for (int w = 0; w < words; w++)
+            {
+                east[y * words + w] = validMask(w);
+                south[y * words + w] = validMask(w);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of cells in each row.
+     *
+     * @return width Row width
+     * @see #width
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return height Row count
+     * @see #height
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * Returns the number of words in each row.
+     *
+     * @return words Words per row
+     * @see #words
+     */
+    public int getWords()
+    {
+        return words;
+    }
+
+    /**
+     * Returns the bits of word w that belong to cells of the maze, every bit
+     * except for the bits beyond the width in the last word of a row.
+     *
+     * @param w Word number within a row.
+     * @return Mask of the cells in the word.
+     */
+    public long validMask(int w)
+    {
+        int cells = width - (w << 6);
+        return cells >= 64 ? -1L : (1L << cells) - 1;
+    }
+
+    /**
+     * Returns the bit of the last cell of a row within the last word of the
+     * row, or zero for any other word.
+     *
+     * @param w Word number within a row.
+     * @return Mask of the last cell of a row.
+     */
+    public long lastCellMask(int w)
+    {
+        return w == words - 1 ? 1L << ((width - 1) & 63) : 0;
+    }
+
+    /**
+     * Returns the east wall bits of word w of row y.
+     *
+     * @param y Column (1 to height)
+     * @param w Word number within the row.
+     * @return East wall bits
+     */
+    public long getEastWord(int y, int w)
+    {
+        return east[(y - 1) * words + w];
+    }
+
+    /**
+     * Replaces the east wall bits of word w of row y, bits beyond the width
+     * are ignored. The east wall of the last cell of a row must exist.
+     *
+     * @param y Column (1 to height)
+     * @param w Word number within the row.
+     * @param bits East wall bits
+     */
+    public void setEastWord(int y, int w, long bits)
+    {
+        east[(y - 1) * words + w] = bits & validMask(w);
+    }
+
+    /**
+     * Returns the south wall bits of word w of row y.
+     *
+     * @param y Column (1 to height)
+     * @param w Word number within the row.
+     * @return South wall bits
+     */
+    public long getSouthWord(int y, int w)
+    {
+        return south[(y - 1) * words + w];
+    }
+
+    /**
+     * Replaces the south wall bits of word w of row y, bits beyond the width
+     * are ignored. The south walls of the last row must exist.
+     *
+     * @param y Column (1 to height)
+     * @param w Word number within the row.
+     * @param bits South wall bits
+     */
+    public void setSouthWord(int y, int w, long bits)
+    {
+        south[(y - 1) * words + w] = bits & validMask(w);
+    }
+
+    /**
+     * Destroys the south wall of the cell located at row x and column y.
+     *
+     * @param x Row
+     * @param y Column
+     */
+    public void carveSouth(int x, int y)
+    {
+        south[(y - 1) * words + ((x - 1) >>> 6)] &= ~(1L << (x - 1));
+    }
+
+    /**
+     * Returns a boolean that represents whether the east wall of the cell
+     * located at row x and column y exists.
+     *
+     * @param x Row
+     * @param y Column
+     * @return True if the wall exists.
+     */
+    public boolean hasEastWall(int x, int y)
+    {
+        return (east[(y - 1) * words + ((x - 1) >>> 6)] & (1L << (x - 1))) != 0;
+    }
+
+    /**
+     * Returns a boolean that represents whether the south wall of the cell
+     * located at row x and column y exists.
+     *
+     * @param x Row
+     * @param y Column
+     * @return True if the wall exists.
+     */
+    public boolean hasSouthWall(int x, int y)
+    {
+        return (south[(y - 1) * words + ((x - 1) >>> 6)] & (1L << (x - 1))) != 0;
+    }
+
+    /**
+     * Closes every wall of the maze again so that it can be carved anew.
+     */
+    public void reset()
+    {
+        for (int w = 0; w < words; w++)
+        {
+            long valid = validMask(w);
+            for (int y = 0; y < height; y++)
+            {
+                east[y * words + w] = valid;
+            }
+        }
+        System.arraycopy(east, 0, south, 0, east.length);
+    }
+
+    /**
+     * Copies the walls of the maze into a freshly initialized grid of the same
+     * dimensions and marks every maze cell as visited, the other flags of the
+     * cells are kept.
+     *
+     * @param grid Grid with the same dimensions as this (square) maze.
+     */
+    public void writeTo(MazeGrid grid)
+    {
+        if (grid.getDimensions() != width || width != height)
+        {
+            throw new IllegalArgumentException("grid is " + grid.getDimensions() + " x "
+                    + grid.getDimensions() + ", maze is " + width + " x " + height);
+        }
+        long[] above = new long[words];
+        Arrays.fill(above, -1L);
+
+        for (int y = 1; y <= height; y++)
+        {
+            int row = (y - 1) * words;
+            int cell = grid.index(1, y);
+            //East wall of the cell to the west, the border always has one.
+            boolean westWall = true;
+            for (int w = 0; w < words; w++)
+            {
+                long e = east[row + w];
+                long s = south[row + w];
+                long n = above[w];
+                int cells = Math.min(64, width - (w << 6));
+                for (int i = 0; i < cells; i++)
+                {
+                    int walls = (int) ((n >>> i) & 1) * MazeGrid.NORTH
+                            | (int) ((e >>> i) & 1) * MazeGrid.EAST
+                            | (int) ((s >>> i) & 1) * MazeGrid.SOUTH
+                            | (westWall ? MazeGrid.WEST : 0);
+                    grid.setWalls(cell, walls);
+                    grid.setVisited(cell, true);
+                    westWall = ((e >>> i) & 1) != 0;
+                    cell++;
+                }
+                above[w] = s;
+            }
+        }
+    }
+}
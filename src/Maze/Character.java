@@ -19,7 +19,7 @@ public class Character
      * Buffered image container for the character's sprite.
      *
      */
-    private BufferedImage playerImg;
+    private static BufferedImage playerImg;
     /**
      * Character object's (Rectangle) movement speed in pixels.
      *
@@ -46,11 +46,10 @@ public class Character
      */
     private int height;
     /**
-     * Graphics Maze object used to obtain a clone of the current maze drawn in
-     * order for correct collision detection.
+     * Maze object whose grid is read directly for collision detection.
      *
      */
-    private GraphicsMaze colMaze;
+    private GenMaze colMaze;
     /**
      * Move handler object which character object depends on to correctly handle
      * movements, all input handlers must meet this specification.
@@ -58,32 +57,35 @@ public class Character
      */
     private MoveHandler mover = null;
 
+    //The sprite is shared by every character object, so it is only loaded once.
+    static
+    {
+        try
+        {
+            playerImg = ImageIO.read(new File("res/playerSprite.png"));
+        } catch (IOException e)
+        {
+        }
+    }
+
     /**
      * Initializes the initial x and y position of the character object, the
-     * speed and the dimensions (size of player). Obtains the most recent drawn
-     * copy of the maze for collision detection and loads the sprite
-     * representing the character object.
+     * speed and the dimensions (size of player). Obtains the maze used for
+     * collision detection, the sprite representing the character object is
+     * shared by all character objects.
      *
      * @param xPos Initial x position.
      * @param yPos Initial y position.
-     * @param g Graphics rendering object used to draw to the window
-     * (JFrame/JPanel).
+     * @param m Maze that the character object moves through.
      */
-    public Character(int xPos, int yPos, GraphicsMaze g)
+    public Character(int xPos, int yPos, GenMaze m)
     {
         this.xPos = xPos;
         this.yPos = yPos;
         movementSpeed = 2;
         width = 20;
         height = 20;
-        this.colMaze = g;
-
-        try
-        {
-            playerImg = ImageIO.read(new File("res/playerSprite.png"));
-        } catch (IOException e)
-        {
-        }
+        this.colMaze = m;
     }
 
     /**
@@ -97,6 +99,31 @@ public class Character
         this.mover = m;
     }
 
+    /**
+     * Changes the maze that the character collides with, for example when the
+     * character takes the stairs to another floor. The character keeps its
+     * position on the screen.
+     *
+     * @param m Maze to collide with.
+     */
+    public void setMaze(GenMaze m)
+    {
+        this.colMaze = m;
+    }
+
+    /**
+     * Moves the character object to the given position without checking for
+     * collisions, for example when the maze scrolls under the character.
+     *
+     * @param xPos New x position.
+     * @param yPos New y position.
+     */
+    public void setPosition(int xPos, int yPos)
+    {
+        this.xPos = xPos;
+        this.yPos = yPos;
+    }
+
     /**
      * Returns a new rectangle object at the player's current position.
      *
@@ -131,6 +158,17 @@ public class Character
         return yPos;
     }
 
+    /**
+     * Returns the number of pixels the player moves per move.
+     *
+     * @return movementSpeed Character object's movement speed in pixels.
+     * @see #movementSpeed
+     */
+    public int getMovementSpeed()
+    {
+        return movementSpeed;
+    }
+
     /**
      * Returns the width of the player.
      *
@@ -160,70 +198,126 @@ public class Character
      * collisions that can occur are wall collisions, time point collisions and
      * end point collisions. The character can't pass walls (wall collision) and
      * certain events are triggered when the character object collides with an
-     * end point or time point. Returns true if collision occurs otherwise
-     * returns false.
+     * end point or time point. Only the (at most four) visible cells that the
+     * projected position overlaps are read from the maze grid, their wall
+     * rectangles are derived from the cell's coordinates. Returns true if
+     * collision occurs otherwise returns false.
      *
      * @param direc String representing the anticipated direction.
      */
     public boolean collide(String direc)
     {
+        int px = this.xPos;
+        int py = this.yPos;
 
-        for (RectCell it : colMaze.getRectangles())
+        if (direc.equals("up"))
+        {
+            py -= movementSpeed;
+        } else if (direc.equals("down"))
+        {
+            py += movementSpeed;
+        } else if (direc.equals("left"))
         {
+            px -= movementSpeed;
+        } else
+        {
+            px += movementSpeed;
+        }
 
-            Rectangle r1 = it.eastWall;
-            Rectangle r2 = it.northWall;
-            Rectangle r3 = it.southWall;
-            Rectangle r4 = it.westWall;
-            Rectangle Point = it.getCellBox();
-            Rectangle pos;
+        MazeGrid grid = colMaze.getGrid();
+        int size = GenMaze.CELL_SIZE;
+        int dim = colMaze.getGridDimensions();
+        int originX = colMaze.getCoordX(1);
+        int originY = colMaze.getCoordY(1);
 
-            if (direc.equals("up"))
-            {
-                pos = new Rectangle(this.xPos, this.yPos - movementSpeed, 20, 20);
-            } else if (direc.equals("down"))
-            {
-                pos = new Rectangle(this.xPos, this.yPos + movementSpeed, 20, 20);
-            } else if (direc.equals("left"))
-            {
-                pos = new Rectangle(this.xPos - movementSpeed, this.yPos, 20, 20);
-            } else
-            {
-                pos = new Rectangle(this.xPos + movementSpeed, this.yPos, 20, 20);
-            }
+        //Rows and columns of the cells covered by the projected position.
+        int firstX = Math.max(1, cellOf(px - originX) + 1);
+        int lastX = Math.min(dim, cellOf(px + width - 1 - originX) + 1);
+        int firstY = Math.max(1, cellOf(py - originY) + 1);
+        int lastY = Math.min(dim, cellOf(py + height - 1 - originY) + 1);
 
-            if ((r1 != null) && (r1.intersects(pos)))
+        boolean endPoint = false;
+        boolean timePoint = false;
+        for (int j = firstY; j <= lastY; j++)
+        {
+            for (int i = firstX; i <= lastX; i++)
             {
+                if (!grid.isVisible(i, j))
+                {
+                    continue;
+                }
+                int cx = colMaze.getCoordX(i);
+                int cy = colMaze.getCoordY(j);
+                int walls = grid.walls(i, j);
 
-                return true;
-            }
-            if ((r2 != null) && (r2.intersects(pos)))
-            {
-                return true;
-            }
-            if ((r3 != null) && (r3.intersects(pos)))
-            {
-                return true;
-            }
-            if ((r4 != null) && (r4.intersects(pos)))
-            {
-                return true;
-            }
-            //Check if finish point/block
-            if ((Point != null) && (Point.intersects(pos) && (it.isEndPoint())))
-            {
-                GamePanel.nextLevel = true;
-            }
-            //Check if time point/block
-            if ((Point != null) && (Point.intersects(pos) && (it.isTimePoint())))
-            {
-                GamePanel.incrementTime = true;
+                if (((walls & MazeGrid.EAST) != 0) && intersects(px, py, cx + size - 2, cy, 2, size))
+                {
+                    return true;
+                }
+                if (((walls & MazeGrid.NORTH) != 0) && intersects(px, py, cx, cy, size, 2))
+                {
+                    return true;
+                }
+                if (((walls & MazeGrid.SOUTH) != 0) && intersects(px, py, cx, cy + size - 2, size, 2))
+                {
+                    return true;
+                }
+                if (((walls & MazeGrid.WEST) != 0) && intersects(px, py, cx, cy, 2, size))
+                {
+                    return true;
+                }
+                if (intersects(px, py, cx, cy, size, size))
+                {
+                    endPoint |= grid.isEndPoint(i, j);
+                    timePoint |= grid.isTimePoint(i, j);
+                }
             }
         }
 
+        //Check if finish point/block
+        if (endPoint)
+        {
+            GamePanel.nextLevel = true;
+        }
+        //Check if time point/block
+        if (timePoint)
+        {
+            GamePanel.incrementTime = true;
+        }
         return false;
     }
 
+    /**
+     * Returns the (zero based) cell index that a pixel offset from the maze
+     * origin falls into, rounding towards negative infinity.
+     *
+     * @param offset Pixel offset from the maze origin.
+     * @return Cell index
+     */
+    private static int cellOf(int offset)
+    {
+        int cell = offset / GenMaze.CELL_SIZE;
+        return (offset < 0 && offset % GenMaze.CELL_SIZE != 0) ? cell - 1 : cell;
+    }
+
+    /**
+     * Returns true if the character object, projected to x and y, intersects
+     * the given rectangle. Follows the semantics of Rectangle.intersects
+     * without allocating rectangle objects.
+     *
+     * @param x Projected x position of the character object.
+     * @param y Projected y position of the character object.
+     * @param rx x coordinate of the rectangle.
+     * @param ry y coordinate of the rectangle.
+     * @param rw Width of the rectangle.
+     * @param rh Height of the rectangle.
+     * @return True if the two rectangles intersect.
+     */
+    private boolean intersects(int x, int y, int rx, int ry, int rw, int rh)
+    {
+        return x < rx + rw && rx < x + width && y < ry + rh && ry < y + height;
+    }
+
     /**
      * Performs a move operation in the corresponding direction if there are no
      * possible collisions.
@@ -0,0 +1,221 @@
+package Maze;
+
+/**
+ * Randomized Depth First Search (recursive backtracker) maze generator. The
+ * mazes have long, winding corridors and relatively few dead ends. The
+ * carving can also be run incrementally, see stepper().
+ */
+public class DepthFirstGenerator implements IncrementalGenerator
+{
+
+    /**
+     * Returns the name of this generator.
+     *
+     * @return Generator name
+     */
+    @Override
+    public String getName()
+    {
+        return "dfs";
+    }
+
+    /**
+     * Carves a maze through the whole grid starting at the start cell.
+     *
+     * @param grid Grid to carve the maze into.
+     * @param start Cell number where the algorithm starts carving.
+     * @param random Source of randomness for this generation.
+     * @see #carveRegion(MazeGrid, int, int, int, int, int, MazeRandom)
+     */
+    @Override
+    public void generate(MazeGrid grid, int start, MazeRandom random)
+    {
+        int dim = grid.getDimensions();
+        carveRegion(grid, 1, 1, dim, dim, start, random);
+    }
+
+    /**
+     * Returns a stepper which carves the same maze as generate() through the
+     * whole grid, one batch of work at a time.
+     *
+     * @param grid Grid to carve the maze into.
+     * @param start Cell number where the algorithm starts carving.
+     * @param random Source of randomness for this generation.
+     * @return Stepper for the generation.
+     */
+    @Override
+    public MazeStepper stepper(MazeGrid grid, int start, MazeRandom random)
+    {
+        int dim = grid.getDimensions();
+        return new RegionStepper(grid, 1, 1, dim, dim, start, random);
+    }
+
+    /**
+     * Generates a maze inside the rectangular region of the grid spanning rows
+     * x0 to x1 and columns y0 to y1 (inclusive), starting at the unvisited
+     * start cell. Only cells inside the region are read or written, so
+     * disjoint regions can be carved concurrently.
+     *
+     * @param grid Grid to carve the maze into.
+     * @param x0 First row of the region.
+     * @param y0 First column of the region.
+     * @param x1 Last row of the region.
+     * @param y1 Last column of the region.
+     * @param start Cell number of the starting cell.
+     * @param random Source of randomness for this region.
+     * @see RegionStepper
+     */
+    static void carveRegion(MazeGrid grid, int x0, int y0, int x1, int y1, int start, MazeRandom random)
+    {
+        new RegionStepper(grid, x0, y0, x1, y1, start, random).step(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Depth First Search over a rectangular region of the grid which can be
+     * stopped after any number of moves and resumed later. The search is
+     * driven by an explicit stack of cell numbers rather than by recursion,
+     * so the depth of the search is bounded by the heap instead of the thread
+     * stack and very large grids can be generated safely. At each move the
+     * unvisited neighbours of the cell on top of the stack are collected and
+     * one of them is picked directly (one random draw per move), the wall
+     * between the two cells is destroyed and the neighbour is pushed. Once a
+     * cell has no unvisited neighbours it is popped, which mirrors the
+     * recursive calls terminating and recursing back out. Since the state of
+     * the search lives entirely in the stack, splitting the moves into
+     * batches does not change the maze.
+     */
+    static class RegionStepper implements MazeStepper
+    {
+
+        /**
+         * Grid to carve the maze into.
+         */
+        private final MazeGrid grid;
+        /**
+         * First row of the region.
+         */
+        private final int x0;
+        /**
+         * First column of the region.
+         */
+        private final int y0;
+        /**
+         * Last row of the region.
+         */
+        private final int x1;
+        /**
+         * Last column of the region.
+         */
+        private final int y1;
+        /**
+         * Source of randomness for this region.
+         */
+        private final MazeRandom random;
+        /**
+         * Cells of the current path, each cell in the region is pushed
+         * exactly once.
+         */
+        private final int[] stack;
+        /**
+         * Scratch space for the unvisited neighbours of the current cell.
+         */
+        private final int[] options = new int[4];
+        /**
+         * Number of cells on the stack.
+         */
+        private int top;
+
+        /**
+         * Initializes the search of the region, the start cell is visited
+         * and pushed straight away.
+         *
+         * @param grid Grid to carve the maze into.
+         * @param x0 First row of the region.
+         * @param y0 First column of the region.
+         * @param x1 Last row of the region.
+         * @param y1 Last column of the region.
+         * @param start Cell number of the starting cell.
+         * @param random Source of randomness for this region.
+         */
+        RegionStepper(MazeGrid grid, int x0, int y0, int x1, int y1, int start, MazeRandom random)
+        {
+            this.grid = grid;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+            this.random = random;
+            this.stack = new int[(x1 - x0 + 1) * (y1 - y0 + 1)];
+
+            //set the initial cell visited flag to visited (true).
+            grid.setVisited(start, true);
+            stack[top++] = start;
+        }
+
+        /**
+         * Performs at most budget moves of the search, a move either carves
+         * into a new cell or backtracks out of a dead end.
+         *
+         * @param budget Maximum number of moves.
+         * @return True if every cell of the region has been carved.
+         */
+        @Override
+        public boolean step(int budget)
+        {
+            int stride = grid.size();
+            int top = this.top;
+
+            while (top > 0 && budget-- > 0)
+            {
+                int cell = stack[top - 1];
+                int cx = cell % stride;
+                int cy = cell / stride;
+                int count = 0;
+
+                if (cy < y1 && !grid.isVisited(cell + stride))
+                {
+                    options[count++] = MazeGrid.SOUTH;
+                }
+                if (cx < x1 && !grid.isVisited(cell + 1))
+                {
+                    options[count++] = MazeGrid.EAST;
+                }
+                if (cy > y0 && !grid.isVisited(cell - stride))
+                {
+                    options[count++] = MazeGrid.NORTH;
+                }
+                if (cx > x0 && !grid.isVisited(cell - 1))
+                {
+                    options[count++] = MazeGrid.WEST;
+                }
+
+                //Dead end, backtrack to the previous cell.
+                if (count == 0)
+                {
+                    top--;
+                    continue;
+                }
+
+                int wall = options[count == 1 ? 0 : random.nextInt(count)];
+                int next = grid.neighbour(cell, wall);
+                grid.carve(cell, wall);
+                grid.setVisited(next, true);
+                stack[top++] = next;
+            }
+            this.top = top;
+            return top == 0;
+        }
+
+        /**
+         * Returns a boolean that represents whether every cell of the region
+         * has been carved.
+         *
+         * @return True if the search is over.
+         */
+        @Override
+        public boolean isDone()
+        {
+            return top == 0;
+        }
+    }
+}
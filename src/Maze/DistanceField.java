@@ -0,0 +1,551 @@
+package Maze;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Number of steps from every cell of a maze to one source cell, normally the
+ * end point, so that "how far is the exit from here" is a single array read.
+ * The arrays hold one int per cell of the grid, border included, and are
+ * reused when the field is computed again from another source.
+ *
+ * The breadth first search relies on the maze being perfect, which every
+ * MazeGenerator guarantees: a cell is only ever entered from one side, so
+ * the search skips that side instead of testing whether each neighbour has
+ * been reached. The passages of a maze with a cycle fill up the queue and
+ * the search stops with an IllegalArgumentException.
+ *
+ * computeParallel() searches giant grids level by level on the shared pool,
+ * expanding only the frontiers wide enough to be worth it concurrently, and
+ * gives the same field as compute().
+ *
+ * @see MazeGrid
+ */
+public class DistanceField
+{
+
+    /**
+     * Distance of cells which can not be reached from the source (border and
+     * blocked cells, or cells of a maze which is still being carved).
+     */
+    public static final int UNREACHABLE = -1;
+    /**
+     * Largest number of cells (border included) of a grid, the cell numbers
+     * in the queue are shifted left by two.
+     */
+    private static final int MAX_CELLS = 1 << 29;
+    /**
+     * Smallest frontier, in cells, which computeParallel() splits between
+     * threads.
+     */
+    private static final int PARALLEL_FRONTIER = 1 << 11;
+    /**
+     * Number of frontier cells expanded by one task of computeParallel().
+     */
+    private static final int CHUNK = 1 << 9;
+    /**
+     * Wall bits of the four sides in the order of their side number, north
+     * 0, east 1, south 2 and west 3. The side opposite side s is (s + 2) & 3.
+     */
+    private static final int[] SIDES =
+    {
+        MazeGrid.NORTH, MazeGrid.EAST, MazeGrid.SOUTH, MazeGrid.WEST
+    };
+    /**
+     * Grid the distances are measured in.
+     */
+    private final MazeGrid grid;
+    /**
+     * Distance of every cell to the source, by cell number.
+     */
+    private final int[] dist;
+    /**
+     * Queue of the breadth first search, cell number shifted left by two and
+     * the side the cell was entered from.
+     */
+    private final int[] queue;
+    /**
+     * Cell number offset of the neighbour on each side.
+     */
+    private final int[] offsets;
+    /**
+     * Bit of every cell which is set when a chunk of the parallel search
+     * claims it, allocated by the first parallel search.
+     */
+    private AtomicLongArray claimed;
+    /**
+     * Cells found by every chunk of the parallel search on the level being
+     * expanded, kept between levels and searches.
+     */
+    private int[][] found;
+    /**
+     * Number of cells found by every chunk of the parallel search.
+     */
+    private int[] foundCount;
+    /**
+     * Cell number of the source.
+     */
+    private int source;
+    /**
+     * Number of cells reached from the source, including the source.
+     */
+    private int reached;
+    /**
+     * Largest distance of any reached cell.
+     */
+    private int maxDistance;
+    /**
+     * Cell number of a reached cell at the largest distance, the last cell
+     * taken off the queue.
+     */
+    private int farthest;
+
+    /**
+     * Computes the distance of every cell of a generated grid to its end
+     * point.
+     *
+     * @param grid Generated grid with an end point.
+     */
+    public DistanceField(MazeGrid grid)
+    {
+        this(grid, grid.getEndPoint());
+    }
+
+    /**
+     * Computes the distance of every cell of a generated grid to a cell.
+     *
+     * @param grid Generated grid.
+     * @param source Cell number the distances are measured from.
+     */
+    public DistanceField(MazeGrid grid, int source)
+    {
+        this(grid, source, false);
+    }
+
+    /**
+     * Computes the distance of every cell of a generated grid to a cell,
+     * optionally on all cores.
+     *
+     * @param grid Generated grid.
+     * @param source Cell number the distances are measured from.
+     * @param parallel True to compute the field with computeParallel().
+     */
+    public DistanceField(MazeGrid grid, int source, boolean parallel)
+    {
+        this.grid = grid;
+        int dim = grid.getDimensions();
+        int stride = grid.size();
+        if ((long) stride * stride > MAX_CELLS)
+        {
+            throw new IllegalArgumentException("grid too large for a distance field: " + dim);
+        }
+        this.dist = new int[stride * stride];
+        this.queue = new int[stride * stride];
+        this.offsets = new int[]
+        {
+            -stride, 1, stride, -1
+        };
+        if (parallel)
+        {
+            computeParallel(source);
+        } else
+        {
+            compute(source);
+        }
+    }
+
+    /**
+     * Computes the field again from another source, reusing the arrays. The
+     * walls of a cell are read once, as a single byte, when it is taken off
+     * the queue.
+     *
+     * @param source Cell number the distances are measured from.
+     * @throws IllegalArgumentException If the maze is not perfect, its
+     * passages form a cycle.
+     */
+    public void compute(int source)
+    {
+        int[] dist = this.dist;
+        int[] queue = this.queue;
+        int[] offsets = this.offsets;
+        Arrays.fill(dist, UNREACHABLE);
+        int head = 0;
+        int tail = 0;
+        dist[source] = 0;
+        //The source has no side it was entered from, it is expanded first.
+        int open = ~grid.bits(source) & MazeGrid.ALL_WALLS;
+        for (int side = 0; side < 4; side++)
+        {
+            if ((open & SIDES[side]) != 0)
+            {
+                int next = source + offsets[side];
+                dist[next] = 1;
+                queue[tail++] = (next << 2) | ((side + 2) & 3);
+            }
+        }
+
+        //A cell adds at most three cells to the queue.
+        int limit = queue.length - 3;
+        while (head < tail)
+        {
+            if (tail > limit)
+            {
+                throw cycle(queue[head] >>> 2);
+            }
+            int entry = queue[head++];
+            int cell = entry >>> 2;
+            //Open sides as bits 0 to 3, without the side the cell was
+            //entered from.
+            open = ~(grid.bits(cell) | SIDES[entry & 3]) & MazeGrid.ALL_WALLS;
+            int d = dist[cell] + 1;
+            while (open != 0)
+            {
+                int side = Integer.numberOfTrailingZeros(open);
+                open &= open - 1;
+                int next = cell + offsets[side];
+                dist[next] = d;
+                queue[tail++] = (next << 2) | ((side + 2) & 3);
+            }
+        }
+        this.source = source;
+        this.reached = tail + 1;
+        this.farthest = tail == 0 ? source : queue[tail - 1] >>> 2;
+        this.maxDistance = dist[farthest];
+    }
+
+    /**
+     * Computes the field again from another source with a level synchronous
+     * breadth first search whose wide levels are expanded on all cores. The
+     * queue holds the frontiers one after the other, the cells found by the
+     * chunks of a level are appended to it once they are all done. Like
+     * compute() the search relies on the maze being perfect.
+     *
+     * @param source Cell number the distances are measured from.
+     * @throws IllegalArgumentException If the maze is not perfect, its
+     * passages form a cycle.
+     */
+    public void computeParallel(int source)
+    {
+        int[] dist = this.dist;
+        int[] queue = this.queue;
+        int[] offsets = this.offsets;
+        if (claimed == null)
+        {
+            claimed = new AtomicLongArray((dist.length + 63) >>> 6);
+            found = new int[0][];
+            foundCount = new int[0];
+        } else
+        {
+            for (int i = 0; i < claimed.length(); i++)
+            {
+                claimed.lazySet(i, 0);
+            }
+        }
+        Arrays.fill(dist, UNREACHABLE);
+        int head = 0;
+        int tail = 0;
+        dist[source] = 0;
+        //The source has no side it was entered from, it is expanded first.
+        int open = ~grid.bits(source) & MazeGrid.ALL_WALLS;
+        for (int side = 0; side < 4; side++)
+        {
+            if ((open & SIDES[side]) != 0)
+            {
+                int next = source + offsets[side];
+                dist[next] = 1;
+                queue[tail++] = (next << 2) | ((side + 2) & 3);
+            }
+        }
+
+        //With a single thread the chunks would only add overhead.
+        int wide = ParallelMazeGenerator.POOL.getParallelism() > 1 ? PARALLEL_FRONTIER : Integer.MAX_VALUE;
+        int limit = queue.length - 3;
+        int d = 1;
+        while (head < tail)
+        {
+            d++;
+            int end = tail;
+            if (end - head < wide)
+            {
+                for (int i = head; i < end; i++)
+                {
+                    int entry = queue[i];
+                    int cell = entry >>> 2;
+                    if (tail > limit)
+                    {
+                        throw cycle(cell);
+                    }
+                    open = ~(grid.bits(cell) | SIDES[entry & 3]) & MazeGrid.ALL_WALLS;
+                    while (open != 0)
+                    {
+                        int side = Integer.numberOfTrailingZeros(open);
+                        open &= open - 1;
+                        int next = cell + offsets[side];
+                        dist[next] = d;
+                        queue[tail++] = (next << 2) | ((side + 2) & 3);
+                    }
+                }
+            } else
+            {
+                int chunks = (end - head + CHUNK - 1) / CHUNK;
+                if (found.length < chunks)
+                {
+                    int old = found.length;
+                    found = Arrays.copyOf(found, chunks);
+                    foundCount = new int[chunks];
+                    for (int c = old; c < chunks; c++)
+                    {
+                        found[c] = new int[4 * CHUNK];
+                    }
+                }
+                ParallelMazeGenerator.POOL.invoke(new FrontierTask(head, end, 0, chunks, d));
+                for (int c = 0; c < chunks; c++)
+                {
+                    if (tail + foundCount[c] > limit)
+                    {
+                        throw cycle(queue[head] >>> 2);
+                    }
+                    System.arraycopy(found[c], 0, queue, tail, foundCount[c]);
+                    tail += foundCount[c];
+                }
+            }
+            head = end;
+        }
+        this.source = source;
+        this.reached = tail + 1;
+        this.farthest = tail == 0 ? source : queue[tail - 1] >>> 2;
+        this.maxDistance = dist[farthest];
+    }
+
+    /**
+     * Returns the exception thrown when the queue of the search fills up
+     * because the search goes round a cycle.
+     *
+     * @param cell Cell number of a cell being expanded, which lies on or
+     * beyond the cycle.
+     * @return Exception to throw.
+     */
+    private IllegalArgumentException cycle(int cell)
+    {
+        return new IllegalArgumentException("maze is not perfect, cycle near " + grid.getX(cell) + ", "
+                + grid.getY(cell));
+    }
+
+    /**
+     * Returns the grid the distances are measured in.
+     *
+     * @return grid Grid
+     * @see #grid
+     */
+    public MazeGrid getGrid()
+    {
+        return grid;
+    }
+
+    /**
+     * Returns the cell number the distances are measured from.
+     *
+     * @return source Cell number
+     * @see #source
+     */
+    public int getSource()
+    {
+        return source;
+    }
+
+    /**
+     * Returns the number of cells reached from the source, including the
+     * source. In a perfect maze every cell is reached.
+     *
+     * @return reached Cell count
+     * @see #reached
+     */
+    public int getReached()
+    {
+        return reached;
+    }
+
+    /**
+     * Returns the largest distance of any cell to the source, the length of
+     * the longest path ending at the source.
+     *
+     * @return maxDistance Number of steps
+     * @see #maxDistance
+     */
+    public int getMaxDistance()
+    {
+        return maxDistance;
+    }
+
+    /**
+     * Returns a cell at the largest distance from the source. In a perfect
+     * maze one end of a longest path, so a field computed again from this
+     * cell measures the diameter of the maze.
+     *
+     * @return farthest Cell number
+     * @see #farthest
+     */
+    public int getFarthest()
+    {
+        return farthest;
+    }
+
+    /**
+     * Returns the number of steps from a cell to the source.
+     *
+     * @param cell Cell number
+     * @return Number of steps, UNREACHABLE if the source can not be reached.
+     */
+    public int distance(int cell)
+    {
+        return dist[cell];
+    }
+
+    /**
+     * Returns the number of steps from the cell located at row x and column y
+     * to the source.
+     *
+     * @param x Row
+     * @param y Column
+     * @return Number of steps, UNREACHABLE if the source can not be reached.
+     */
+    public int distance(int x, int y)
+    {
+        return dist[grid.index(x, y)];
+    }
+
+    /**
+     * Returns the number of bytes used by the arrays of the field.
+     *
+     * @return Size in bytes
+     */
+    public long byteSize()
+    {
+        long size = 4L * (dist.length + queue.length);
+        if (claimed != null)
+        {
+            size += 8L * claimed.length() + 16L * CHUNK * found.length;
+        }
+        return size;
+    }
+
+    /**
+     * Fork/join task of the parallel search which expands a range of chunks
+     * of a frontier, ranges are split in half until a single chunk is left.
+     */
+    private class FrontierTask extends RecursiveAction
+    {
+
+        /**
+         * Version of the serialized form of the task.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Queue position of the first cell of the frontier.
+         */
+        private final int head;
+        /**
+         * Queue position after the last cell of the frontier.
+         */
+        private final int end;
+        /**
+         * First chunk of the range (inclusive).
+         */
+        private final int from;
+        /**
+         * Last chunk of the range (exclusive).
+         */
+        private final int to;
+        /**
+         * Distance of the cells found.
+         */
+        private final int d;
+
+        /**
+         * Initializes a task for the chunks from (inclusive) to to
+         * (exclusive) of a frontier.
+         *
+         * @param head Queue position of the first cell of the frontier.
+         * @param end Queue position after the last cell of the frontier.
+         * @param from First chunk
+         * @param to Last chunk (exclusive).
+         * @param d Distance of the cells found.
+         */
+        FrontierTask(int head, int end, int from, int to, int d)
+        {
+            this.head = head;
+            this.end = end;
+            this.from = from;
+            this.to = to;
+            this.d = d;
+        }
+
+        /**
+         * Expands the single chunk of the range or splits the range in half.
+         * Like compute() the side every cell was entered from is skipped, and
+         * a cell found is only recorded by the chunk which sets its bit, so
+         * that no two threads ever write the same cell. A cell whose bit is
+         * set already has been reached twice, through a cycle.
+         */
+        @Override
+        protected void compute()
+        {
+            if (to - from > 1)
+            {
+                int mid = (from + to) >>> 1;
+                invokeAll(new FrontierTask(head, end, from, mid, d), new FrontierTask(head, end, mid, to, d));
+                return;
+            }
+            int[] dist = DistanceField.this.dist;
+            int[] queue = DistanceField.this.queue;
+            int[] offsets = DistanceField.this.offsets;
+            AtomicLongArray claimed = DistanceField.this.claimed;
+            int[] out = found[from];
+            int count = 0;
+            int last = Math.min(head + (from + 1) * CHUNK, end);
+            for (int i = head + from * CHUNK; i < last; i++)
+            {
+                int entry = queue[i];
+                int cell = entry >>> 2;
+                int open = ~(grid.bits(cell) | SIDES[entry & 3]) & MazeGrid.ALL_WALLS;
+                while (open != 0)
+                {
+                    int side = Integer.numberOfTrailingZeros(open);
+                    open &= open - 1;
+                    int next = cell + offsets[side];
+                    if (!claim(claimed, next))
+                    {
+                        throw cycle(next);
+                    }
+                    dist[next] = d;
+                    out[count++] = (next << 2) | ((side + 2) & 3);
+                }
+            }
+            foundCount[from] = count;
+        }
+    }
+
+    /**
+     * Sets the bit of a cell in a bitset shared between threads.
+     *
+     * @param bits Bitset
+     * @param cell Cell number
+     * @return True if this call set the bit, false if it was already set.
+     */
+    private static boolean claim(AtomicLongArray bits, int cell)
+    {
+        int word = cell >>> 6;
+        long bit = 1L << cell;
+        long old;
+        do
+        {
+            old = bits.get(word);
+            if ((old & bit) != 0)
+            {
+                return false;
+            }
+        } while (!bits.compareAndSet(word, old, old | bit));
+        return true;
+    }
+}
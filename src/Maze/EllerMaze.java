@@ -0,0 +1,287 @@
+package Maze;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Streams a maze one finished row at a time using Eller's algorithm. Only the
+ * set labels of the current row are kept in memory, so the memory used stays
+ * the same (proportional to the maze width) no matter how many rows are
+ * produced and arbitrarily tall or endless mazes can be handed straight to a
+ * consumer such as a renderer or a file writer.
+ *
+ * Each row is returned as an array of bytes, one per cell from west to east,
+ * using the wall bits of MazeGrid (NORTH, EAST, SOUTH and WEST). The walls of
+ * neighbouring cells are consistent and the outer walls of the maze exist, so
+ * that the rows of a finite maze together form a perfect maze.
+ *
+ * @see MazeGrid
+ */
+public class EllerMaze implements Iterator<byte[]>
+{
+
+    /**
+     * Number of cells in each row.
+     */
+    private final int width;
+    /**
+     * Number of rows in the maze, zero or less for an endless maze.
+     */
+    private final long height;
+    /**
+     * Number of rows produced so far.
+     */
+    private long row;
+    /**
+     * Set label of each cell in the current row.
+     */
+    private final int[] sets;
+    /**
+     * Union-find parent of each set label, used to merge sets within a row.
+     */
+    private final int[] parent;
+    /**
+     * Column of the last cell of each set in the current row.
+     */
+    private final int[] last;
+    /**
+     * Whether each set has been joined to the row below.
+     */
+    private final boolean[] joined;
+    /**
+     * Whether each set label is carried down into the next row.
+     */
+    private final boolean[] used;
+    /**
+     * Stack of set labels which are free to be given to new cells.
+     */
+    private final int[] free;
+    /**
+     * Whether each cell of the current row is open to the row above.
+     */
+    private final boolean[] openAbove;
+    /**
+     * Wall bits of the row being produced, reused for every row.
+     */
+    private final byte[] walls;
+    /**
+     * Source of randomness for the coin flips of the algorithm.
+     */
+    private final MazeRandom random;
+    /**
+     * Buffer of random bits used for the coin flips of the algorithm.
+     */
+    private long randomBits;
+    /**
+     * Number of unused bits left in randomBits.
+     */
+    private int bitsLeft;
+
+    /**
+     * Initializes the generator for a maze of the given width and height with
+     * a random seed.
+     *
+     * @param width Number of cells in each row.
+     * @param height Number of rows, zero or less for an endless maze.
+     */
+    public EllerMaze(int width, long height)
+    {
+        this(width, height, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Initializes the generator for a maze of the given width and height. Every
+     * cell of the first row starts in its own set. The same seed always
+     * produces the same rows.
+     *
+     * @param width Number of cells in each row.
+     * @param height Number of rows, zero or less for an endless maze.
+     * @param seed 64 bit seed
+     */
+    public EllerMaze(int width, long height, long seed)
+    {
+        if (width < 1)
+        {
+            throw new IllegalArgumentException("width must be at least 1: " + width);
+        }
+        this.width = width;
+        this.height = height;
+        this.row = 0;
+        this.sets = new int[width];
+        this.parent = new int[width];
+        this.last = new int[width];
+        this.joined = new boolean[width];
+        this.used = new boolean[width];
+        this.free = new int[width];
+        this.openAbove = new boolean[width];
+        this.walls = new byte[width];
+        this.random = new MazeRandom(seed);
+
+        for (int i = 0; i < width; i++)
+        {
+            sets[i] = i;
+        }
+    }
+
+    /**
+     * Returns the number of cells in each row.
+     *
+     * @return width Row width
+     * @see #width
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * Returns the number of rows produced so far.
+     *
+     * @return row Row count
+     * @see #row
+     */
+    public long getRow()
+    {
+        return row;
+    }
+
+    /**
+     * Returns true while there are rows left to produce, an endless maze
+     * always has another row.
+     *
+     * @return True if next() will produce a row.
+     */
+    @Override
+    public boolean hasNext()
+    {
+        return height <= 0 || row < height;
+    }
+
+    /**
+     * Produces the next finished row of the maze. The returned array is reused
+     * and overwritten by the following call, consumers that need to keep a row
+     * must copy it.
+     *
+     * @return Wall bits of each cell in the row.
+     */
+    @Override
+    public byte[] next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        boolean lastRow = height > 0 && row == height - 1;
+
+        for (int i = 0; i < width; i++)
+        {
+            parent[i] = i;
+            walls[i] = (byte) (openAbove[i] ? MazeGrid.ALL_WALLS & ~MazeGrid.NORTH : MazeGrid.ALL_WALLS);
+        }
+
+        //Randomly join neighbouring cells which are in different sets, the
+        //last row joins all of them so that the maze is connected.
+        for (int i = 0; i < width - 1; i++)
+        {
+            int a = find(sets[i]);
+            int b = find(sets[i + 1]);
+            if (a != b && (lastRow || coin()))
+            {
+                walls[i] &= ~MazeGrid.EAST;
+                walls[i + 1] &= ~MazeGrid.WEST;
+                parent[b] = a;
+            }
+        }
+        row++;
+        if (lastRow)
+        {
+            return walls;
+        }
+
+        for (int i = 0; i < width; i++)
+        {
+            int set = find(sets[i]);
+            sets[i] = set;
+            last[set] = i;
+            joined[set] = false;
+            used[i] = false;
+        }
+
+        //Every set must be joined to the row below at least once, the last
+        //cell of a set is forced down if none of the others were.
+        for (int i = 0; i < width; i++)
+        {
+            int set = sets[i];
+            boolean down = coin() || (last[set] == i && !joined[set]);
+            if (down)
+            {
+                walls[i] &= ~MazeGrid.SOUTH;
+                joined[set] = true;
+                used[set] = true;
+            }
+            openAbove[i] = down;
+        }
+
+        //Cells which were not joined from above start in new sets.
+        int freeCount = 0;
+        for (int label = 0; label < width; label++)
+        {
+            if (!used[label])
+            {
+                free[freeCount++] = label;
+            }
+        }
+        for (int i = 0; i < width; i++)
+        {
+            if (!openAbove[i])
+            {
+                sets[i] = free[--freeCount];
+            }
+        }
+        return walls;
+    }
+
+    /**
+     * Rows can not be removed from the stream.
+     */
+    @Override
+    public void remove()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns the root set label of a set label, halving the path on the way.
+     *
+     * @param label Set label
+     * @return Root set label
+     */
+    private int find(int label)
+    {
+        while (parent[label] != label)
+        {
+            parent[label] = parent[parent[label]];
+            label = parent[label];
+        }
+        return label;
+    }
+
+    /**
+     * Returns a random boolean, random words are drawn 64 bits at a time.
+     *
+     * @return Random coin flip.
+     */
+    private boolean coin()
+    {
+        if (bitsLeft == 0)
+        {
+            randomBits = random.nextLong();
+            bitsLeft = 64;
+        }
+        bitsLeft--;
+        boolean bit = (randomBits & 1) != 0;
+        randomBits >>>= 1;
+        return bit;
+    }
+}
@@ -1,5 +1,6 @@
 package Maze;
 
+import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
@@ -7,10 +8,14 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Rectangle;
+import java.awt.Stroke;
 import java.awt.Toolkit;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
 import javax.imageio.ImageIO;
 import javax.swing.JPanel;
 
@@ -29,6 +34,62 @@ public class GamePanel extends JPanel implements Runnable
      * Panel height of the GamePanel obtained from the parent StartGame.
      */
     private static final int panelHeight = StartGame.HEIGHT;
+    /**
+     * Number of moves of the maze generating algorithm performed per frame
+     * while the first maze of a game is carved on screen.
+     */
+    private static final int CARVE_BUDGET = 1;
+    /**
+     * Width and height in cells of the chunks of the endless world.
+     */
+    private static final int WORLD_CHUNK_SIZE = 16;
+    /**
+     * Number of chunks around the player's chunk which are generated ahead of
+     * the player in the endless world.
+     */
+    private static final int WORLD_RADIUS = 2;
+    /**
+     * Maximum number of chunks of the endless world held in memory, enough
+     * for the chunks generated ahead of the player and those just left.
+     */
+    private static final int WORLD_CHUNKS = 49;
+    /**
+     * Multiple of the bonus time awarded for reaching a chunk of the endless
+     * world farther from the start than any chunk before.
+     */
+    private static final int WORLD_RING_BONUS = 4;
+    /**
+     * Color of the stairs drawn over the maze on levels with several floors.
+     */
+    private static final Color STAIRS_COLOR = new Color(245, 220, 215);
+    /**
+     * Color of the floor number drawn on levels with several floors.
+     */
+    private static final Color FLOOR_COLOR = new Color(255, 255, 255);
+    /**
+     * x coordinates of the corners of a staircase triangle, relative to the
+     * top left corner of its cell.
+     */
+    private static final int[] STAIRS_X =
+    {
+        8, GenMaze.CELL_SIZE / 2, GenMaze.CELL_SIZE - 8
+    };
+    /**
+     * y coordinates of the corners of the triangle of stairs leading up,
+     * relative to the top left corner of its cell.
+     */
+    private static final int[] STAIRS_UP_Y =
+    {
+        GenMaze.CELL_SIZE / 2 - 2, 6, GenMaze.CELL_SIZE / 2 - 2
+    };
+    /**
+     * y coordinates of the corners of the triangle of stairs leading down,
+     * relative to the top left corner of its cell.
+     */
+    private static final int[] STAIRS_DOWN_Y =
+    {
+        GenMaze.CELL_SIZE / 2 + 2, GenMaze.CELL_SIZE - 6, GenMaze.CELL_SIZE / 2 + 2
+    };
     /**
      * Holds the difficulty level (integer) obtained in the StartMenu module.
      */
@@ -45,6 +106,33 @@ public class GamePanel extends JPanel implements Runnable
      * Maze dimension (integer) used when generating a new maze.
      */
     private int mazeDimension;
+    /**
+     * Number of the level being played, starting at 1 for the first level of
+     * a game.
+     */
+    private int levelNumber;
+    /**
+     * Seed of the game being played, which the seeds of its levels are
+     * derived from.
+     *
+     * @see #levelSeed(int)
+     */
+    private long gameSeed;
+    /**
+     * Chunk x coordinate of the endless world that the chunks were last
+     * generated around.
+     */
+    private int worldChunkX;
+    /**
+     * Chunk y coordinate of the endless world that the chunks were last
+     * generated around.
+     */
+    private int worldChunkY;
+    /**
+     * Largest number of chunks between the start and a chunk reached in the
+     * endless world.
+     */
+    private int worldRing;
     /**
      * Initial x coordinate position of the character object on the maze.
      */
@@ -148,9 +236,8 @@ public class GamePanel extends JPanel implements Runnable
     private GenMaze maze;
     /**
      * Contains a GraphicsMaze object which is generated upon initialization of
-     * GamePanel or when a new level is initialized. The object contains a set
-     * of RectCells which represent the actual maze that will be drawn to the
-     * screen.
+     * GamePanel or when a new level is initialized. The object draws the maze
+     * grid to the screen.
      *
      * @see GraphicsMaze
      */
@@ -161,6 +248,13 @@ public class GamePanel extends JPanel implements Runnable
      * @see Character
      */
     private Character player;
+    /**
+     * Bot which drives the character through the level being played while
+     * the autopilot is on.
+     *
+     * @see SolverBot
+     */
+    private SolverBot bot;
     /**
      * The main input handler for this object and the character.
      *
@@ -195,6 +289,51 @@ public class GamePanel extends JPanel implements Runnable
      *
      */
     private Thread animator;
+    /**
+     * Prepares the next level in the background while the current one is
+     * being played.
+     *
+     * @see LevelPipeline
+     */
+    private LevelPipeline pipeline = new LevelPipeline();
+    /**
+     * Level being played, whose maze and graphical maze are those of the
+     * floor being played.
+     *
+     * @see Level
+     */
+    private Level level;
+    /**
+     * Color of the route to the end point drawn in hint mode.
+     */
+    private Color hintColor = new Color(120, 200, 120);
+    /**
+     * Stroke of the route to the end point drawn in hint mode.
+     */
+    private Stroke hintStroke = new BasicStroke(3, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_MITER);
+    /**
+     * Cell number the route to the end point was last built from, -1 if it
+     * must be built again.
+     */
+    private int hintCell = -1;
+    /**
+     * Straight segments of the route to the end point which are inside the
+     * panel, four screen coordinates (x1, y1, x2, y2) per segment. The route
+     * turns at the ends of the segments.
+     */
+    private int[] hintLines = new int[64];
+    /**
+     * Number of coordinates in hintLines, four per segment.
+     */
+    private int hintLength;
+    /**
+     * Screen x coordinate of the last point added to the route.
+     */
+    private int hintX;
+    /**
+     * Screen y coordinate of the last point added to the route.
+     */
+    private int hintY;
 
     /**
      * Initializes the GamePanel object by adjusting panel dimensions,
@@ -211,8 +350,9 @@ public class GamePanel extends JPanel implements Runnable
         setBackground(Color.white);
         setPreferredSize(new Dimension(panelWidth, panelHeight));
         setDoubleBuffered(true);
-        initLevel(mazeSize);
         adjustDifficulty();
+        gameSeed = ThreadLocalRandom.current().nextLong();
+        initLevel(mazeSize);
 
         try
         {
@@ -318,6 +458,8 @@ public class GamePanel extends JPanel implements Runnable
         g.fillRect(0, 0, 600, 600);
 
         gMaze.draw(g);
+        drawStairs(g);
+        drawHint(g);
         //Check if player has reached next level, if false continue playing
         if (!nextLevel)
         {
@@ -328,6 +470,7 @@ public class GamePanel extends JPanel implements Runnable
         }
         doTime(g);
         doScore(g);
+        doExit(g);
         if (gameOver && finalScreen)
         {
             doExitBt(g);
@@ -339,7 +482,8 @@ public class GamePanel extends JPanel implements Runnable
      * Overridden Runnable method which is required when starting a thread. The
      * thread then executes the method's instructions, the main game loop
      * execution occurs in this method, mainly, where the game (character
-     * movement) is updated and time is updated.
+     * movement) is updated and time is updated. While the maze of the level
+     * is still being carved, the maze is carved a little every frame instead.
      */
     @Override
     public void run()
@@ -356,8 +500,25 @@ public class GamePanel extends JPanel implements Runnable
             {
                 gameOver();
             }
-            gameUpdate();
-            updateActualTime();
+            if (!maze.isGenerated())
+            {
+                //The maze is still being carved, the player and the clock
+                //wait until it is complete.
+                maze.step(CARVE_BUDGET);
+                startTime = System.currentTimeMillis();
+                repaint();
+            } else
+            {
+                gameUpdate();
+                if (nextLevel)
+                {
+                    //The clock waits while the next level is swapped in.
+                    startTime = System.currentTimeMillis();
+                } else
+                {
+                    updateActualTime();
+                }
+            }
             try
             {
                 Thread.sleep(10);
@@ -374,16 +535,39 @@ public class GamePanel extends JPanel implements Runnable
     /**
      * Updating portion of the game loop, the method updates the character's
      * position on the screen while gameOver is false (not over) and while
-     * finalScreen is true (End game menu).
+     * finalScreen is true (End game menu). While the autopilot is on the bot
+     * decides its move before the character moves, the End game menu is
+     * always played from the keyboard. Switching between levels and the
+     * endless world with the W key starts a new game.
      */
     private void gameUpdate()
     {
         if (!gameOver)
         {
+            if (input.isEndless() != level.isEndless())
+            {
+                adjustDifficulty();
+                gameSeed = ThreadLocalRandom.current().nextLong();
+                initLevel(2);
+            }
+            if (input.isAutopilot())
+            {
+                bot.update();
+                player.setMover(bot);
+            } else
+            {
+                player.setMover(input);
+            }
             player.move();
+            if (level.isEndless())
+            {
+                followPlayer();
+            }
+            climbStairs();
         }
         if (finalScreen)
         {
+            player.setMover(input);
             player.move();
         }
         repaint();
@@ -415,7 +599,8 @@ public class GamePanel extends JPanel implements Runnable
      * constant check for intersection is done with the character object, until
      * either the restart button or the exit button has been intersected. Upon
      * intersection the game loop is reinitialized to start the game from the
-     * beginning.
+     * beginning. The restarted game keeps its seed and replays the same mazes,
+     * which the level pipeline takes from its cache.
      *
      * @param g Graphics rendering object used to draw to the window
      * (JFrame/JPanel).
@@ -501,16 +686,7 @@ public class GamePanel extends JPanel implements Runnable
         if (incrementTime && printTime > 0)
         {
             levelTime += bonusTime;
-            for (int y = 0; y < mazeDimension; y++)
-            {
-                for (int x = 0; x < mazeDimension; x++)
-                {
-                    if (maze.getGrid(x, y).isTimePoint())
-                    {
-                        maze.getGrid(x, y).setTimePoint(false);
-                    }
-                }
-            }
+            maze.getGrid().clearTimePoints();
             incrementTime = false;
         }
         String msg = "Time: " + printTime + " ";
@@ -550,93 +726,452 @@ public class GamePanel extends JPanel implements Runnable
     /**
      * Initializes the maze, graphics maze and character's position in the maze
      * upon creation of the GamePanel object. The maze is also centered based on
-     * the window's dimensions.
+     * the window's dimensions. The maze of the first level is carved on screen
+     * by the game loop. The following level starts being prepared in the
+     * background straight away. In endless mode the game is played in a new
+     * endless world instead, which has no levels.
      */
     private void initLevel(int mazeSize)
     {
-        mazeDimension = mazeSize;
-
-        screenX = (StartGame.WIDTH - mazeDimension * 40) / 2;
-        screenY = (StartGame.HEIGHT - mazeDimension * 40) / 2;
         totalScore = 0;
-        maze = new GenMaze(mazeDimension, screenX, screenY);
-        pPos = initializePlayer();
-        initX = pPos[0];
-        initY = pPos[1];
-        gMaze = new GraphicsMaze(maze);
-        player = new Character(initX, initY, gMaze);
-        player.setMover(input);
-        columnCounter = maze.size();
+        levelNumber = 1;
         rowCounter = 1;
+        if (level != null && level.isEndless())
+        {
+            level.getWorld().close();
+        }
+        if (input.isEndless())
+        {
+            MazeWorld world = new MazeWorld(gameSeed, WORLD_CHUNK_SIZE, WORLD_CHUNKS);
+            useLevel(new Level(world));
+            worldChunkX = Integer.MIN_VALUE;
+            worldChunkY = Integer.MIN_VALUE;
+            worldRing = 0;
+            return;
+        }
+        useLevel(new Level(mazeSize, true, levelSeed(levelNumber)));
+        pipeline.prepare(nextDimension(mazeSize), nextFloors(levelNumber + 1), targetDifficulty(levelNumber + 1),
+                levelSeed(levelNumber + 1));
 
     }
 
     /**
      * The method is called whenever the character reaches an endpoint cell.
      * When called, the method determines the score for completing the level
-     * (calculated based on maze size and difficulty), then checks if the maze's
-     * dimensions are below 10 by 10. If the dimensions are below this, then the
-     * maze size is incremented by one level; once the maximum (N= 10) maze size
-     * is reached then doNextLevel() will continue to generate 10 by 10 sized
-     * mazes. The method essentially reinitializes the maze, graphics maze and
-     * character position to a new maze. The new maze size is also used to
-     * determine the center position of the maze relative to the window's
-     * dimensions.
+     * (calculated based on maze size and difficulty) and swaps in the level
+     * that the LevelPipeline prepared in the background, then starts preparing
+     * the level after it. If the prepared level is not ready yet nothing
+     * happens and the swap is tried again on the next frame, so the level
+     * transition never waits for a maze to be generated, and the level clock
+     * is stopped meanwhile. If the background build failed the level is
+     * built here instead, so the game always goes on.
+     *
+     * @see #nextDimension(int)
+     * @see #nextFloors(int)
+     * @see #targetDifficulty(int)
      */
     private void doNextLevel()
     {
-        totalScore += mazeDimension * difficulty * 10;
-
-        //Create a new maze
-        if (mazeDimension < 10)
+        Level next;
+        try
         {
-            mazeDimension += 1;
-            screenX = (StartGame.WIDTH - mazeDimension * 40) / 2;
-            screenY = (StartGame.HEIGHT - mazeDimension * 40) / 2;
-            maze = new GenMaze(mazeDimension, screenX, screenY);
-        } else
+            next = pipeline.poll();
+        } catch (IllegalStateException e)
         {
-            mazeDimension = 10;
-            screenX = (StartGame.WIDTH - mazeDimension * 40) / 2;
-            screenY = (StartGame.HEIGHT - mazeDimension * 40) / 2;
-            maze = new GenMaze(mazeDimension, screenX, screenY);
+            Logger.getLogger(GamePanel.class.getName()).log(java.util.logging.Level.WARNING, null, e);
+            next = pipeline.build(nextDimension(mazeDimension), nextFloors(levelNumber + 1),
+                    targetDifficulty(levelNumber + 1), levelSeed(levelNumber + 1));
         }
+        if (next == null)
+        {
+            return;
+        }
+        totalScore += mazeDimension * difficulty * 10 * level.getFloors();
+
+        useLevel(next);
+        levelNumber++;
+        pipeline.prepare(nextDimension(mazeDimension), nextFloors(levelNumber + 1), targetDifficulty(levelNumber + 1),
+                levelSeed(levelNumber + 1));
+        incrementTime = false;
+        nextLevel = false;
+
+    }
+
+    /**
+     * Returns the maze dimensions of the level following a level of the given
+     * dimensions. Mazes grow by one until the maximum (N= 10) maze size is
+     * reached, after that 10 by 10 sized mazes continue to be generated. The
+     * endless world has no such limit.
+     *
+     * @param mazeSize Maze dimensions of the current level.
+     * @return Maze dimensions of the next level.
+     */
+    private static int nextDimension(int mazeSize)
+    {
+        return Math.min(mazeSize + 1, 10);
+    }
+
+    /**
+     * Returns the seed of a level of the game being played. The seed only
+     * depends on the seed of the game and the number of the level, so a
+     * restarted game is played through the same mazes.
+     *
+     * @param level Number of the level, starting at 1.
+     * @return 64 bit seed of the level.
+     */
+    private long levelSeed(int level)
+    {
+        return new MazeRandom(gameSeed + level).nextLong();
+    }
+
+    /**
+     * Returns the number of floors of a level. Once the mazes have stopped
+     * growing, levels get a second floor and then a floor more every four
+     * levels, up to four floors.
+     *
+     * @param level Number of the level, starting at 1.
+     * @return Number of floors of the level.
+     */
+    private static int nextFloors(int level)
+    {
+        return level < 12 ? 1 : Math.min(2 + (level - 12) / 4, 4);
+    }
+
+    /**
+     * Returns the difficulty that the maze of a level should have. The
+     * difficulty starts around that of an average maze and rises with every
+     * level, so levels keep getting harder once the mazes stop growing, and
+     * a harder difficulty picked in the StartMenu adds to it.
+     *
+     * @param level Number of the level, starting at 1.
+     * @return Target difficulty of the level's maze.
+     * @see LevelSelector#difficulty(MazeGrid)
+     */
+    private static double targetDifficulty(int level)
+    {
+        return Math.min(0.45 + 0.03 * level + 0.05 * difficulty, 0.9);
+    }
+
+    /**
+     * Makes a built level the current level. The maze, graphics maze and
+     * character position are reinitialized to the level's maze, which is
+     * already centered relative to the window's dimensions.
+     *
+     * @param level Level to play.
+     */
+    private void useLevel(Level level)
+    {
+        this.level = level;
+        mazeDimension = level.getDimension();
+        screenX = level.getScreenX();
+        screenY = level.getScreenY();
+        maze = level.getMaze();
+        gMaze = level.getGraphics();
         columnCounter = maze.size();
         pPos = initializePlayer();
         initX = pPos[0];
         initY = pPos[1];
-        gMaze = new GraphicsMaze(maze);
-        player = new Character(initX, initY, gMaze);
+        player = new Character(initX, initY, maze);
         player.setMover(input);
-        incrementTime = false;
-        nextLevel = false;
+        bot = new SolverBot(player, level);
+        hintCell = -1;
+    }
 
+    /**
+     * Keeps the character at the centre of the screen in the endless world by
+     * scrolling the level by the distance the character just moved. Whenever
+     * the character enters another chunk the chunks around it start being
+     * generated in the background, so the window never waits for one, and
+     * reaching a chunk farther from the start than any before scores like a
+     * level the size of a chunk and awards bonus time.
+     *
+     * @see Level#scroll(int, int)
+     * @see MazeWorld#prefetch(int, int, int)
+     */
+    private void followPlayer()
+    {
+        int dx = player.getxPos() - initX;
+        int dy = player.getyPos() - initY;
+        if (dx != 0 || dy != 0)
+        {
+            level.scroll(dx, dy);
+            player.setPosition(initX, initY);
+        }
+        int cell = playerCell();
+        MazeWorld world = level.getWorld();
+        int wx = level.getWorldX(maze.getGrid().getX(cell));
+        int wy = level.getWorldY(maze.getGrid().getY(cell));
+        int cx = world.chunkOf(wx);
+        int cy = world.chunkOf(wy);
+        if (cx == worldChunkX && cy == worldChunkY)
+        {
+            return;
+        }
+        worldChunkX = cx;
+        worldChunkY = cy;
+        world.prefetch(wx, wy, WORLD_RADIUS);
+        int ring = Math.max(Math.abs(cx), Math.abs(cy));
+        if (ring > worldRing)
+        {
+            worldRing = ring;
+            totalScore += WORLD_CHUNK_SIZE * difficulty * 10;
+            levelTime += bonusTime * WORLD_RING_BONUS;
+        }
     }
 
     /**
-     * Upon generation of a new maze (GenMaze/Array of Cell objects), the
-     * character's position relative to the maze must be reinitialized. Calling
-     * this method returns an array of integers (size 2) that contains within it
-     * the starting x position coordinate and starting y position coordinate.
+     * Takes the staircase the player asked for with the page up or page down
+     * key, or the bot while the autopilot is on, if the cell under the centre
+     * of the character has one leading that way. The floor's maze and
+     * graphical maze were built with the level, so changing floor only swaps
+     * them in.
      *
+     * @see Level#setFloor(int)
      */
-    private int[] initializePlayer()
+    private void climbStairs()
     {
-        int startX, startY;
-        startX = 0;
-        startY = 0;
+        int direction = input.isAutopilot() ? bot.takeStairs() : input.takeStairs();
+        if (direction == 0 || level.getFloors() == 1)
+        {
+            return;
+        }
+        int cell = playerCell();
+        if (cell < 0)
+        {
+            return;
+        }
+        int x = maze.getGrid().getX(cell);
+        int y = maze.getGrid().getY(cell);
+        int wanted = direction > 0 ? MazeVolume.STAIRS_UP : MazeVolume.STAIRS_DOWN;
+        if ((level.stairs(x, y) & wanted) != 0)
+        {
+            level.setFloor(level.getFloor() + direction);
+            maze = level.getMaze();
+            gMaze = level.getGraphics();
+            player.setMaze(maze);
+            hintCell = -1;
+        }
+    }
 
-        for (int j = 0; j < maze.getGridDimensions(); j++)
+    /**
+     * Draws the stairs of the floor being played over the maze, a triangle
+     * pointing up for stairs leading up and one pointing down for stairs
+     * leading down, and the number of the floor. Nothing is drawn on levels
+     * with a single floor. The triangles are drawn from constant corners
+     * moved to every cell, so a frame allocates nothing.
+     *
+     * @param g Graphics rendering object used to draw to the window
+     * (JFrame/JPanel).
+     */
+    private void drawStairs(Graphics g)
+    {
+        if (level.getFloors() == 1)
+        {
+            return;
+        }
+        MazeGrid grid = maze.getGrid();
+        g.setColor(STAIRS_COLOR);
+        for (int j = 1; j <= mazeDimension; j++)
         {
-            for (int i = 0; i < maze.getGridDimensions(); i++)
+            for (int i = 1; i <= mazeDimension; i++)
             {
-                if (maze.getGrid(i, j).isStartPoint())
+                int stairs = level.stairs(i, j);
+                if (stairs == 0 || !grid.isVisible(i, j))
                 {
-                    startX = maze.getGrid(i, j).getCoordX();
-                    startY = maze.getGrid(i, j).getCoordY();
+                    continue;
                 }
+                int x = maze.getCoordX(i);
+                int y = maze.getCoordY(j);
+                g.translate(x, y);
+                if ((stairs & MazeVolume.STAIRS_UP) != 0)
+                {
+                    g.fillPolygon(STAIRS_X, STAIRS_UP_Y, 3);
+                }
+                if ((stairs & MazeVolume.STAIRS_DOWN) != 0)
+                {
+                    g.fillPolygon(STAIRS_X, STAIRS_DOWN_Y, 3);
+                }
+                g.translate(-x, -y);
             }
         }
+        g.setColor(FLOOR_COLOR);
+        g.setFont(msgsFont);
+        g.drawString("Floor: " + (level.getFloor() + 1) + "/" + level.getFloors(), 230, 540);
+    }
+
+    /**
+     * Returns the cell number of the cell under the centre of the character.
+     *
+     * @return Cell number, -1 if the centre is outside of the maze.
+     */
+    private int playerCell()
+    {
+        Rectangle r = player.getBounds();
+        int x = (r.x + r.width / 2 - maze.getCoordX(1)) / GenMaze.CELL_SIZE + 1;
+        int y = (r.y + r.height / 2 - maze.getCoordY(1)) / GenMaze.CELL_SIZE + 1;
+        if (x < 1 || y < 1 || x > mazeDimension || y > mazeDimension)
+        {
+            return -1;
+        }
+        return maze.getGrid().index(x, y);
+    }
+
+    /**
+     * Draws the route from the cell under the centre of the character to the
+     * end point while hint mode is on. The route follows the parent pointers
+     * of the level's tree index, which is built once per level, and is only
+     * rebuilt when the character moves to another cell, so a frame only draws
+     * the straight segments of the route which are inside the panel. Levels
+     * with several floors have no hint.
+     *
+     * @param g Graphics rendering object used to draw to the window
+     * (JFrame/JPanel).
+     * @see Level#getTree()
+     */
+    private void drawHint(Graphics g)
+    {
+        if (!input.isHint() || gameOver)
+        {
+            return;
+        }
+        int cell = playerCell();
+        if (cell != hintCell)
+        {
+            buildHint(cell);
+        }
+        if (hintLength == 0)
+        {
+            return;
+        }
+        Graphics2D g2d = (Graphics2D) g;
+        Stroke stroke = g2d.getStroke();
+        g2d.setColor(hintColor);
+        g2d.setStroke(hintStroke);
+        for (int i = 0; i < hintLength; i += 4)
+        {
+            g2d.drawLine(hintLines[i], hintLines[i + 1], hintLines[i + 2], hintLines[i + 3]);
+        }
+        g2d.setStroke(stroke);
+    }
+
+    /**
+     * Builds the segments of the route from a cell to the end point, which
+     * join the centres of the cells where the route starts, turns and ends.
+     * Nothing is built, and the route is tried again on the next frame, while
+     * the maze is still being carved.
+     *
+     * @param cell Cell number the route starts at, -1 for no route.
+     */
+    private void buildHint(int cell)
+    {
+        hintLength = 0;
+        MazeTree tree = level.getTree();
+        if (tree == null)
+        {
+            return;
+        }
+        hintCell = cell;
+        if (cell < 0 || tree.depth(cell) == MazeTree.UNREACHABLE)
+        {
+            return;
+        }
+        MazeGrid grid = maze.getGrid();
+        int half = GenMaze.CELL_SIZE / 2;
+        int step = 0;
+        hintX = maze.getCoordX(grid.getX(cell)) + half;
+        hintY = maze.getCoordY(grid.getY(cell)) + half;
+        while (cell != tree.getRoot())
+        {
+            int next = tree.parent(cell);
+            //A point is only needed where the direction changes.
+            if (next - cell != step && step != 0)
+            {
+                addHintPoint(grid, cell, half);
+            }
+            step = next - cell;
+            cell = next;
+        }
+        addHintPoint(grid, cell, half);
+    }
+
+    /**
+     * Extends the route to the centre of a cell with a straight segment from
+     * the last point, which is kept only if it is inside the panel. Mazes
+     * larger than the panel can have routes of thousands of segments, of
+     * which only the visible ones are drawn.
+     *
+     * @param grid Grid of the maze being played.
+     * @param cell Cell number
+     * @param half Half the size of a cell in pixels.
+     */
+    private void addHintPoint(MazeGrid grid, int cell, int half)
+    {
+        int x = maze.getCoordX(grid.getX(cell)) + half;
+        int y = maze.getCoordY(grid.getY(cell)) + half;
+        //Segments are horizontal or vertical, their bounds are their ends.
+        if (Math.max(x, hintX) >= 0 && Math.min(x, hintX) < panelWidth
+                && Math.max(y, hintY) >= 0 && Math.min(y, hintY) < panelHeight)
+        {
+            if (hintLength == hintLines.length)
+            {
+                hintLines = Arrays.copyOf(hintLines, hintLength * 2);
+            }
+            hintLines[hintLength++] = hintX;
+            hintLines[hintLength++] = hintY;
+            hintLines[hintLength++] = x;
+            hintLines[hintLength++] = y;
+        }
+        hintX = x;
+        hintY = y;
+    }
+
+    /**
+     * Draws the number of steps left from the cell under the centre of the
+     * character to the end point. The distance is read from the level's
+     * distance field, computed once per level, so drawing it costs a single
+     * array read. Nothing is drawn while the maze is being carved or once
+     * the game is over.
+     *
+     * @param g Graphics rendering object used to draw to the window
+     * (JFrame/JPanel).
+     * @see Level#stepsToExit(int, int)
+     */
+    private void doExit(Graphics g)
+    {
+        if (gameOver)
+        {
+            return;
+        }
+        int cell = playerCell();
+        if (cell < 0)
+        {
+            return;
+        }
+        int steps = level.stepsToExit(maze.getGrid().getX(cell), maze.getGrid().getY(cell));
+        if (steps == DistanceField.UNREACHABLE)
+        {
+            return;
+        }
+        g.setColor(new Color(255, 255, 255));
+        g.setFont(msgsFont);
+        g.drawString("Exit: " + steps, 230, 565);
+    }
+
+    /**
+     * Upon generation of a new maze (GenMaze/MazeGrid), the
+     * character's position relative to the maze must be reinitialized. Calling
+     * this method returns an array of integers (size 2) that contains within it
+     * the starting x position coordinate and starting y position coordinate.
+     *
+     */
+    private int[] initializePlayer()
+    {
+        int startX, startY;
+        MazeGrid grid = maze.getGrid();
+        int start = grid.getStartPoint();
+
+        startX = maze.getCoordX(grid.getX(start));
+        startY = maze.getCoordY(grid.getY(start));
         int[] pos =
         {
             startX + 10, startY + 10
@@ -1,25 +1,31 @@
 package Maze;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Recursively generates a maze by "destroying" or hiding walls in each Cell
- * object in a two dimensional array. The generated maze is only "conceptual" in
- * that it does not have any graphical components. The start point, end point
- * and time point cells can be placed at any location since the method of
- * generating is based on the Depth First Search which ensures that there is
+ * Generates a maze by "destroying" or hiding walls between the cells of a
+ * MazeGrid. The generated maze is only "conceptual" in that it does not have
+ * any graphical components. The start point, end point and time point cells
+ * can be placed at any location since every MazeGenerator produces a perfect
+ * maze (by default with the Depth First Search) which ensures that there is
  * always one unique path between two points.
+ *
+ * @see MazeGrid
+ * @see MazeGenerator
  */
 public class GenMaze
 {
 
     /**
-     * A two dimensional array that represents a grid, where each block in the
-     * grid is a cell.
+     * Width and height of a single cell on the graphical maze in pixels.
      */
-    private Cell grid[][];
+    public static final int CELL_SIZE = 40;
     /**
-     * The two dimensional array's grid dimensions (N by N).
+     * Compact grid of cells (walls and flags) that represents the maze.
+     */
+    private MazeGrid grid;
+    /**
+     * The grid dimensions (N by N).
      */
     private int gridDimensions;
     /**
@@ -30,125 +36,238 @@ public class GenMaze
      * Panel height used to determine cell positions.
      */
     private int pH;
+    /**
+     * Seed that the maze was generated from.
+     */
+    private long seed;
+    /**
+     * Stepper that is still carving the maze, null once the maze is complete.
+     */
+    private volatile MazeStepper stepper;
 
     /**
-     * Initializes a grid (2D Array) of size dim+2 and calls methods to
-     * initialize each cell object in the array, a pair of random numbers are
-     * generated to produce a random timePoint cell and the startPoint cell is
-     * initialized as well (startPoint at 1,1). Using this startPoint, the maze
-     * is randomly generated and the endPoint is set to the N by Nth cell.
+     * Initializes a grid of size dim+2 and generates a maze using the Depth
+     * First Search.
      *
      * @param dim Maze dimensions
      * @param pWidth Panel width
      * @param pHeight Panel height
+     * @see #GenMaze(int, int, int, MazeGenerator)
      */
     public GenMaze(int dim, int pWidth, int pHeight)
+    {
+        this(dim, pWidth, pHeight, new DepthFirstGenerator());
+    }
+
+    /**
+     * Initializes a grid of size dim+2, a pair of random numbers are generated
+     * to produce a random timePoint cell and the startPoint cell is initialized
+     * as well (startPoint at 1,1). Using this startPoint, the maze is randomly
+     * generated by the given generator and the endPoint is set to the N by Nth
+     * cell.
+     *
+     * @param dim Maze dimensions
+     * @param pWidth Panel width
+     * @param pHeight Panel height
+     * @param generator Algorithm used to carve the maze.
+     * @see #GenMaze(int, int, int, MazeGenerator, long)
+     */
+    public GenMaze(int dim, int pWidth, int pHeight, MazeGenerator generator)
+    {
+        this(dim, pWidth, pHeight, generator, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Initializes a grid of size dim+2, a pair of random numbers are generated
+     * to produce a random timePoint cell and the startPoint cell is initialized
+     * as well (startPoint at 1,1). Using this startPoint, the maze is randomly
+     * generated by the given generator and the endPoint is set to the N by Nth
+     * cell. All random numbers come from a single generator seeded with seed,
+     * so the same seed, dimensions and generator always produce the same maze
+     * (including the time point).
+     *
+     * @param dim Maze dimensions
+     * @param pWidth Panel width
+     * @param pHeight Panel height
+     * @param generator Algorithm used to carve the maze.
+     * @param seed 64 bit seed of the maze.
+     * @see MazeGenerator
+     * @see MazeRandom
+     */
+    public GenMaze(int dim, int pWidth, int pHeight, MazeGenerator generator, long seed)
+    {
+        this(dim, pWidth, pHeight, generator, seed, false);
+    }
+
+    /**
+     * Initializes the maze exactly like GenMaze(int, int, int, MazeGenerator,
+     * long) but, if incremental is true and the generator supports it, leaves
+     * the maze uncarved so that it can be carved a batch at a time with
+     * step(). The completed maze is identical to the one generated in a
+     * single call from the same seed.
+     *
+     * @param dim Maze dimensions
+     * @param pWidth Panel width
+     * @param pHeight Panel height
+     * @param generator Algorithm used to carve the maze.
+     * @param seed 64 bit seed of the maze.
+     * @param incremental True to carve the maze with step().
+     * @see #step(int)
+     * @see IncrementalGenerator
+     */
+    public GenMaze(int dim, int pWidth, int pHeight, MazeGenerator generator, long seed, boolean incremental)
     {
         this.gridDimensions = dim;
         this.pW = pWidth;
         this.pH = pHeight;
-        initializeGrid();
+        this.seed = seed;
+        MazeRandom random = new MazeRandom(seed);
+        //The grid is +2 larger so that the border of the actual grid behaves
+        //as a visited region for the maze generating algorithm.
+        this.grid = new MazeGrid(dim);
 
-        //generate random start point
+        //generate random time point inside the maze (not on the border)
         int tpX, tpY;
-        tpX = generateNum(dim);
-        tpY = generateNum(dim);
+        tpX = 1 + random.nextInt(dim);
+        tpY = 1 + random.nextInt(dim);
 
-        //Set the flag startPoint to true for the cell at spX, spY.
-        grid[tpX][tpY].setTimePoint(true);
-        grid[1][1].setStartPoint(true);
-        generateMaze(1, 1);
+        grid.setTimePoint(tpX, tpY, true);
+        grid.setStartPoint(1, 1);
+        if (incremental && generator instanceof IncrementalGenerator)
+        {
+            stepper = ((IncrementalGenerator) generator).stepper(grid, grid.getStartPoint(), random);
+        } else
+        {
+            generator.generate(grid, grid.getStartPoint(), random);
+        }
 
         //Set end point
-        grid[gridDimensions][gridDimensions].setEndPoint(true);
+        grid.setEndPoint(gridDimensions, gridDimensions);
     }
 
     /**
-     * Initializes the two dimensional array of cell objects by determine their
-     * physical x and y coordinates, the visibility, row and column numbers as
-     * well as the cell numbers that each cell holds. The method initializes the
-     * two dimensional array in a manner that ensures that the grid is N+2
-     * larger than the required grid. This ensures that there is a border of
-     * cells 1 cell thick around the actual grid (N by N). These border cells
-     * are initialized to visited and invisible, ensuring that the maze
-     * generating algorithm does not accidentally cross into this region.
+     * Initializes a maze from a grid which has already been generated, for
+     * example one obtained from a MazeCache. The grid is used as is, callers
+     * which share the grid must pass a copy since playing a maze modifies it.
+     *
+     * @param grid Generated grid.
+     * @param pWidth Panel width
+     * @param pHeight Panel height
+     * @param seed 64 bit seed the grid was generated from.
+     * @see MazeGrid#copy()
      */
-    private void initializeGrid()
+    public GenMaze(MazeGrid grid, int pWidth, int pHeight, long seed)
     {
-        //Make grid +2 larger so that the border of the actual grid behaves as a
-        //visited region for random starting points
-        //Set border cells to true; x axis borders first, then y axis
-
-        int count = 0;
-        int dx = 0;
-        int dy = 0;
-        int posX, posY;
-        posX = pW;
-        posY = pH;
-
-        this.grid = new Cell[this.gridDimensions + 2][this.gridDimensions + 2];
+        this.grid = grid;
+        this.gridDimensions = grid.getDimensions();
+        this.pW = pWidth;
+        this.pH = pHeight;
+        this.seed = seed;
+    }
 
-        for (int y = 0; y < this.gridDimensions + 2; y++)
+    /**
+     * Initializes a maze in the shape of a mask. Only the largest connected
+     * region of the mask is used, every cell outside of it is blocked and the
+     * maze is carved through the rest by the Depth First Search, which never
+     * enters a blocked cell since blocked cells are visited. The start point
+     * is the first cell of the shape (lowest column, then lowest row), the
+     * end point the last one, and the time point a random cell of the shape.
+     * If incremental is true the maze is left uncarved, to be carved with
+     * step().
+     *
+     * @param mask Shape of the maze, its dimensions are the maze dimensions.
+     * @param pWidth Panel width
+     * @param pHeight Panel height
+     * @param seed 64 bit seed of the maze.
+     * @param incremental True to carve the maze with step().
+     * @see MazeMask
+     */
+    public GenMaze(MazeMask mask, int pWidth, int pHeight, long seed, boolean incremental)
+    {
+        int dim = mask.getDimensions();
+        this.gridDimensions = dim;
+        this.pW = pWidth;
+        this.pH = pHeight;
+        this.seed = seed;
+        MazeRandom random = new MazeRandom(seed);
+        MazeMask shape = mask.largestRegion();
+        if (shape.first() < 0)
         {
-            for (int x = 0; x < this.gridDimensions + 2; x++)
-            {
-                this.grid[x][y] = new Cell(count);
-                this.grid[x][y].setPositionX(x);
-                this.grid[x][y].setPositionY(y);
-                count++;
-            }
+            throw new IllegalArgumentException("the mask has no cells");
         }
+        this.grid = new MazeGrid(dim);
+        shape.apply(grid);
 
-        count = 0;
-        //Set the cell numbers.
-        for (int y = 0; y < this.gridDimensions + 2; y++)
+        int tpX, tpY;
+        do
         {
-            for (int x = 0; x < this.gridDimensions + 2; x++)
-            {
-                this.grid[x][y] = new Cell(count);
-                this.grid[x][y].setPositionX(x);
-                this.grid[x][y].setPositionY(y);
-                count++;
-            }
-        }
+            tpX = 1 + random.nextInt(dim);
+            tpY = 1 + random.nextInt(dim);
+        } while (!shape.contains(tpX, tpY));
+        grid.setTimePoint(tpX, tpY, true);
 
-        //Initialize and calculate the actual (graphics) coordinates.
-        for (int y = 1; y <= this.gridDimensions; y++)
+        int first = grid.index(shape.first() % dim + 1, shape.first() / dim + 1);
+        int last = grid.index(shape.last() % dim + 1, shape.last() / dim + 1);
+        grid.setStartPoint(grid.getX(first), grid.getY(first));
+        DepthFirstGenerator generator = new DepthFirstGenerator();
+        if (incremental)
+        {
+            stepper = generator.stepper(grid, first, random);
+        } else
         {
-            for (int x = 1; x <= this.gridDimensions; x++)
-            {
-                this.grid[x][y].setCoordX(pW + dx);
-                this.grid[x][y].setCoordY(pH + dy);
-                dx += 40;
-            }
-            dx = 0;
-            dy += 40;
+            generator.generate(grid, first, random);
         }
-        for (int i = 0; i < this.gridDimensions + 2; i++)
+        grid.setEndPoint(grid.getX(last), grid.getY(last));
+    }
+
+    /**
+     * Carves at most budget units of work of a maze that is being generated
+     * incrementally, the grid is marked as changed so that the newly carved
+     * walls get drawn.
+     *
+     * @param budget Maximum number of units of work, must be positive.
+     * @return True if the maze is complete.
+     * @see MazeStepper#step(int)
+     */
+    public boolean step(int budget)
+    {
+        if (stepper == null)
         {
-            //All border cells have been visited
-            this.grid[i][0].setVisitedFlag(true);
-            this.grid[i][this.gridDimensions + 1].setVisitedFlag(true);
-            //Set the visibility to false, these cells don't actually exist.
-            this.grid[i][0].setVisibility(false);
-            this.grid[i][this.gridDimensions + 1].setVisibility(false);
-            //Set walls/cells as BORDERS
-            this.grid[i][0].setBorder(true);
-            this.grid[i][this.gridDimensions + 1].setBorder(true);
+            return true;
         }
-        for (int j = 0; j < this.gridDimensions + 2; j++)
+        if (stepper.step(budget))
         {
-            //All border cells have been visited
-            this.grid[0][j].setVisitedFlag(true);
-            this.grid[this.gridDimensions + 1][j].setVisitedFlag(true);
-            //Set the visibility to false, these cells don't actually exist.
-            this.grid[0][j].setVisibility(false);
-            this.grid[this.gridDimensions + 1][j].setVisibility(false);
-            //Set walls/cells as BORDERS
-            this.grid[0][j].setBorder(true);
-            this.grid[this.gridDimensions + 1][j].setBorder(true);
+            stepper = null;
         }
+        grid.markChanged();
+        return stepper == null;
+    }
 
+    /**
+     * Returns a boolean that represents whether the maze has been completely
+     * carved.
+     *
+     * @return True if the maze is complete.
+     */
+    public boolean isGenerated()
+    {
+        return stepper == null;
+    }
+
+    /**
+     * Writes the walls of this maze into a memory-mapped maze, with cell
+     * (1, 1) of this maze going to the cell located at row x and column y.
+     * Larger mazes can be assembled from several GenMaze this way without
+     * ever holding the whole maze in the heap.
+     *
+     * @param store Memory-mapped maze to write into.
+     * @param x Row of this maze's first cell in the store.
+     * @param y Column of this maze's first cell in the store.
+     * @see MappedMaze#write(MazeGrid, int, int, int, int)
+     */
+    public void writeTo(MappedMaze store, int x, int y)
+    {
+        store.write(grid, gridDimensions, gridDimensions, x, y);
     }
 
     /**
@@ -160,117 +279,88 @@ public class GenMaze
      */
     public void hideCell(int x, int y)
     {
-        this.grid[x][y].setVisibility(false);
+        this.grid.setVisibility(x, y, false);
     }
 
     /**
-     * Returns the full size of the two dimensional grid (N+2).
+     * Returns the full size of the grid (N+2).
      *
-     * @return grid.length Length of the overall grid (2D Array)
-     * @see #grid
+     * @return Length of the overall grid
+     * @see MazeGrid#size()
      */
     public int size()
     {
         //Returns the full (visible and invisible) grid size.
-        return this.grid.length;
+        return this.grid.size();
     }
 
     /**
-     * Returns the cell object located at row x and column y.
+     * Returns the grid of cells that represents the maze.
      *
-     * @param x Row
-     * @param y Column
-     * @return grid[x][y] Two dimensional grid containing cell objects.
+     * @return grid Compact grid containing walls and flags of every cell.
      * @see #grid
      */
-    public Cell getGrid(int x, int y)
+    public MazeGrid getGrid()
     {
-        return grid[x][y];
+        return grid;
     }
 
-    //returns the visible maze grid size (i.e. N by N maze where N = gridDimensions)
     /**
-     * Returns only the visible portion of the grid size (N), which is
-     * essentially the maze dimensions.
+     * Moves the maze on the screen, row 1 and column 1 being drawn at the
+     * given coordinates from then on.
      *
-     * @return gridDimensions Maze dimension integer (N)
-     * @see #gridDimensions
+     * @param pWidth x coordinate of row 1.
+     * @param pHeight y coordinate of column 1.
      */
-    public int getGridDimensions()
+    public void setOrigin(int pWidth, int pHeight)
     {
-        return gridDimensions;
+        this.pW = pWidth;
+        this.pH = pHeight;
     }
 
     /**
-     * Returns a random integer number based on the maze size argument.
+     * Returns the physical x coordinate of row x on the graphical maze.
      *
-     * @param n Maze size obtained from GamePanel.
-     * @return random int
+     * @param x Row
+     * @return x coordinate value.
      */
-    public static int generateNum(int n)
+    public int getCoordX(int x)
     {
-        return (int) (new Random().nextInt(n));
+        return pW + (x - 1) * CELL_SIZE;
     }
 
     /**
-     * Generates a maze by starting at the unvisited cell located at row x and
-     * column y. The algorithm has four possible directions to travel when all
-     * walls are existing, it has a 25% chance of picking either of the
-     * directions randomly, once it has picked a direction and ensured it is
-     * unvisited (based on random number generator and visited flag), it makes a
-     * recursive call to the cell next to it. In order to traverse to an
-     * unvisited cell, one of the boolean flags representing the existence of a
-     * wall must be set to false, thus, destroying that specific wall. Once
-     * recursion reaches its deepest point, all cells are visited and the
-     * recursive calls terminate and recurse back out.
+     * Returns the physical y coordinate of column y on the graphical maze.
      *
-     * @param x Row
      * @param y Column
+     * @return y coordinate value.
      */
-    private void generateMaze(int x, int y)
+    public int getCoordY(int y)
     {
-        //set the initial cell visited flag to visited (true).
-        grid[x][y].setVisitedFlag(true);
-
-        //while there are unvisited cell blocks, randomly pick a cell and visit it, then recurse.
-        while (!grid[x][y + 1].isVisitedFlag() || !grid[x + 1][y].isVisitedFlag() || !grid[x][y - 1].isVisitedFlag() || !grid[x - 1][y].isVisitedFlag())
-        {
-            while (true)
-            {
-                double randomize = Math.random() * (1);
-                if (randomize < 0.25 && !grid[x][y + 1].isVisitedFlag())
-                {
-                    grid[x][y].setSouthWall(false);
-                    grid[x][y + 1].setNorthWall(false);
-                    generateMaze(x, y + 1);
-                    break;
-
-                } else if (randomize >= 0.25 && randomize < 0.50 && !grid[x + 1][y].isVisitedFlag())
-                {
-                    grid[x][y].setEastWall(false);
-                    grid[x + 1][y].setWestWall(false);
-
-                    generateMaze(x + 1, y);
-                    break;
-
-                } else if (randomize >= 0.5 && randomize < 0.75 && !grid[x][y - 1].isVisitedFlag())
-                {
-                    grid[x][y].setNorthWall(false);
-                    grid[x][y - 1].setSouthWall(false);
-                    generateMaze(x, y - 1);
-                    break;
-
-                } else if (randomize >= 0.75 && randomize < 1.00 && !grid[x - 1][y].isVisitedFlag())
-                {
-                    grid[x][y].setWestWall(false);
-                    grid[x - 1][y].setEastWall(false);
-                    generateMaze(x - 1, y);
-
-                    break;
+        return pH + (y - 1) * CELL_SIZE;
+    }
 
-                }
-            }
-        }
+    //returns the visible maze grid size (i.e. N by N maze where N = gridDimensions)
+    /**
+     * Returns only the visible portion of the grid size (N), which is
+     * essentially the maze dimensions.
+     *
+     * @return gridDimensions Maze dimension integer (N)
+     * @see #gridDimensions
+     */
+    public int getGridDimensions()
+    {
+        return gridDimensions;
+    }
 
+    /**
+     * Returns the seed that the maze was generated from.
+     *
+     * @return seed 64 bit seed of the maze.
+     * @see #seed
+     */
+    public long getSeed()
+    {
+        return seed;
     }
 }
@@ -0,0 +1,288 @@
+package Maze;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Differential test harness for maze generators, so that generation can be
+ * optimized aggressively without breaking the mazes. A candidate generator
+ * carves a maze for every combination of a set of sizes and a number of
+ * seeds, concurrently on the shared pool, and every maze is checked twice:
+ *
+ * - by MazeVerifier, the maze must be perfect;
+ * - against a reference generator, if one is given, the maze must be the one
+ * the reference carves from the same seed. Generators with the same name
+ * must produce the same maze from the same seed (mazes are cached and
+ * reproduced by name and seed), so an optimized version of an algorithm is
+ * checked against the original, and a generator against itself checks that
+ * it is deterministic.
+ *
+ * The candidate can also carve incrementally with GenMaze.step(), which
+ * must give the same maze as the one-shot generation. A generator which
+ * throws fails on that maze instead of stopping the run.
+ *
+ * Run from the command line it checks every MazeGenerator against itself,
+ * and the incremental generators in incremental mode against their one-shot
+ * generation.
+ *
+ * @see MazeVerifier
+ */
+public class GeneratorHarness
+{
+
+    /**
+     * Maze sizes checked when no sizes are given on the command line, small
+     * sizes and sizes which do not divide evenly are where bugs hide.
+     */
+    private static final int[] DEFAULT_SIZES =
+    {
+        1, 2, 3, 4, 5, 7, 8, 13, 16, 31, 64, 100
+    };
+    /**
+     * Number of seeds checked per size when none is given on the command
+     * line.
+     */
+    private static final int DEFAULT_SEEDS = 250;
+    /**
+     * Number of failures printed per generator from the command line.
+     */
+    private static final int MAX_PRINTED = 10;
+    /**
+     * Largest number of mazes checked by one task.
+     */
+    private static final int BATCH = 8;
+    /**
+     * Units of work per call to GenMaze.step() in incremental mode, odd so
+     * that batches end at varied points of the carving.
+     */
+    private static final int STEP_BUDGET = 97;
+    /**
+     * Generator being checked.
+     */
+    private final MazeGenerator candidate;
+    /**
+     * Generator whose mazes the candidate must reproduce, null to only check
+     * that the mazes are perfect.
+     */
+    private final MazeGenerator reference;
+    /**
+     * True to carve the candidate's mazes with GenMaze.step().
+     */
+    private final boolean incremental;
+    /**
+     * Maze sizes checked.
+     */
+    private final int[] sizes;
+    /**
+     * Number of seeds checked per size, seeds 0 to seeds - 1.
+     */
+    private final int seeds;
+    /**
+     * Description of the failure of every maze of the last run, by maze
+     * number, null for the mazes which passed.
+     */
+    private String[] results;
+
+    /**
+     * Initializes a harness for a candidate generator.
+     *
+     * @param candidate Generator being checked.
+     * @param reference Generator whose mazes the candidate must reproduce,
+     * null to only check that the mazes are perfect.
+     * @param incremental True to carve the candidate's mazes with
+     * GenMaze.step().
+     * @param sizes Maze sizes checked.
+     * @param seeds Number of seeds checked per size.
+     */
+    public GeneratorHarness(MazeGenerator candidate, MazeGenerator reference, boolean incremental, int[] sizes,
+            int seeds)
+    {
+        if (seeds < 1)
+        {
+            throw new IllegalArgumentException("seeds must be at least 1: " + seeds);
+        }
+        for (int dim : sizes)
+        {
+            if (dim < 1)
+            {
+                throw new IllegalArgumentException("maze sizes must be at least 1: " + dim);
+            }
+        }
+        this.candidate = candidate;
+        this.reference = reference;
+        this.incremental = incremental;
+        this.sizes = sizes.clone();
+        this.seeds = seeds;
+    }
+
+    /**
+     * Runs the harness from the command line over every generator.
+     *
+     * @param args Number of seeds per size, followed by the maze sizes
+     * (N for an N by N maze), both optional.
+     */
+    public static void main(String[] args)
+    {
+        int seeds = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SEEDS;
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 1)
+        {
+            sizes = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++)
+            {
+                sizes[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+
+        MazeGenerator[] generators =
+        {
+            new DepthFirstGenerator(), new ParallelMazeGenerator(), new ParallelMazeGenerator(8),
+            new KruskalGenerator(), new PrimGenerator(), new WilsonGenerator(), new HuntAndKillGenerator(),
+            new BinaryTreeGenerator(), new SidewinderGenerator(), new RecursiveDivisionGenerator()
+        };
+        int failed = 0;
+        for (MazeGenerator generator : generators)
+        {
+            boolean incremental = generator instanceof IncrementalGenerator;
+            GeneratorHarness harness = new GeneratorHarness(generator, generator, incremental, sizes, seeds);
+            long start = System.nanoTime();
+            List<String> failures = harness.run();
+            long nanos = System.nanoTime() - start;
+            System.out.printf("%-22s %s %6d mazes %5d failed %8.1f ms%n", generator.getName(),
+                    incremental ? "incremental" : "one-shot   ", harness.getMazeCount(), failures.size(), nanos / 1e6);
+            for (int i = 0; i < failures.size() && i < MAX_PRINTED; i++)
+            {
+                System.out.println("    " + failures.get(i));
+            }
+            failed += failures.size();
+        }
+        if (failed > 0)
+        {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Returns the number of mazes checked by a run.
+     *
+     * @return Maze count
+     */
+    public int getMazeCount()
+    {
+        return sizes.length * seeds;
+    }
+
+    /**
+     * Carves and checks every maze, on all cores.
+     *
+     * @return Description of every maze which failed, ordered by size and
+     * seed, empty if every maze passed.
+     */
+    public List<String> run()
+    {
+        results = new String[getMazeCount()];
+        ParallelMazeGenerator.POOL.invoke(new CheckTask(0, results.length));
+        List<String> failures = new ArrayList<>();
+        for (String result : results)
+        {
+            if (result != null)
+            {
+                failures.add(result);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Carves and checks a single maze.
+     *
+     * @param dim Maze dimensions
+     * @param seed 64 bit seed of the maze.
+     * @return Description of the failure, null if the maze passed.
+     */
+    private String check(int dim, long seed)
+    {
+        String name = candidate.getName() + " " + dim + "x" + dim + " seed " + seed + ": ";
+        try
+        {
+            GenMaze maze = new GenMaze(dim, 0, 0, candidate, seed, incremental);
+            while (!maze.step(STEP_BUDGET))
+            {
+                //Carve until the maze is complete.
+            }
+            MazeGrid grid = maze.getGrid();
+            MazeVerifier verifier = new MazeVerifier(grid);
+            if (!verifier.isPerfect())
+            {
+                return name + verifier;
+            }
+            if (reference != null)
+            {
+                MazeGrid expected = new GenMaze(dim, 0, 0, reference, seed).getGrid();
+                int cell = MazeVerifier.firstDifference(grid, expected);
+                if (cell >= 0)
+                {
+                    return name + "differs from " + reference.getName() + " at " + grid.getX(cell) + ", "
+                            + grid.getY(cell);
+                }
+            }
+            return null;
+        } catch (RuntimeException e)
+        {
+            return name + e;
+        }
+    }
+
+    /**
+     * Fork/join task which checks a range of mazes, numbered by size then
+     * seed, ranges are split in half until at most BATCH mazes are left.
+     */
+    private class CheckTask extends RecursiveAction
+    {
+
+        /**
+         * Version of the serialized form of the task.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * First maze of the range (inclusive).
+         */
+        private final int from;
+        /**
+         * Last maze of the range (exclusive).
+         */
+        private final int to;
+
+        /**
+         * Initializes a task for the mazes from (inclusive) to to
+         * (exclusive).
+         *
+         * @param from First maze number.
+         * @param to Last maze number (exclusive).
+         */
+        CheckTask(int from, int to)
+        {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Checks the mazes of the range or splits the range in half.
+         */
+        @Override
+        protected void compute()
+        {
+            if (to - from > BATCH)
+            {
+                int mid = (from + to) >>> 1;
+                invokeAll(new CheckTask(from, mid), new CheckTask(mid, to));
+                return;
+            }
+            for (int i = from; i < to; i++)
+            {
+                results[i] = check(sizes[i / seeds], i % seeds);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package Maze;
+
+/**
+ * Randomized Depth First Search (recursive backtracker) over a MazeGraph. It
+ * is the same algorithm as DepthFirstGenerator, driven by an explicit stack
+ * of cell numbers, but the unvisited neighbours of a cell are read from its
+ * neighbour slots instead of the four compass directions, so it carves any
+ * topology. Visited cells are kept in a bitset.
+ *
+ * @see DepthFirstGenerator
+ */
+public class GraphDepthFirstGenerator implements GraphGenerator
+{
+
+    /**
+     * Returns the name of this generator.
+     *
+     * @return Generator name
+     */
+    @Override
+    public String getName()
+    {
+        return "dfs";
+    }
+
+    /**
+     * Carves a maze through the whole graph starting at the start cell.
+     *
+     * @param graph Graph to carve the maze into.
+     * @param start Cell number where the algorithm starts carving.
+     * @param random Source of randomness for this generation.
+     */
+    @Override
+    public void generate(MazeGraph graph, int start, MazeRandom random)
+    {
+        int cells = graph.getCellCount();
+        long[] visited = new long[(cells + 63) >>> 6];
+        int[] stack = new int[cells];
+        //Neighbour slots of the unvisited neighbours of the current cell.
+        int[] options = new int[Math.max(1, graph.getMaxDegree())];
+        int top = 0;
+
+        visited[start >>> 6] |= 1L << start;
+        stack[top++] = start;
+        while (top > 0)
+        {
+            int cell = stack[top - 1];
+            int count = 0;
+            for (int slot = graph.firstNeighbour(cell); slot < graph.endNeighbour(cell); slot++)
+            {
+                int next = graph.neighbour(slot);
+                if ((visited[next >>> 6] & (1L << next)) == 0)
+                {
+                    options[count++] = slot;
+                }
+            }
+
+            //Dead end, backtrack to the previous cell.
+            if (count == 0)
+            {
+                top--;
+                continue;
+            }
+
+            int slot = options[count == 1 ? 0 : random.nextInt(count)];
+            int next = graph.neighbour(slot);
+            graph.setOpen(graph.edge(slot), true);
+            visited[next >>> 6] |= 1L << next;
+            stack[top++] = next;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package Maze;
+
+/**
+ * GraphGenerator specification that maze generating algorithms for MazeGraph
+ * topologies must meet. It is the counterpart of MazeGenerator for mazes
+ * whose cells are not squares: generators only see cells, neighbour slots and
+ * edges, so the same algorithm carves square, hexagonal, triangular and polar
+ * mazes alike.
+ *
+ * @see MazeGraph
+ * @see MazeGenerator
+ */
+public interface GraphGenerator
+{
+
+    /**
+     * Returns a short name which identifies the algorithm and its settings.
+     * Two generators with the same name must produce the same maze from the
+     * same seed and graph.
+     *
+     * @return Generator name
+     */
+    public String getName();
+
+    /**
+     * Carves a perfect maze (exactly one path between any two cells) into the
+     * graph by opening edges. Every edge of the graph must be closed.
+     *
+     * @param graph Graph to carve the maze into.
+     * @param start Cell number where the algorithm starts carving.
+     * @param random Source of randomness for this generation, the same seed
+     * must always produce the same maze.
+     */
+    public void generate(MazeGraph graph, int start, MazeRandom random);
+}
@@ -1,12 +1,12 @@
 package Maze;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.Rectangle;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.util.concurrent.CopyOnWriteArrayList;
 import javax.imageio.ImageIO;
 
 /**
@@ -21,23 +21,39 @@ public class GraphicsMaze
      * Buffered image container for the start point cell (Starting position)
      * image.
      */
-    private BufferedImage goLine;
+    private static BufferedImage goLine;
     /**
      * Buffered image container for the end point cell (Finish position) image.
      */
-    private BufferedImage finishLine;
+    private static BufferedImage finishLine;
     /**
      * Buffered image container for the time point cell (bonus time) image.
      */
-    private BufferedImage bonusTime;
+    private static BufferedImage bonusTime;
     /**
      * Buffered image container for vertical walls (East and West) image.
      */
-    private BufferedImage verticalWall;
+    private static BufferedImage verticalWall;
     /**
      * Buffered image container for horizontal walls (North and South) image.
      */
-    private BufferedImage horizontalWall;
+    private static BufferedImage horizontalWall;
+
+    //The images are shared by every maze, so they are only loaded once.
+    static
+    {
+        try
+        {
+            goLine = ImageIO.read(new File("res/startLine.png"));
+            finishLine = ImageIO.read(new File("res/finishLine.png"));
+            bonusTime = ImageIO.read(new File("res/bonusTime.png"));
+            verticalWall = ImageIO.read(new File("res/VerticalWall.png"));
+            horizontalWall = ImageIO.read(new File("res/HorizontalWall.png"));
+        } catch (IOException e)
+        {
+        }
+    }
+
     /**
      * Default cell tile color if tile is not a start, end or time point cell.
      */
@@ -47,179 +63,202 @@ public class GraphicsMaze
      */
     private Color wallColor = new Color(147, 201, 243);
     /**
-     * Thread safe array list of RectCell objects used for generating and
-     * drawing.
+     * GenMaze object containing the hypothetical/conceptual maze which is then
+     * converted into a graphical maze in this.
      */
-    private static CopyOnWriteArrayList<RectCell> walls;
+    private GenMaze maze;
     /**
-     * Thread safe array list of RectCell objects used for cloning and collision
-     * detection.
+     * Pre-rendered image of the whole maze, drawn to the screen in a single
+     * call.
      */
-    private static CopyOnWriteArrayList<RectCell> copy;
+    private BufferedImage layer;
     /**
-     * GenMaze object containing the hypothetical/conceptual maze which is then
-     * converted into a graphical maze in this.
+     * Version of the maze grid that the pre-rendered image shows.
+     *
+     * @see MazeGrid#getVersion()
      */
-    private GenMaze maze;
+    private int layerVersion;
+    /**
+     * True if the pre-rendered image is shared with other graphical mazes, in
+     * which case it is never drawn over and a private image is rendered when
+     * the maze changes.
+     */
+    private boolean layerShared;
 
     /**
-     * Initializes the specific images required for cell tiles and walls as well
-     * as initializing an thread safe array list of RectCell objects.
+     * Initializes the graphical maze for the given maze, the images required
+     * for cell tiles and walls are shared by every graphical maze.
      *
      * @param m GenMaze object containing completed (conceptual) maze.
      */
     public GraphicsMaze(GenMaze m)
     {
-        walls = new CopyOnWriteArrayList<>();
         this.maze = m;
+    }
 
-        try
+    /**
+     * Initializes the graphical maze for the given maze using an image of the
+     * same maze which was rendered before, for example one held by a
+     * MazeCache. The image is shared and is never drawn over.
+     *
+     * @param m GenMaze object containing completed (conceptual) maze.
+     * @param rendered Image returned by getLayer() for an identical maze.
+     * @see #getLayer()
+     */
+    public GraphicsMaze(GenMaze m, BufferedImage rendered)
+    {
+        this.maze = m;
+        this.layer = rendered;
+        this.layerVersion = m.getGrid().getVersion();
+        this.layerShared = true;
+    }
+
+    /**
+     * Returns the pre-rendered image of the maze so that it can be shared with
+     * other graphical mazes of the same maze. From then on the image is never
+     * drawn over by this graphical maze.
+     *
+     * @return Pre-rendered image of the maze.
+     */
+    public BufferedImage getLayer()
+    {
+        if (layer == null)
         {
-            goLine = ImageIO.read(new File("res/startLine.png"));
-            finishLine = ImageIO.read(new File("res/finishLine.png"));
-            bonusTime = ImageIO.read(new File("res/bonusTime.png"));
-            verticalWall = ImageIO.read(new File("res/VerticalWall.png"));
-            horizontalWall = ImageIO.read(new File("res/HorizontalWall.png"));
-        } catch (IOException e)
+            prerender();
+        }
+        layerShared = true;
+        return layer;
+    }
+
+    /**
+     * Renders the maze into the pre-rendered image so that the first draw
+     * does not have to. This may be called from any thread before the
+     * graphical maze is handed over to the thread that draws it.
+     */
+    public void prerender()
+    {
+        int pixels = maze.getGridDimensions() * GenMaze.CELL_SIZE;
+        if (layer == null || layerShared)
         {
+            layer = new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB);
+            layerShared = false;
         }
+        layerVersion = maze.getGrid().getVersion();
+
+        Graphics2D g2d = layer.createGraphics();
+        g2d.setComposite(AlphaComposite.Clear);
+        g2d.fillRect(0, 0, pixels, pixels);
+        g2d.setComposite(AlphaComposite.SrcOver);
+        g2d.translate(-maze.getCoordX(1), -maze.getCoordY(1));
+        drawCells(g2d);
+        g2d.dispose();
     }
 
     /**
-     * Draws a maze using rectangle objects where the maze is drawn based on the
-     * GenMaze object representation. Depending on the visibility, the cell,
-     * it's cell type and the walls that it contains are drawn to the screen.
-     * Rectangle objects are created for all of the components in a cell (cell
-     * box (tile), walls and type) and a RectCell object is initialized based on
-     * these arguments. Each RectCell object is added to the list, once all
-     * rectangles in the maze have been drawn and added, a clone is made for
-     * safety when doing collision detection/avoidance.
+     * Draws the maze to the screen. The maze is drawn from the pre-rendered
+     * image, which is only rendered again when the visibility or the time
+     * points of the maze have changed.
      *
      * @param g Graphics rendering object used to draw to the window
      * (JFrame/JPanel).
      */
     public void draw(Graphics g)
     {
+        if (layer == null || layerVersion != maze.getGrid().getVersion())
+        {
+            prerender();
+        }
+        g.drawImage(layer, maze.getCoordX(1), maze.getCoordY(1), null);
+    }
+
+    /**
+     * Draws a maze based on the GenMaze object representation. The cells are
+     * read directly from the maze grid, depending on the visibility, the cell,
+     * it's cell type and the walls that it contains are drawn at the
+     * coordinates derived from the cell's row and column.
+     *
+     * @param g Graphics rendering object used to draw the cells.
+     */
+    private void drawCells(Graphics g)
+    {
+        MazeGrid grid = maze.getGrid();
+        int size = GenMaze.CELL_SIZE;
 
-        walls.clear();
-        boolean done;
         for (int j = 1; j <= this.maze.getGridDimensions(); j++)
         {
+            int y = maze.getCoordY(j);
             for (int i = 1; i <= this.maze.getGridDimensions(); i++)
             {
-                if (maze.getGrid(i, j).isVisibile())
+                if (grid.isVisible(i, j))
                 {
-                    //gets the generated x and y coordinates from the specific cell and creates a rectangle.
-                    Rectangle r = new Rectangle(maze.getGrid(i, j).getCoordX(), maze.getGrid(i, j).getCoordY(), 40, 40);
-                    boolean sp, ep, tp;
-                    sp = false;
-                    ep = false;
-                    tp = false;
-
-                    if (maze.getGrid(i, j).isStartPoint())
+                    //derives the x and y coordinates from the cell's row and column.
+                    int x = maze.getCoordX(i);
+
+                    if (grid.isStartPoint(i, j))
                     {
-                        sp = true;
-                        if (goLine == null)
-                        {   // the sprite has no image
-                            g.setColor(new Color(245, 220, 215));
-                            g.fillRect(r.x, r.y, r.width, r.height);
-                        } else
-                        {
-                            g.drawImage(goLine, r.x, r.y, r.width, r.height, null);
-                        }
-                    } else if (maze.getGrid(i, j).isEndPoint())
+                        drawTile(g, goLine, x, y);
+                    } else if (grid.isEndPoint(i, j))
                     {
-                        ep = true;
-                        if (finishLine == null)
-                        {   // the sprite has no image
-                            g.setColor(new Color(245, 220, 215));
-                            g.fillRect(r.x, r.y, r.width, r.height);
-                        } else
-                        {
-                            g.drawImage(finishLine, r.x, r.y, r.width, r.height, null);
-                        }
-                    } else if (maze.getGrid(i, j).isTimePoint())
+                        drawTile(g, finishLine, x, y);
+                    } else if (grid.isTimePoint(i, j))
                     {
-                        tp = true;
-                        if (bonusTime == null)
-                        {   // the sprite has no image
-                            g.setColor(new Color(245, 220, 215));
-                            g.fillRect(r.x, r.y, r.width, r.height);
-                        } else
-                        {
-                            g.drawImage(bonusTime, r.x, r.y, r.width, r.height, null);
-                        }
+                        drawTile(g, bonusTime, x, y);
                     } else
                     {
                         g.setColor(cellColor);
-                        g.fillRect(r.x, r.y, r.width, r.height);
+                        g.fillRect(x, y, size, size);
                     }
 
-                    Rectangle s;
-                    if (maze.getGrid(i, j).isSouthWall())
+                    int walls = grid.walls(i, j);
+                    if ((walls & MazeGrid.SOUTH) != 0)
                     {
-                        s = new Rectangle(maze.getGrid(i, j).getCoordX(), maze.getGrid(i, j).getCoordY() + 38, 40, 2);
                         g.setColor(wallColor);
-                        g.fillRect(s.x, s.y, s.width, s.height);
-                        g.drawImage(horizontalWall, s.x, s.y, null);
-                    } else
-                    {
-                        s = null;
+                        g.fillRect(x, y + size - 2, size, 2);
+                        g.drawImage(horizontalWall, x, y + size - 2, null);
                     }
-
-                    Rectangle n;
-                    if (maze.getGrid(i, j).isNorthWall())
+                    if ((walls & MazeGrid.NORTH) != 0)
                     {
-                        n = new Rectangle(maze.getGrid(i, j).getCoordX(), maze.getGrid(i, j).getCoordY(), 40, 2);
                         g.setColor(wallColor);
-                        g.fillRect(n.x, n.y, n.width, n.height);
-                        g.drawImage(horizontalWall, n.x, n.y, null);
-                    } else
-                    {
-                        n = null;
+                        g.fillRect(x, y, size, 2);
+                        g.drawImage(horizontalWall, x, y, null);
                     }
-
-                    Rectangle w;
-                    if (maze.getGrid(i, j).isWestWall())
+                    if ((walls & MazeGrid.WEST) != 0)
                     {
-                        w = new Rectangle(maze.getGrid(i, j).getCoordX(), maze.getGrid(i, j).getCoordY(), 2, 40);
                         g.setColor(wallColor);
-                        g.fillRect(w.x, w.y, w.width, w.height);
-                        g.drawImage(verticalWall, w.x, w.y, null);
-                    } else
-                    {
-                        w = null;
+                        g.fillRect(x, y, 2, size);
+                        g.drawImage(verticalWall, x, y, null);
                     }
-
-                    Rectangle e;
-                    if (maze.getGrid(i, j).isEastWall())
+                    if ((walls & MazeGrid.EAST) != 0)
                     {
-                        e = new Rectangle(maze.getGrid(i, j).getCoordX() + 38, maze.getGrid(i, j).getCoordY(), 2, 40);
                         g.setColor(wallColor);
-                        g.fillRect(e.x, e.y, e.width, e.height);
-                        g.drawImage(verticalWall, e.x, e.y, null);
-                    } else
-                    {
-                        e = null;
+                        g.fillRect(x + size - 2, y, 2, size);
+                        g.drawImage(verticalWall, x + size - 2, y, null);
                     }
-                    RectCell cellInfo = new RectCell(r, n, s, e, w, sp, ep, tp);
-                    walls.add(cellInfo);
                 }
             }
 
         }
-        copy = (CopyOnWriteArrayList<RectCell>) walls.clone(); // make a clone just to be safe.
     }
 
     /**
-     * Returns a clone (for safety) of the RectCell array list which is required
-     * by the character object's collision detection.
+     * Draws a start, end or time point tile, a plain coloured tile is drawn
+     * instead if the image could not be loaded.
      *
-     * @return copy Cloned version of walls ArrayList
-     * @see #copy
+     * @param g Graphics rendering object used to draw to the window
+     * (JFrame/JPanel).
+     * @param tile Image of the tile.
+     * @param x x coordinate of the tile.
+     * @param y y coordinate of the tile.
      */
-    public CopyOnWriteArrayList<RectCell> getRectangles()
+    private void drawTile(Graphics g, BufferedImage tile, int x, int y)
     {
-        return copy;
+        if (tile == null)
+        {   // the sprite has no image
+            g.setColor(new Color(245, 220, 215));
+            g.fillRect(x, y, GenMaze.CELL_SIZE, GenMaze.CELL_SIZE);
+        } else
+        {
+            g.drawImage(tile, x, y, GenMaze.CELL_SIZE, GenMaze.CELL_SIZE, null);
+        }
     }
 }
@@ -0,0 +1,121 @@
+package Maze;
+
+/**
+ * Hunt-and-kill maze generator. A random walk carves through unvisited cells
+ * (kill) until it reaches a dead end, then the grid is scanned row by row for
+ * an unvisited cell next to the maze (hunt) which is joined to the maze and
+ * becomes the start of the next walk. No stack is needed, the only state is
+ * the first row that may still contain unvisited cells. The mazes have long
+ * corridors like the Depth First Search but with fewer, longer dead ends.
+ */
+public class HuntAndKillGenerator implements MazeGenerator
+{
+
+    /**
+     * Returns the name of this generator.
+     *
+     * @return Generator name
+     */
+    @Override
+    public String getName()
+    {
+        return "hunt-and-kill";
+    }
+
+    /**
+     * Carves a maze through the whole grid starting at the start cell.
+     *
+     * @param grid Grid to carve the maze into.
+     * @param start Cell number where the algorithm starts carving.
+     * @param random Source of randomness for this generation.
+     */
+    @Override
+    public void generate(MazeGrid grid, int start, MazeRandom random)
+    {
+        int dim = grid.getDimensions();
+        int stride = grid.size();
+        int[] options = new int[4];
+        int huntRow = 1;
+        int cell = start;
+
+        grid.setVisited(cell, true);
+        while (cell >= 0)
+        {
+            //Kill: walk through unvisited cells until there are none around,
+            //border cells are visited so no bounds checks are needed.
+            while (true)
+            {
+                int count = 0;
+                if (!grid.isVisited(cell + stride))
+                {
+                    options[count++] = MazeGrid.SOUTH;
+                }
+                if (!grid.isVisited(cell + 1))
+                {
+                    options[count++] = MazeGrid.EAST;
+                }
+                if (!grid.isVisited(cell - stride))
+                {
+                    options[count++] = MazeGrid.NORTH;
+                }
+                if (!grid.isVisited(cell - 1))
+                {
+                    options[count++] = MazeGrid.WEST;
+                }
+                if (count == 0)
+                {
+                    break;
+                }
+                int wall = options[count == 1 ? 0 : random.nextInt(count)];
+                grid.carve(cell, wall);
+                cell = grid.neighbour(cell, wall);
+                grid.setVisited(cell, true);
+            }
+
+            //Hunt: find the first unvisited cell next to the maze and join it.
+            cell = -1;
+            for (int y = huntRow; y <= dim && cell < 0; y++)
+            {
+                boolean complete = true;
+                for (int x = 1; x <= dim; x++)
+                {
+                    int candidate = grid.index(x, y);
+                    if (grid.isVisited(candidate))
+                    {
+                        continue;
+                    }
+                    complete = false;
+                    int count = 0;
+                    if (y < dim && grid.isVisited(candidate + stride))
+                    {
+                        options[count++] = MazeGrid.SOUTH;
+                    }
+                    if (x < dim && grid.isVisited(candidate + 1))
+                    {
+                        options[count++] = MazeGrid.EAST;
+                    }
+                    if (y > 1 && grid.isVisited(candidate - stride))
+                    {
+                        options[count++] = MazeGrid.NORTH;
+                    }
+                    if (x > 1 && grid.isVisited(candidate - 1))
+                    {
+                        options[count++] = MazeGrid.WEST;
+                    }
+                    if (count > 0)
+                    {
+                        grid.carve(candidate, options[count == 1 ? 0 : random.nextInt(count)]);
+                        grid.setVisited(candidate, true);
+                        cell = candidate;
+                        break;
+                    }
+                }
+                //Rows before the first incomplete row never need scanning again.
+                if (complete && y == huntRow)
+                {
+                    huntRow++;
+                }
+            }
+        }
+    }
+}
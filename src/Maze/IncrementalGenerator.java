@@ -0,0 +1,23 @@
+package Maze;
+
+/**
+ * MazeGenerator which can also carve its maze incrementally through a
+ * MazeStepper. The maze produced by a stepper run to completion must be
+ * identical to the maze produced by generate() from the same seed.
+ *
+ * @see MazeStepper
+ */
+public interface IncrementalGenerator extends MazeGenerator
+{
+
+    /**
+     * Returns a stepper which carves a perfect maze into the grid one batch
+     * of work at a time. Nothing is carved until the stepper is stepped.
+     *
+     * @param grid Grid to carve the maze into.
+     * @param start Cell number where the algorithm starts carving.
+     * @param random Source of randomness for this generation.
+     * @return Stepper for the generation.
+     */
+    public MazeStepper stepper(MazeGrid grid, int start, MazeRandom random);
+}
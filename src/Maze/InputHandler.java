@@ -36,6 +36,30 @@ public class InputHandler implements KeyListener, MoveHandler
      * triggered upon KeyPressed or KeyReleased of the right arrow key.
      */
     private boolean moveRight;
+    /**
+     *
+     * Staircase the player asked to take with the last press of the page up
+     * (+1) or page down (-1) key, 0 once it has been taken.
+     */
+    private int stairs;
+    /**
+     *
+     * Boolean which is toggled by every press of the H key, true while the
+     * route to the end point is shown.
+     */
+    private boolean hint;
+    /**
+     *
+     * Boolean which is toggled by every press of the B key, true while the
+     * character is driven by a SolverBot instead of the arrow keys.
+     */
+    private boolean autopilot;
+    /**
+     *
+     * Boolean which is toggled by every press of the W key, true while games
+     * are played in an endless world instead of levels.
+     */
+    private boolean endless;
 
     //Constructor starts here
     /**
@@ -84,6 +108,26 @@ public class InputHandler implements KeyListener, MoveHandler
         {
             setMoveDown(true);
         }
+        if (keyCode == KeyEvent.VK_PAGE_UP)
+        {
+            stairs = 1;
+        }
+        if (keyCode == KeyEvent.VK_PAGE_DOWN)
+        {
+            stairs = -1;
+        }
+        if (keyCode == KeyEvent.VK_H)
+        {
+            hint = !hint;
+        }
+        if (keyCode == KeyEvent.VK_B)
+        {
+            autopilot = !autopilot;
+        }
+        if (keyCode == KeyEvent.VK_W)
+        {
+            endless = !endless;
+        }
     }
     //Sets direction to false upon specific key release event.
 
@@ -207,4 +251,52 @@ public class InputHandler implements KeyListener, MoveHandler
     {
         return this.moveRight;
     }
+
+    /**
+     * Returns the staircase the player asked to take since the last call and
+     * clears the request, so a key press takes a staircase at most once.
+     *
+     * @return 1 to go up, -1 to go down, 0 if no staircase was asked for.
+     */
+    public int takeStairs()
+    {
+        int taken = stairs;
+        stairs = 0;
+        return taken;
+    }
+
+    /**
+     * Returns a boolean that represents whether the player asked to be shown
+     * the route to the end point.
+     *
+     * @return hint Hint mode on.
+     */
+    public boolean isHint()
+    {
+        return hint;
+    }
+
+    /**
+     * Returns a boolean that represents whether the player handed the
+     * character over to the solver bot.
+     *
+     * @return autopilot Autopilot on.
+     * @see SolverBot
+     */
+    public boolean isAutopilot()
+    {
+        return autopilot;
+    }
+
+    /**
+     * Returns a boolean that represents whether the player asked to play in
+     * an endless world.
+     *
+     * @return endless Endless mode on.
+     * @see MazeWorld
+     */
+    public boolean isEndless()
+    {
+        return endless;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package Maze;
+
+/**
+ * Randomized Kruskal maze generator. Every inner wall of the grid is visited
+ * in a random order and destroyed if the cells on either side are not yet
+ * connected, which is tracked with a union-find forest over the cell numbers.
+ * The mazes have many short dead ends and no directional bias. Memory use is
+ * one int per inner wall and one int per cell of the grid, border included.
+ */
+public class KruskalGenerator implements MazeGenerator
+{
+
+    /**
+     * Returns the name of this generator.
+     *
+     * @return Generator name
+     */
+    @Override
+    public String getName()
+    {
+        return "kruskal";
+    }
+
+    /**
+     * Carves a maze through the whole grid, the start cell is not needed
+     * since the walls are visited in a random order.
+     *
+     * @param grid Grid to carve the maze into.
+     * @param start Cell number where the algorithm starts carving (unused).
+     * @param random Source of randomness for this generation.
+     */
+    @Override
+    public void generate(MazeGrid grid, int start, MazeRandom random)
+    {
+        int dim = grid.getDimensions();
+        int stride = grid.size();
+
+        //Wall w joins cell w/2 to its east neighbour if w is even, or to its
+        //south neighbour if w is odd.
+        int[] walls = new int[2 * dim * (dim - 1)];
+        int count = 0;
+        for (int y = 1; y <= dim; y++)
+        {
+            for (int x = 1; x <= dim; x++)
+            {
+                int cell = grid.index(x, y);
+                if (x < dim)
+                {
+                    walls[count++] = cell << 1;
+                }
+                if (y < dim)
+                {
+                    walls[count++] = (cell << 1) | 1;
+                }
+                grid.setVisited(cell, true);
+            }
+        }
+
+        int[] parent = new int[stride * stride];
+        for (int i = 0; i < parent.length; i++)
+        {
+            parent[i] = i;
+        }
+
+        //Shuffle while consuming, each wall is drawn at random from the walls
+        //not yet considered.
+        int joined = 0;
+        for (int i = count - 1; i >= 0 && joined < dim * dim - 1; i--)
+        {
+            int j = random.nextInt(i + 1);
+            int wall = walls[j];
+            walls[j] = walls[i];
+
+            int cell = wall >>> 1;
+            int side = (wall & 1) == 0 ? MazeGrid.EAST : MazeGrid.SOUTH;
+            int a = find(parent, cell);
+            int b = find(parent, grid.neighbour(cell, side));
+            if (a != b)
+            {
+                parent[b] = a;
+                grid.carve(cell, side);
+                joined++;
+            }
+        }
+    }
+
+    /**
+     * Returns the root of a cell in the union-find forest, halving the path
+     * on the way.
+     *
+     * @param parent Union-find parent of each cell.
+     * @param cell Cell number
+     * @return Root cell number
+     */
+    static int find(int[] parent, int cell)
+    {
+        while (parent[cell] != cell)
+        {
+            parent[cell] = parent[parent[cell]];
+            cell = parent[cell];
+        }
+        return cell;
+    }
+}
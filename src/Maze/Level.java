@@ -0,0 +1,528 @@
+package Maze;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A fully built level: the generated maze, centered on the window, and its
+ * pre-rendered graphical maze. Building a level does all of the work required
+ * before the level can be played, so a level built ahead of time on another
+ * thread can be swapped in without any generation or rendering work.
+ *
+ * A level can also have several floors connected by stairs, carved as one
+ * MazeVolume. Every floor is then copied into a maze of its own and rendered
+ * once when the level is built, and only the current floor is played and
+ * drawn, so changing floor swaps references and renders nothing.
+ *
+ * An endless level plays a window onto a MazeWorld instead, a little larger
+ * than the screen, which scrolls under the player. Only the walls of the
+ * window are copied from the world when it moves by a cell, and an endless
+ * level has no end point.
+ *
+ * @see LevelPipeline
+ * @see MazeWorld
+ */
+public class Level
+{
+
+    /**
+     * Width and height in cells of the window of an endless level, which
+     * covers the screen with a cell to spare on every side.
+     */
+    private static final int WINDOW = StartGame.WIDTH / GenMaze.CELL_SIZE + 2;
+
+    /**
+     * Maze dimension (N by N) of this level.
+     */
+    private final int dimension;
+    /**
+     * x coordinate that centers the maze on the window.
+     */
+    private final int screenX;
+    /**
+     * y coordinate that centers the maze on the window.
+     */
+    private final int screenY;
+    /**
+     * Generated maze of this level, the maze of the current floor.
+     */
+    private GenMaze maze;
+    /**
+     * Graphical maze of this level, already rendered.
+     */
+    private GraphicsMaze graphics;
+    /**
+     * Volume of a level with several floors, null for a single floor.
+     */
+    private MazeVolume volume;
+    /**
+     * Maze of every floor of a level with several floors.
+     */
+    private GenMaze[] floorMazes;
+    /**
+     * Rendered graphical maze of every floor of a level with several floors.
+     */
+    private GraphicsMaze[] floorGraphics;
+    /**
+     * Floor being played, 0 for the ground floor.
+     */
+    private int floor;
+    /**
+     * Distance field of a single floor maze from its end point, null until
+     * the maze has been carved.
+     */
+    private DistanceField exit;
+    /**
+     * Distance of every cell of the volume to the end point, by volume cell
+     * number, for a level with several floors.
+     */
+    private int[] volumeExit;
+    /**
+     * Tree index of a single floor maze rooted at its end point, built the
+     * first time it is asked for.
+     */
+    private MazeTree tree;
+    /**
+     * World of an endless level, null for a level of fixed dimensions.
+     */
+    private MazeWorld world;
+    /**
+     * World x coordinate of row 1 of the window of an endless level.
+     */
+    private int worldX;
+    /**
+     * World y coordinate of column 1 of the window of an endless level.
+     */
+    private int worldY;
+
+    /**
+     * Generates a maze of the given dimensions centered on the window and
+     * renders its graphical maze.
+     *
+     * @param mazeSize Maze dimensions (mazeSize by mazeSize).
+     */
+    public Level(int mazeSize)
+    {
+        this(mazeSize, false, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Builds a level for the maze of the given dimensions and seed centered
+     * on the window. If animated is true the maze is left uncarved, to be
+     * carved with GenMaze.step() while the level is shown.
+     *
+     * @param mazeSize Maze dimensions (mazeSize by mazeSize).
+     * @param animated True to carve the maze while the level is shown.
+     * @param seed 64 bit seed of the maze.
+     * @see GenMaze#step(int)
+     */
+    public Level(int mazeSize, boolean animated, long seed)
+    {
+        this.dimension = mazeSize;
+        this.screenX = (StartGame.WIDTH - mazeSize * GenMaze.CELL_SIZE) / 2;
+        this.screenY = (StartGame.HEIGHT - mazeSize * GenMaze.CELL_SIZE) / 2;
+        this.maze = new GenMaze(mazeSize, screenX, screenY, new DepthFirstGenerator(), seed, animated);
+        this.graphics = new GraphicsMaze(maze);
+        this.graphics.prerender();
+    }
+
+    /**
+     * Builds a level for a maze picked by a LevelSelector, centered on the
+     * window. The level plays a copy of the cached grid, and its graphical
+     * maze is rendered once per cached maze and stored in the cache entry.
+     *
+     * @param candidate Selected candidate maze.
+     * @see LevelSelector
+     * @see MazeCache#LAYER
+     */
+    public Level(LevelSelector.Candidate candidate)
+    {
+        MazeCache.Entry entry = candidate.getEntry();
+        MazeGrid grid = entry.getGrid();
+        this.dimension = grid.getDimensions();
+        this.screenX = (StartGame.WIDTH - dimension * GenMaze.CELL_SIZE) / 2;
+        this.screenY = (StartGame.HEIGHT - dimension * GenMaze.CELL_SIZE) / 2;
+        this.maze = new GenMaze(grid.copy(), screenX, screenY, candidate.getSeed());
+        this.exit = candidate.getExit();
+        BufferedImage layer = (BufferedImage) entry.getArtefact(MazeCache.LAYER);
+        if (layer == null)
+        {
+            this.graphics = new GraphicsMaze(maze);
+            entry.putArtefact(MazeCache.LAYER, graphics.getLayer());
+        } else
+        {
+            this.graphics = new GraphicsMaze(maze, layer);
+        }
+    }
+
+    /**
+     * Builds a level of several floors connected by stairs, carved as a
+     * single maze through the volume of the floors. The player starts at the
+     * first cell of the ground floor and the end point is the last cell of
+     * the top floor. The maze of every floor is rendered straight away.
+     *
+     * @param mazeSize Maze dimensions of every floor.
+     * @param floors Number of floors.
+     * @param seed 64 bit seed of the maze.
+     * @see MazeVolume
+     */
+    public Level(int mazeSize, int floors, long seed)
+    {
+        this.dimension = mazeSize;
+        this.screenX = (StartGame.WIDTH - mazeSize * GenMaze.CELL_SIZE) / 2;
+        this.screenY = (StartGame.HEIGHT - mazeSize * GenMaze.CELL_SIZE) / 2;
+        this.volume = new MazeVolume(mazeSize, floors);
+        volume.generate(seed);
+        MazeRandom random = new MazeRandom(seed).split();
+        int timeFloor = random.nextInt(floors);
+        int tpX = 1 + random.nextInt(mazeSize);
+        int tpY = 1 + random.nextInt(mazeSize);
+
+        this.floorMazes = new GenMaze[floors];
+        this.floorGraphics = new GraphicsMaze[floors];
+        for (int f = 0; f < floors; f++)
+        {
+            MazeGrid grid = new MazeGrid(mazeSize);
+            volume.copyFloor(f, grid);
+            if (f == 0)
+            {
+                grid.setStartPoint(1, 1);
+            }
+            if (f == floors - 1)
+            {
+                grid.setEndPoint(mazeSize, mazeSize);
+            }
+            if (f == timeFloor)
+            {
+                grid.setTimePoint(tpX, tpY, true);
+            }
+            floorMazes[f] = new GenMaze(grid, screenX, screenY, seed);
+            floorGraphics[f] = new GraphicsMaze(floorMazes[f]);
+            floorGraphics[f].prerender();
+        }
+        this.maze = floorMazes[0];
+        this.graphics = floorGraphics[0];
+        this.volumeExit = new int[volume.getCellCount()];
+        volume.distances(volume.index(mazeSize, mazeSize, floors - 1), volumeExit, new int[volume.getCellCount()]);
+    }
+
+    /**
+     * Builds an endless level whose maze is a window onto a world, centered
+     * on world cell (0, 0) where the player starts, and renders it. The
+     * window follows the player through scroll().
+     *
+     * @param world World to explore.
+     * @see #scroll(int, int)
+     */
+    public Level(MazeWorld world)
+    {
+        this.world = world;
+        this.dimension = WINDOW;
+        this.screenX = (StartGame.WIDTH - WINDOW * GenMaze.CELL_SIZE) / 2;
+        this.screenY = (StartGame.HEIGHT - WINDOW * GenMaze.CELL_SIZE) / 2;
+        this.worldX = -(WINDOW / 2);
+        this.worldY = -(WINDOW / 2);
+        MazeGrid grid = new MazeGrid(WINDOW);
+        world.copyWindow(worldX, worldY, grid);
+        grid.setStartPoint(1 - worldX, 1 - worldY);
+        this.maze = new GenMaze(grid, screenX, screenY, world.getSeed());
+        this.graphics = new GraphicsMaze(maze);
+        this.graphics.prerender();
+    }
+
+    /**
+     * Returns the maze dimension (N by N) of this level.
+     *
+     * @return dimension Maze dimension integer (N)
+     * @see #dimension
+     */
+    public int getDimension()
+    {
+        return dimension;
+    }
+
+    /**
+     * Returns the x coordinate that centers the maze on the window.
+     *
+     * @return screenX x coordinate value.
+     * @see #screenX
+     */
+    public int getScreenX()
+    {
+        return screenX;
+    }
+
+    /**
+     * Returns the y coordinate that centers the maze on the window.
+     *
+     * @return screenY y coordinate value.
+     * @see #screenY
+     */
+    public int getScreenY()
+    {
+        return screenY;
+    }
+
+    /**
+     * Returns the generated maze of this level.
+     *
+     * @return maze Generated maze
+     * @see #maze
+     */
+    public GenMaze getMaze()
+    {
+        return maze;
+    }
+
+    /**
+     * Returns the graphical maze of this level.
+     *
+     * @return graphics Graphical maze
+     * @see #graphics
+     */
+    public GraphicsMaze getGraphics()
+    {
+        return graphics;
+    }
+
+    /**
+     * Returns the number of floors of this level.
+     *
+     * @return Floor count, 1 for a level without stairs.
+     */
+    public int getFloors()
+    {
+        return volume == null ? 1 : volume.getFloors();
+    }
+
+    /**
+     * Returns the floor being played.
+     *
+     * @return floor Floor, 0 for the ground floor.
+     * @see #floor
+     */
+    public int getFloor()
+    {
+        return floor;
+    }
+
+    /**
+     * Returns the stairs of the cell located at row x and column y on the
+     * floor being played.
+     *
+     * @param x Row
+     * @param y Column
+     * @return MazeVolume.STAIRS_UP and/or MazeVolume.STAIRS_DOWN, 0 if the
+     * cell has no stairs.
+     */
+    public int stairs(int x, int y)
+    {
+        return volume == null ? 0 : volume.stairs(x, y, floor);
+    }
+
+    /**
+     * Makes another floor the floor being played. The maze and graphical maze
+     * returned by getMaze() and getGraphics() change to those of the floor,
+     * which were rendered when the level was built.
+     *
+     * @param floor Floor, 0 for the ground floor.
+     */
+    public void setFloor(int floor)
+    {
+        if (floor < 0 || floor >= getFloors())
+        {
+            throw new IndexOutOfBoundsException("floor " + floor + " of " + getFloors());
+        }
+        if (volume != null)
+        {
+            this.floor = floor;
+            this.maze = floorMazes[floor];
+            this.graphics = floorGraphics[floor];
+        }
+    }
+
+    /**
+     * Returns a boolean that represents whether this level is an endless
+     * window onto a world.
+     *
+     * @return True for an endless level.
+     */
+    public boolean isEndless()
+    {
+        return world != null;
+    }
+
+    /**
+     * Returns the world of an endless level.
+     *
+     * @return world World, null for a level of fixed dimensions.
+     * @see #world
+     */
+    public MazeWorld getWorld()
+    {
+        return world;
+    }
+
+    /**
+     * Returns the world x coordinate of row x of the maze of an endless
+     * level.
+     *
+     * @param x Row
+     * @return World x coordinate
+     */
+    public int getWorldX(int x)
+    {
+        return worldX + x - 1;
+    }
+
+    /**
+     * Returns the world y coordinate of column y of the maze of an endless
+     * level.
+     *
+     * @param y Column
+     * @return World y coordinate
+     */
+    public int getWorldY(int y)
+    {
+        return worldY + y - 1;
+    }
+
+    /**
+     * Scrolls an endless level by the given number of pixels, typically the
+     * distance the player just moved, so that the player can be put back at
+     * the centre of the screen. The maze moves on the screen pixel by pixel
+     * and the window moves through the world cell by cell, its walls being
+     * copied again from the world whenever it does, so the window always
+     * covers the screen. The start point stays on world cell (0, 0), and on
+     * the border of the maze where it is not drawn while that cell is out of
+     * the window.
+     *
+     * @param dx Pixels to scroll east, negative to scroll west.
+     * @param dy Pixels to scroll south, negative to scroll north.
+     */
+    public void scroll(int dx, int dy)
+    {
+        if (world == null)
+        {
+            throw new IllegalStateException("only an endless level scrolls");
+        }
+        int x = maze.getCoordX(1) - dx;
+        int y = maze.getCoordY(1) - dy;
+        int shiftX = 0;
+        int shiftY = 0;
+        //Keep the origin within a cell west and north of where it started.
+        while (x > screenX)
+        {
+            x -= GenMaze.CELL_SIZE;
+            shiftX--;
+        }
+        while (x <= screenX - GenMaze.CELL_SIZE)
+        {
+            x += GenMaze.CELL_SIZE;
+            shiftX++;
+        }
+        while (y > screenY)
+        {
+            y -= GenMaze.CELL_SIZE;
+            shiftY--;
+        }
+        while (y <= screenY - GenMaze.CELL_SIZE)
+        {
+            y += GenMaze.CELL_SIZE;
+            shiftY++;
+        }
+        if (shiftX != 0 || shiftY != 0)
+        {
+            worldX += shiftX;
+            worldY += shiftY;
+            MazeGrid grid = maze.getGrid();
+            int startX = 1 - worldX;
+            int startY = 1 - worldY;
+            if (startX >= 1 && startY >= 1 && startX <= WINDOW && startY <= WINDOW)
+            {
+                grid.setStartPoint(startX, startY);
+            } else
+            {
+                grid.setStartPoint(0, 0);
+            }
+            world.copyWindow(worldX, worldY, grid);
+        }
+        maze.setOrigin(x, y);
+    }
+
+    /**
+     * Returns the distance field of a single floor maze from its end point.
+     * The field is computed the first time it is asked for after the maze
+     * has been carved, levels built from a selected candidate already have
+     * it from the maze cache.
+     *
+     * @return Distance field, null while the maze is being carved or if the
+     * level has several floors or is endless.
+     * @see DistanceField
+     */
+    public DistanceField getExit()
+    {
+        if (exit == null && volume == null && world == null && maze.isGenerated())
+        {
+            exit = new DistanceField(maze.getGrid());
+        }
+        return exit;
+    }
+
+    /**
+     * Returns the tree index of a single floor maze, rooted at its end point,
+     * which answers path queries between any two cells of the maze. The index
+     * is built the first time it is asked for after the maze has been
+     * carved.
+     *
+     * @return Tree index, null while the maze is being carved or if the level
+     * has several floors or is endless.
+     * @see MazeTree
+     */
+    public MazeTree getTree()
+    {
+        if (tree == null && volume == null && world == null && maze.isGenerated())
+        {
+            tree = new MazeTree(maze.getGrid());
+        }
+        return tree;
+    }
+
+    /**
+     * Returns the number of steps from the cell located at row x and column y
+     * on the floor being played to the end point, counting a staircase as one
+     * step.
+     *
+     * @param x Row
+     * @param y Column
+     * @return Number of steps, DistanceField.UNREACHABLE if unknown.
+     */
+    public int stepsToExit(int x, int y)
+    {
+        return stepsToExit(x, y, floor);
+    }
+
+    /**
+     * Returns the number of steps from the cell located at row x and column y
+     * on a floor to the end point, counting a staircase as one step.
+     *
+     * @param x Row
+     * @param y Column
+     * @param floor Floor, 0 for the ground floor.
+     * @return Number of steps, DistanceField.UNREACHABLE if unknown or if the
+     * level has no such floor.
+     */
+    public int stepsToExit(int x, int y, int floor)
+    {
+        if (x < 1 || y < 1 || x > dimension || y > dimension || floor < 0 || floor >= getFloors())
+        {
+            return DistanceField.UNREACHABLE;
+        }
+        if (volume != null)
+        {
+            return volumeExit[volume.index(x, y, floor)];
+        }
+        DistanceField field = getExit();
+        return field == null ? DistanceField.UNREACHABLE : field.distance(x, y);
+    }
+}
@@ -0,0 +1,166 @@
+package Maze;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Prepares the next level on a worker thread while the current level is being
+ * played. When the player reaches the end point the prepared level is simply
+ * swapped in, so no generation or rendering work happens on the event
+ * dispatch thread or the main game loop thread.
+ *
+ * The mazes of single floor levels are kept in a MazeCache along with their
+ * distance fields and pre-rendered images, so a level built again from the
+ * same seed, for example when a game is restarted, is neither generated nor
+ * rendered again.
+ *
+ * @see Level
+ * @see MazeCache
+ */
+public class LevelPipeline
+{
+
+    /**
+     * Maximum number of mazes in the cache, candidates included.
+     */
+    private static final int CACHE_ENTRIES = 256;
+    /**
+     * Maximum estimated memory used by the cache in bytes.
+     */
+    private static final long CACHE_BYTES = 32L << 20;
+
+    /**
+     * Single worker thread which builds the levels. The thread is a daemon so
+     * that it never keeps the game running after the window is closed.
+     */
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(new ThreadFactory()
+    {
+        @Override
+        public Thread newThread(Runnable r)
+        {
+            Thread thread = new Thread(r, "level-pipeline");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    /**
+     * Level which is being prepared, null if none has been requested.
+     */
+    private Future<Level> pending;
+    /**
+     * Cache of the mazes of the levels and of their candidates.
+     */
+    private final MazeCache cache = new MazeCache(CACHE_ENTRIES, CACHE_BYTES);
+    /**
+     * Picks the maze of each level by difficulty, eight candidates within
+     * four milliseconds.
+     */
+    private final LevelSelector selector = new LevelSelector(8, 4000000L, new DepthFirstGenerator(), cache);
+
+    /**
+     * Starts preparing a level of the given dimensions in the background, the
+     * maze of the level is the candidate closest to the target difficulty. A
+     * level which was requested before and not yet taken is discarded.
+     *
+     * @param mazeSize Maze dimensions (mazeSize by mazeSize).
+     * @param difficulty Target difficulty of the maze.
+     * @param seed 64 bit seed of the level.
+     * @see LevelSelector
+     */
+    public void prepare(int mazeSize, double difficulty, long seed)
+    {
+        prepare(mazeSize, 1, difficulty, seed);
+    }
+
+    /**
+     * Starts preparing a level of the given dimensions and number of floors
+     * in the background. A single floor level is picked by difficulty, the
+     * floors of a level with several floors are carved as one volume and the
+     * difficulty comes from the number of floors instead. A level which was
+     * requested before and not yet taken is discarded.
+     *
+     * @param mazeSize Maze dimensions (mazeSize by mazeSize) of every floor.
+     * @param floors Number of floors.
+     * @param difficulty Target difficulty of a single floor maze.
+     * @param seed 64 bit seed of the level.
+     * @see LevelSelector
+     * @see MazeVolume
+     */
+    public synchronized void prepare(final int mazeSize, final int floors, final double difficulty, final long seed)
+    {
+        if (pending != null)
+        {
+            pending.cancel(false);
+        }
+        pending = worker.submit(new Callable<Level>()
+        {
+            @Override
+            public Level call()
+            {
+                return build(mazeSize, floors, difficulty, seed);
+            }
+        });
+    }
+
+    /**
+     * Builds a level on the calling thread, exactly like the levels prepared
+     * in the background. Used when a background build failed.
+     *
+     * @param mazeSize Maze dimensions (mazeSize by mazeSize) of every floor.
+     * @param floors Number of floors.
+     * @param difficulty Target difficulty of a single floor maze.
+     * @param seed 64 bit seed of the level.
+     * @return The built level.
+     */
+    public Level build(int mazeSize, int floors, double difficulty, long seed)
+    {
+        if (floors > 1)
+        {
+            return new Level(mazeSize, floors, seed);
+        }
+        return new Level(selector.select(mazeSize, difficulty, seed));
+    }
+
+    /**
+     * Returns the prepared level if it is ready, without waiting. Returns null
+     * if the level is still being prepared or none was requested, the caller
+     * should try again later. A failed build is only reported once, the
+     * caller should build the level with build() or prepare it again.
+     *
+     * @return The prepared level, or null if it is not ready.
+     * @throws IllegalStateException If the level could not be built.
+     */
+    public synchronized Level poll()
+    {
+        if (pending == null || !pending.isDone())
+        {
+            return null;
+        }
+        try
+        {
+            return pending.get();
+        } catch (InterruptedException | ExecutionException e)
+        {
+            throw new IllegalStateException("Failed to prepare the next level", e);
+        } finally
+        {
+            pending = null;
+        }
+    }
+
+    /**
+     * Returns the cache of the mazes of the levels, whose counters tell how
+     * often levels are built again.
+     *
+     * @return cache Maze cache
+     * @see #cache
+     */
+    public MazeCache getCache()
+    {
+        return cache;
+    }
+}
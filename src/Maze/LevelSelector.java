@@ -0,0 +1,274 @@
+package Maze;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Picks the maze of a level by difficulty rather than by size alone. For each
+ * level a number of candidate mazes of the same size are generated in
+ * parallel, each is scored with the distance field from its end point and
+ * the candidate whose difficulty is closest to the requested difficulty
+ * is kept. Candidates which have not started when the time budget runs out
+ * are skipped, so selection never takes much longer than the budget.
+ *
+ * The difficulty of a maze is a weighted sum of three ratios to the number of
+ * cells: the length of the solution, the number of dead ends and the number
+ * of junctions (cells with three or more ways out). Long solutions, many
+ * false leads and many decisions all make a maze harder to solve, the value
+ * is roughly between 0.2 (easy) and 1 (hard).
+ *
+ * Candidates are taken from a MazeCache along with their distance fields, so
+ * the candidates of a level selected again, for example when a game is
+ * restarted, are not generated again.
+ *
+ * @see LevelPipeline
+ * @see MazeCache
+ */
+public class LevelSelector
+{
+
+    /**
+     * Weight of the dead end ratio in the difficulty.
+     */
+    private static final double DEAD_END_WEIGHT = 0.5;
+    /**
+     * Weight of the junction ratio in the difficulty.
+     */
+    private static final double JUNCTION_WEIGHT = 0.5;
+    /**
+     * Number of candidate mazes generated for each level.
+     */
+    private final int candidates;
+    /**
+     * Time budget of a selection in nanoseconds.
+     */
+    private final long budget;
+    /**
+     * Algorithm used to carve the candidates.
+     */
+    private final MazeGenerator generator;
+    /**
+     * Cache the candidates are taken from.
+     */
+    private final MazeCache cache;
+
+    /**
+     * Initializes a selector which carves the candidates with the given
+     * generator.
+     *
+     * @param candidates Number of candidate mazes generated for each level.
+     * @param budget Time budget of a selection in nanoseconds.
+     * @param generator Algorithm used to carve the candidates.
+     * @param cache Cache the candidates are taken from.
+     */
+    public LevelSelector(int candidates, long budget, MazeGenerator generator, MazeCache cache)
+    {
+        if (candidates < 1)
+        {
+            throw new IllegalArgumentException("candidates must be at least 1: " + candidates);
+        }
+        this.candidates = candidates;
+        this.budget = budget;
+        this.generator = generator;
+        this.cache = cache;
+    }
+
+    /**
+     * Generates the candidates for a level and returns the one whose
+     * difficulty is closest to the target. The candidate seeds are derived
+     * from the seed in a fixed order, so as long as every candidate is scored
+     * within the budget the same seed always selects the same maze. The first
+     * candidate is always generated, however small the budget.
+     *
+     * @param dim Maze dimensions
+     * @param target Requested difficulty.
+     * @param seed 64 bit seed of the selection.
+     * @return The selected candidate.
+     */
+    public Candidate select(final int dim, double target, long seed)
+    {
+        final long deadline = System.nanoTime() + budget;
+        MazeRandom random = new MazeRandom(seed);
+        List<Callable<Candidate>> tasks = new ArrayList<>(candidates);
+        for (int i = 0; i < candidates; i++)
+        {
+            final long candidateSeed = random.nextLong();
+            final boolean first = i == 0;
+            tasks.add(new Callable<Candidate>()
+            {
+                @Override
+                public Candidate call()
+                {
+                    if (!first && System.nanoTime() > deadline)
+                    {
+                        return null;
+                    }
+                    return new Candidate(cache.get(dim, candidateSeed, generator));
+                }
+            });
+        }
+
+        Candidate best = null;
+        for (Future<Candidate> future : ParallelMazeGenerator.POOL.invokeAll(tasks))
+        {
+            Candidate candidate;
+            try
+            {
+                candidate = future.get();
+            } catch (InterruptedException | ExecutionException e)
+            {
+                throw new IllegalStateException("Failed to generate a candidate maze", e);
+            }
+            if (candidate != null && (best == null
+                    || Math.abs(candidate.difficulty - target) < Math.abs(best.difficulty - target)))
+            {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Scores the difficulty of a generated maze.
+     *
+     * @param grid Generated grid with a start and an end point.
+     * @return Difficulty, roughly between 0.2 and 1.
+     * @see LevelSelector
+     */
+    public static double difficulty(MazeGrid grid)
+    {
+        return difficulty(grid, new DistanceField(grid));
+    }
+
+    /**
+     * Scores the difficulty of a generated maze whose distance field from the
+     * end point has already been computed. The length of the solution is the
+     * distance of the start point, plus one for the cells on it.
+     *
+     * @param grid Generated grid with a start and an end point.
+     * @param exit Distance field of the grid from its end point.
+     * @return Difficulty, roughly between 0.2 and 1.
+     * @see LevelSelector
+     */
+    public static double difficulty(MazeGrid grid, DistanceField exit)
+    {
+        int dim = grid.getDimensions();
+        double cells = (double) dim * dim;
+        int deadEnds = 0;
+        int junctions = 0;
+        for (int y = 1; y <= dim; y++)
+        {
+            for (int x = 1; x <= dim; x++)
+            {
+                int ways = 4 - Integer.bitCount(grid.walls(x, y));
+                if (ways == 1)
+                {
+                    deadEnds++;
+                } else if (ways >= 3)
+                {
+                    junctions++;
+                }
+            }
+        }
+        int solution = exit.distance(grid.getStartPoint()) + 1;
+        return solution / cells + DEAD_END_WEIGHT * deadEnds / cells + JUNCTION_WEIGHT * junctions / cells;
+    }
+
+    /**
+     * A generated candidate maze and its difficulty.
+     */
+    public static final class Candidate
+    {
+
+        /**
+         * Cache entry holding the grid of the candidate.
+         */
+        private final MazeCache.Entry entry;
+        /**
+         * Distance field of the candidate from its end point.
+         */
+        private final DistanceField exit;
+        /**
+         * Difficulty of the candidate.
+         */
+        private final double difficulty;
+
+        /**
+         * Scores a cached candidate. Its distance field is computed and
+         * stored in the entry unless an earlier selection already did.
+         *
+         * @param entry Cache entry holding the grid of the candidate.
+         */
+        private Candidate(MazeCache.Entry entry)
+        {
+            this.entry = entry;
+            DistanceField field = (DistanceField) entry.getArtefact(MazeCache.EXIT);
+            if (field == null)
+            {
+                field = new DistanceField(entry.getGrid());
+                entry.putArtefact(MazeCache.EXIT, field);
+            }
+            this.exit = field;
+            this.difficulty = difficulty(entry.getGrid(), exit);
+        }
+
+        /**
+         * Returns the generated grid of the candidate, which is shared by the
+         * cache and must not be modified.
+         *
+         * @return Generated grid
+         */
+        public MazeGrid getGrid()
+        {
+            return entry.getGrid();
+        }
+
+        /**
+         * Returns the seed the candidate was generated from.
+         *
+         * @return 64 bit seed
+         */
+        public long getSeed()
+        {
+            return entry.getSeed();
+        }
+
+        /**
+         * Returns the cache entry of the candidate, where artefacts derived
+         * from its grid are shared.
+         *
+         * @return entry Cache entry
+         * @see #entry
+         */
+        public MazeCache.Entry getEntry()
+        {
+            return entry;
+        }
+
+        /**
+         * Returns the difficulty of the candidate.
+         *
+         * @return difficulty Difficulty
+         * @see #difficulty
+         */
+        public double getDifficulty()
+        {
+            return difficulty;
+        }
+
+        /**
+         * Returns the distance field of the candidate from its end point,
+         * computed when the candidate was scored.
+         *
+         * @return exit Distance field
+         * @see #exit
+         */
+        public DistanceField getExit()
+        {
+            return exit;
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package Maze;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Maze stored in a memory-mapped file instead of the Java heap, for mazes far
+ * larger than the heap (100000 by 100000 cells and beyond). Only the pages of
+ * the file that are actually read or written are brought into memory by the
+ * operating system, so a viewport of the maze can be drawn or collided with
+ * without loading the rest of it.
+ *
+ * The file has a fixed layout: a 16 byte header (magic number, format version
+ * and maze dimensions N) followed by N rows of ceil(N / 4) bytes. Every cell
+ * takes two bits, bit 0 set if its east wall has been destroyed and bit 1 set
+ * if its south wall has been destroyed, four cells per byte starting at the
+ * lowest bits. The north and west walls of a cell are the south and east
+ * walls of its neighbours and the outer walls always exist. A new file is
+ * all zeros, a completely closed maze, so creating even a huge file writes
+ * nothing but the header. The file is mapped in segments of whole rows since
+ * a single mapping is limited to 2 GB.
+ *
+ * Cells are addressed by row x and column y from 1 to N like in MazeGrid.
+ * Writing is not thread-safe, reading is.
+ *
+ * @see MazeGrid
+ */
+public class MappedMaze implements Closeable
+{
+
+    /**
+     * Magic number at the start of every maze file ("MAZE").
+     */
+    private static final int MAGIC = 0x4D415A45;
+    /**
+     * Version of the file layout.
+     */
+    private static final int FORMAT = 1;
+    /**
+     * Size of the header in bytes.
+     */
+    private static final int HEADER_BYTES = 16;
+    /**
+     * Maximum size of a single mapped segment in bytes.
+     */
+    private static final long SEGMENT_BYTES = 1L << 30;
+    /**
+     * Bit of a cell which is set when its east wall has been destroyed.
+     */
+    private static final int EAST_OPEN = 1;
+    /**
+     * Bit of a cell which is set when its south wall has been destroyed.
+     */
+    private static final int SOUTH_OPEN = 2;
+    /**
+     * File holding the maze.
+     */
+    private final RandomAccessFile file;
+    /**
+     * Maze dimensions (N by N).
+     */
+    private final int dimensions;
+    /**
+     * Number of bytes in each row.
+     */
+    private final int rowBytes;
+    /**
+     * Number of rows in each mapped segment.
+     */
+    private final int rowsPerSegment;
+    /**
+     * Mapped segments of the rows.
+     */
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * Maps a maze file which has been opened.
+     *
+     * @param file Maze file
+     * @param dim Maze dimensions
+     * @param mode Mapping mode
+     * @throws IOException If the file can not be mapped.
+     */
+    private MappedMaze(RandomAccessFile file, int dim, FileChannel.MapMode mode) throws IOException
+    {
+        this.file = file;
+        this.dimensions = dim;
+        this.rowBytes = (dim + 3) >>> 2;
+        this.rowsPerSegment = (int) Math.max(1, SEGMENT_BYTES / rowBytes);
+        this.segments = new MappedByteBuffer[(dim + rowsPerSegment - 1) / rowsPerSegment];
+
+        FileChannel channel = file.getChannel();
+        for (int i = 0; i < segments.length; i++)
+        {
+            int rows = Math.min(rowsPerSegment, dim - i * rowsPerSegment);
+            long position = HEADER_BYTES + (long) i * rowsPerSegment * rowBytes;
+            segments[i] = channel.map(mode, position, (long) rows * rowBytes);
+        }
+    }
+
+    /**
+     * Creates a new maze file of the given dimensions in which every cell is
+     * completely closed, replacing any existing file. The file is sparse where
+     * the file system allows it, so no disk space is used for rows which are
+     * never written.
+     *
+     * @param path Maze file to create.
+     * @param dim Maze dimensions (N)
+     * @return The mapped maze, open for reading and writing.
+     * @throws IOException If the file can not be created.
+     */
+    public static MappedMaze create(File path, int dim) throws IOException
+    {
+        if (dim < 1)
+        {
+            throw new IllegalArgumentException("dimensions must be positive: " + dim);
+        }
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try
+        {
+            file.setLength(0);
+            file.setLength(HEADER_BYTES + (long) dim * ((dim + 3) >>> 2));
+            file.writeInt(MAGIC);
+            file.writeInt(FORMAT);
+            file.writeInt(dim);
+            file.writeInt(0);
+            return new MappedMaze(file, dim, FileChannel.MapMode.READ_WRITE);
+        } catch (IOException | RuntimeException e)
+        {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an existing maze file.
+     *
+     * @param path Maze file to open.
+     * @param writable True to allow the maze to be modified.
+     * @return The mapped maze.
+     * @throws IOException If the file can not be read or is not a maze file.
+     */
+    public static MappedMaze open(File path, boolean writable) throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile(path, writable ? "rw" : "r");
+        try
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && file.getChannel().read(header) >= 0)
+            {
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != FORMAT)
+            {
+                throw new IOException("not a maze file: " + path);
+            }
+            int dim = header.getInt();
+            if (dim < 1 || file.length() < HEADER_BYTES + (long) dim * ((dim + 3) >>> 2))
+            {
+                throw new IOException("truncated maze file: " + path);
+            }
+            return new MappedMaze(file, dim, writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY);
+        } catch (IOException | RuntimeException e)
+        {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the maze dimensions (N).
+     *
+     * @return dimensions Maze dimension integer (N)
+     * @see #dimensions
+     */
+    public int getDimensions()
+    {
+        return dimensions;
+    }
+
+    /**
+     * Returns the wall bits of the cell located at row x and column y, cells
+     * outside of the maze are completely closed.
+     *
+     * @param x Row
+     * @param y Column
+     * @return Wall bits of the cell.
+     */
+    public int walls(int x, int y)
+    {
+        if (x < 1 || y < 1 || x > dimensions || y > dimensions)
+        {
+            return MazeGrid.ALL_WALLS;
+        }
+        int walls = 0;
+        int own = passages(x, y);
+        if ((own & EAST_OPEN) == 0)
+        {
+            walls |= MazeGrid.EAST;
+        }
+        if ((own & SOUTH_OPEN) == 0)
+        {
+            walls |= MazeGrid.SOUTH;
+        }
+        if (y == 1 || (passages(x, y - 1) & SOUTH_OPEN) == 0)
+        {
+            walls |= MazeGrid.NORTH;
+        }
+        if (x == 1 || (passages(x - 1, y) & EAST_OPEN) == 0)
+        {
+            walls |= MazeGrid.WEST;
+        }
+        return walls;
+    }
+
+    /**
+     * Returns a boolean that represents whether a wall of the cell located at
+     * row x and column y exists.
+     *
+     * @param x Row
+     * @param y Column
+     * @param wall Wall bit
+     * @return True if the wall exists.
+     */
+    public boolean hasWall(int x, int y, int wall)
+    {
+        return (walls(x, y) & wall) != 0;
+    }
+
+    /**
+     * Destroys the wall between the cell located at row x and column y and its
+     * neighbour, the outer walls of the maze can not be destroyed.
+     *
+     * @param x Row
+     * @param y Column
+     * @param wall Wall bit
+     */
+    public void carve(int x, int y, int wall)
+    {
+        //North and west walls are stored as the south and east walls of the
+        //neighbour.
+        int passage = (wall == MazeGrid.EAST || wall == MazeGrid.WEST) ? EAST_OPEN : SOUTH_OPEN;
+        if (wall == MazeGrid.NORTH)
+        {
+            y--;
+        } else if (wall == MazeGrid.WEST)
+        {
+            x--;
+        }
+        if (x < 1 || y < 1 || x > dimensions || y > dimensions
+                || (passage == EAST_OPEN ? x : y) == dimensions)
+        {
+            throw new IndexOutOfBoundsException("outer wall of the maze at " + x + ", " + y);
+        }
+        setPassages(x, y, passages(x, y) | passage);
+    }
+
+    /**
+     * Copies the east and south walls of a rectangular region of a grid into
+     * the maze, the region's cell (1, 1) going to the cell located at row x
+     * and column y. The walls on the east and south edges of the region are
+     * copied too, the ones on the north and west edges belong to the cells
+     * beyond the region and are left alone.
+     *
+     * @param grid Grid to copy from.
+     * @param width Number of cells of the region along x.
+     * @param height Number of cells of the region along y.
+     * @param x Row of the region's first cell in the maze.
+     * @param y Column of the region's first cell in the maze.
+     */
+    public void write(MazeGrid grid, int width, int height, int x, int y)
+    {
+        if (x < 1 || y < 1 || x + width - 1 > dimensions || y + height - 1 > dimensions)
+        {
+            throw new IndexOutOfBoundsException("region " + width + " x " + height + " at " + x + ", " + y
+                    + " does not fit a maze of " + dimensions);
+        }
+        for (int j = 1; j <= height; j++)
+        {
+            int cell = grid.index(1, j);
+            for (int i = 1; i <= width; i++, cell++)
+            {
+                int passages = (grid.hasWall(cell, MazeGrid.EAST) || x + i - 1 == dimensions ? 0 : EAST_OPEN)
+                        | (grid.hasWall(cell, MazeGrid.SOUTH) || y + j - 1 == dimensions ? 0 : SOUTH_OPEN);
+                setPassages(x + i - 1, y + j - 1, passages);
+            }
+        }
+    }
+
+    /**
+     * Copies the walls of the square window of the maze whose north west cell
+     * is located at row x and column y into a grid, so that the window can be
+     * drawn, collided with and solved like any other maze. Only the rows of
+     * the file covered by the window are touched. Cells of the window beyond
+     * the maze are completely closed.
+     *
+     * @param x Row of the window's first cell.
+     * @param y Column of the window's first cell.
+     * @param grid Grid the size of the window.
+     */
+    public void copyViewport(int x, int y, MazeGrid grid)
+    {
+        int dim = grid.getDimensions();
+        for (int j = 1; j <= dim; j++)
+        {
+            int cell = grid.index(1, j);
+            for (int i = 1; i <= dim; i++, cell++)
+            {
+                grid.setWalls(cell, walls(x + i - 1, y + j - 1));
+                grid.setVisited(cell, true);
+            }
+        }
+        grid.markChanged();
+    }
+
+    /**
+     * Generates a perfect maze covering the whole file. The maze is carved
+     * tile by tile with the Depth First Search in a single heap grid the size
+     * of a tile, which is copied into the file and reused for the next tile,
+     * and the tiles are then joined by opening one door in a spanning tree of
+     * their seams, picked as ParallelMazeGenerator does. Heap use is bounded
+     * by the tile size however large the maze is.
+     *
+     * @param tileSize Width and height of a tile in cells, it must divide the
+     * maze dimensions.
+     * @param seed 64 bit seed of the maze.
+     * @see ParallelMazeGenerator#doors(int, int, MazeRandom)
+     */
+    public void generate(int tileSize, long seed)
+    {
+        if (tileSize < 1 || dimensions % tileSize != 0)
+        {
+            throw new IllegalArgumentException("tileSize must divide the maze dimensions " + dimensions + ": "
+                    + tileSize);
+        }
+        MazeRandom random = new MazeRandom(seed);
+        int tiles = dimensions / tileSize;
+        MazeGrid grid = new MazeGrid(tileSize);
+        for (int t = 0; t < tiles * tiles; t++)
+        {
+            if (t > 0)
+            {
+                grid.reset();
+            }
+            DepthFirstGenerator.carveRegion(grid, 1, 1, tileSize, tileSize, grid.index(1, 1), random.split());
+            write(grid, tileSize, tileSize, (t % tiles) * tileSize + 1, (t / tiles) * tileSize + 1);
+        }
+
+        int[] doors = ParallelMazeGenerator.doors(dimensions, tileSize, random);
+        for (int i = 0; i < doors.length; i += 3)
+        {
+            carve(doors[i], doors[i + 1], doors[i + 2]);
+        }
+    }
+
+    /**
+     * Writes the changes made to the maze out to the file.
+     */
+    public void flush()
+    {
+        for (MappedByteBuffer segment : segments)
+        {
+            segment.force();
+        }
+    }
+
+    /**
+     * Closes the file. The mapped segments stay valid until they are garbage
+     * collected, but the maze must not be used afterwards.
+     *
+     * @throws IOException If the file can not be closed.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        file.close();
+    }
+
+    /**
+     * Returns the passage bits (EAST_OPEN, SOUTH_OPEN) of a cell.
+     *
+     * @param x Row
+     * @param y Column
+     * @return Passage bits of the cell.
+     */
+    private int passages(int x, int y)
+    {
+        int row = y - 1;
+        int b = segments[row / rowsPerSegment].get((row % rowsPerSegment) * rowBytes + ((x - 1) >>> 2));
+        return (b >>> (((x - 1) & 3) << 1)) & 3;
+    }
+
+    /**
+     * Replaces the passage bits (EAST_OPEN, SOUTH_OPEN) of a cell.
+     *
+     * @param x Row
+     * @param y Column
+     * @param passages Passage bits of the cell.
+     */
+    private void setPassages(int x, int y, int passages)
+    {
+        int row = y - 1;
+        MappedByteBuffer segment = segments[row / rowsPerSegment];
+        int index = (row % rowsPerSegment) * rowBytes + ((x - 1) >>> 2);
+        int shift = ((x - 1) & 3) << 1;
+        segment.put(index, (byte) ((segment.get(index) & ~(3 << shift)) | (passages << shift)));
+    }
+}
@@ -0,0 +1,303 @@
+package Maze;
+
+import java.util.PriorityQueue;
+
+/**
+ * Command line benchmark which measures how quickly mazes are generated. Each
+ * maze size given as an argument (N for an N by N maze) is generated a number
+ * of times with every MazeGenerator, inside a circular MazeMask, by streaming
+ * the rows of an EllerMaze and on bare bitboards, and the best generation
+ * rate in cells per second is reported so that the algorithms can be compared
+ * on the same hardware, together with the MazeStats of the last maze each
+ * generator carved. The A* solver is then timed against an A* written
+ * the usual way, with node objects in a PriorityQueue, on the same maze, and
+ * the distance field is timed both sequentially and in parallel, and so is
+ * the computation of the MazeStats.
+ * Large mazes require a correspondingly large heap (-Xmx).
+ */
+public class MazeBenchmark
+{
+
+    /**
+     * Maze sizes used when no arguments are given.
+     */
+    private static final int[] DEFAULT_SIZES =
+    {
+        256, 1024, 4096
+    };
+    /**
+     * Number of timed runs per maze size, the best run is reported.
+     */
+    private static final int RUNS = 3;
+
+    /**
+     * Runs the benchmark for the maze sizes given as arguments, or for the
+     * default sizes if none are given.
+     *
+     * @param args Maze dimensions (N) to benchmark.
+     */
+    public static void main(String[] args)
+    {
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0)
+        {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        MazeGenerator[] generators =
+        {
+            new DepthFirstGenerator(), new ParallelMazeGenerator(), new KruskalGenerator(),
+            new PrimGenerator(), new WilsonGenerator(), new HuntAndKillGenerator(),
+            new BinaryTreeGenerator(), new SidewinderGenerator(), new RecursiveDivisionGenerator()
+        };
+
+        for (int dim : sizes)
+        {
+            for (MazeGenerator generator : generators)
+            {
+                long best = Long.MAX_VALUE;
+                MazeGrid generated = null;
+                for (int run = 0; run < RUNS; run++)
+                {
+                    long start = System.nanoTime();
+                    GenMaze maze = new GenMaze(dim, 0, 0, generator, run);
+                    best = Math.min(best, System.nanoTime() - start);
+                    generated = maze.getGrid();
+                }
+                report(generator.getName(), dim, best);
+                System.out.printf("%-22s %s%n", "", new MazeStats(generated));
+            }
+
+            //The Depth First Search inside a circular mask, the blocked
+            //cells cost nothing in its inner loop.
+            MazeMask circle = MazeMask.circle(dim);
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++)
+            {
+                long start = System.nanoTime();
+                GenMaze maze = new GenMaze(circle, 0, 0, run, false);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            report("dfs circle mask", dim, best);
+
+            best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++)
+            {
+                long start = System.nanoTime();
+                EllerMaze rows = new EllerMaze(dim, dim);
+                while (rows.hasNext())
+                {
+                    rows.next();
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            report("eller", dim, best);
+
+            //The bitboard generators on their own, without the conversion
+            //into a MazeGrid.
+            BitboardMaze bitboard = new BitboardMaze(dim, dim);
+            best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++)
+            {
+                bitboard.reset();
+                long start = System.nanoTime();
+                BinaryTreeGenerator.carve(bitboard, new MazeRandom(run));
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            report("binary-tree bitboard", dim, best);
+
+            best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++)
+            {
+                bitboard.reset();
+                long start = System.nanoTime();
+                SidewinderGenerator.carve(bitboard, new MazeRandom(run));
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            report("sidewinder bitboard", dim, best);
+
+            //Solving from the start point to the end point, the rate is in
+            //cells of the maze per second like the generators.
+            MazeGrid grid = new GenMaze(dim, 0, 0, new DepthFirstGenerator(), 0).getGrid();
+            MazeSolver solver = new MazeSolver(grid);
+            best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++)
+            {
+                long start = System.nanoTime();
+                solver.solve();
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            report("a* solver", dim, best);
+
+            best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++)
+            {
+                long start = System.nanoTime();
+                int length = solveWithObjects(grid);
+                best = Math.min(best, System.nanoTime() - start);
+                if (length != solver.getLength())
+                {
+                    throw new IllegalStateException("solvers disagree: " + length + " != " + solver.getLength());
+                }
+            }
+            report("a* priority queue", dim, best);
+
+            DistanceField field = new DistanceField(grid);
+            best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++)
+            {
+                long start = System.nanoTime();
+                field.compute(grid.getEndPoint());
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            report("bfs", dim, best);
+
+            best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++)
+            {
+                long start = System.nanoTime();
+                field.computeParallel(grid.getEndPoint());
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            report("bfs parallel", dim, best);
+
+            best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++)
+            {
+                long start = System.nanoTime();
+                MazeStats stats = new MazeStats(grid);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            report("maze stats", dim, best);
+        }
+    }
+
+    /**
+     * Solves a maze from its start point to its end point with an A* built
+     * from node objects and a PriorityQueue, as the baseline of the A*
+     * solver.
+     *
+     * @param grid Generated grid.
+     * @return Number of cells of the path, 0 if there is none.
+     * @see MazeSolver
+     */
+    private static int solveWithObjects(MazeGrid grid)
+    {
+        int source = grid.getStartPoint();
+        int target = grid.getEndPoint();
+        int tx = grid.getX(target);
+        int ty = grid.getY(target);
+        int[] walls =
+        {
+            MazeGrid.NORTH, MazeGrid.EAST, MazeGrid.SOUTH, MazeGrid.WEST
+        };
+        int[] cost = new int[grid.size() * grid.size()];
+        boolean[] closed = new boolean[cost.length];
+        PriorityQueue<Node> open = new PriorityQueue<>();
+        open.add(new Node(source, 0, Math.abs(grid.getX(source) - tx) + Math.abs(grid.getY(source) - ty), null));
+        while (!open.isEmpty())
+        {
+            Node node = open.poll();
+            if (closed[node.cell])
+            {
+                continue;
+            }
+            closed[node.cell] = true;
+            if (node.cell == target)
+            {
+                int length = 0;
+                for (Node n = node; n != null; n = n.parent)
+                {
+                    length++;
+                }
+                return length;
+            }
+            for (int wall : walls)
+            {
+                if (grid.hasWall(node.cell, wall))
+                {
+                    continue;
+                }
+                int next = grid.neighbour(node.cell, wall);
+                int g = node.g + 1;
+                if (!closed[next] && (cost[next] == 0 || g < cost[next]))
+                {
+                    cost[next] = g;
+                    int h = Math.abs(grid.getX(next) - tx) + Math.abs(grid.getY(next) - ty);
+                    open.add(new Node(next, g, h, node));
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Prints a single benchmark result as cells per second.
+     *
+     * @param name Name of the measured operation.
+     * @param dim Maze dimension (N).
+     * @param nanos Best measured time in nanoseconds.
+     */
+    private static void report(String name, int dim, long nanos)
+    {
+        double cells = (double) dim * dim;
+        double seconds = nanos / 1e9;
+        System.out.printf("%-22s %6d x %-6d %10.1f ms %14.0f cells/s%n", name, dim, dim, seconds * 1e3, cells / seconds);
+    }
+
+    /**
+     * Search node of the PriorityQueue A* baseline.
+     */
+    private static final class Node implements Comparable<Node>
+    {
+
+        /**
+         * Cell number
+         */
+        private final int cell;
+        /**
+         * Number of moves from the source.
+         */
+        private final int g;
+        /**
+         * Estimated number of moves to the target.
+         */
+        private final int h;
+        /**
+         * Node the cell was reached from, null for the source.
+         */
+        private final Node parent;
+
+        /**
+         * Initializes a node.
+         *
+         * @param cell Cell number
+         * @param g Number of moves from the source.
+         * @param h Estimated number of moves to the target.
+         * @param parent Node the cell was reached from.
+         */
+        Node(int cell, int g, int h, Node parent)
+        {
+            this.cell = cell;
+            this.g = g;
+            this.h = h;
+            this.parent = parent;
+        }
+
+        @Override
+        public int compareTo(Node other)
+        {
+            int f = g + h;
+            int otherF = other.g + other.h;
+            if (f != otherF)
+            {
+                return f < otherF ? -1 : 1;
+            }
+            return h < other.h ? -1 : (h == other.h ? 0 : 1);
+        }
+    }
+}
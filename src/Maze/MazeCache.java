@@ -0,0 +1,412 @@
+package Maze;
+
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of generated mazes with least recently used (LRU) eviction.
+ * Mazes are keyed by their dimensions, seed and generator name, which is
+ * enough to reproduce a maze exactly, so a maze requested again for a
+ * restart, a replay or another session is handed out instead of being
+ * generated from scratch. The cache is bounded both by the number of entries
+ * and by an estimate of the memory they use.
+ *
+ * Every entry holds a shared grid plus any artefacts derived from it, such
+ * as the distance field from the end point and the pre-rendered image of the
+ * maze stored by the levels. The wall bits of the grid are the wall geometry
+ * of the maze: collision derives the wall rectangles of a cell from them and
+ * the pre-rendered image holds the drawn walls. Entries are shared between
+ * all callers, so the grid and the artefacts must be treated as read-only:
+ * callers which need to modify the maze, such as a game in progress, must
+ * work on a copy of the grid.
+ *
+ * @see MazeGrid#copy()
+ * @see LevelPipeline
+ */
+public class MazeCache
+{
+
+    /**
+     * Name of the artefact holding the DistanceField of a maze from its end
+     * point.
+     */
+    public static final String EXIT = "exit";
+    /**
+     * Name of the artefact holding the BufferedImage returned by
+     * GraphicsMaze.getLayer() for a maze.
+     */
+    public static final String LAYER = "layer";
+
+    /**
+     * Maximum number of entries held by the cache.
+     */
+    private final int maxEntries;
+    /**
+     * Maximum estimated memory, in bytes, used by the entries of the cache.
+     */
+    private final long maxBytes;
+    /**
+     * Entries in access order, the least recently used entry comes first.
+     */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * Estimated memory, in bytes, used by the entries of the cache.
+     */
+    private long bytes;
+    /**
+     * Number of requests answered from the cache.
+     */
+    private long hits;
+    /**
+     * Number of requests which had to generate a maze.
+     */
+    private long misses;
+    /**
+     * Number of entries removed to stay within the bounds of the cache.
+     */
+    private long evictions;
+
+    /**
+     * Initializes an empty cache with the given bounds.
+     *
+     * @param maxEntries Maximum number of entries.
+     * @param maxBytes Maximum estimated memory used by the entries in bytes.
+     */
+    public MazeCache(int maxEntries, long maxBytes)
+    {
+        if (maxEntries < 1 || maxBytes < 1)
+        {
+            throw new IllegalArgumentException("cache bounds must be positive: " + maxEntries + ", " + maxBytes);
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached maze with the given dimensions, seed and generator,
+     * generating and caching it first if it is not cached. The maze is
+     * generated exactly as GenMaze generates it from the same arguments.
+     * Generation happens outside of the cache's lock, two threads missing on
+     * the same maze at the same time may both generate it but only one copy
+     * is kept.
+     *
+     * @param dim Maze dimensions
+     * @param seed 64 bit seed of the maze.
+     * @param generator Algorithm used to carve the maze.
+     * @return Cache entry holding the shared grid.
+     */
+    public Entry get(int dim, long seed, MazeGenerator generator)
+    {
+        Key key = new Key(dim, seed, generator.getName());
+        synchronized (this)
+        {
+            Entry entry = entries.get(key);
+            if (entry != null)
+            {
+                hits++;
+                return entry;
+            }
+            misses++;
+        }
+
+        MazeGrid grid = new GenMaze(dim, 0, 0, generator, seed).getGrid();
+        synchronized (this)
+        {
+            Entry entry = entries.get(key);
+            if (entry == null)
+            {
+                entry = new Entry(key, grid);
+                entries.put(key, entry);
+                entry.held = true;
+                bytes += entry.bytes;
+                evict();
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Returns the number of requests answered from the cache.
+     *
+     * @return hits Hit count
+     * @see #hits
+     */
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * Returns the number of requests which had to generate a maze.
+     *
+     * @return misses Miss count
+     * @see #misses
+     */
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries removed to stay within the bounds of the
+     * cache.
+     *
+     * @return evictions Eviction count
+     * @see #evictions
+     */
+    public synchronized long getEvictions()
+    {
+        return evictions;
+    }
+
+    /**
+     * Returns the estimated memory used by the entries of the cache.
+     *
+     * @return bytes Memory estimate in bytes.
+     * @see #bytes
+     */
+    public synchronized long getBytes()
+    {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of entries in the cache.
+     *
+     * @return Entry count
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Removes every entry from the cache, the counters are kept.
+     */
+    public synchronized void clear()
+    {
+        for (Entry entry : entries.values())
+        {
+            entry.held = false;
+        }
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Removes least recently used entries until the cache is within its
+     * bounds. The most recently used entry is always kept, even if it alone
+     * is larger than the memory bound.
+     */
+    private void evict()
+    {
+        Iterator<Entry> it = entries.values().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && entries.size() > 1)
+        {
+            Entry eldest = it.next();
+            it.remove();
+            eldest.held = false;
+            bytes -= eldest.bytes;
+            evictions++;
+        }
+    }
+
+    /**
+     * Returns an estimate of the memory used by an artefact. Arrays, images
+     * and distance fields are measured, other objects are counted as a small
+     * fixed size.
+     *
+     * @param artefact Artefact to measure.
+     * @return Estimated size in bytes.
+     */
+    private static long sizeOf(Object artefact)
+    {
+        if (artefact instanceof int[])
+        {
+            return 4L * ((int[]) artefact).length;
+        } else if (artefact instanceof long[])
+        {
+            return 8L * ((long[]) artefact).length;
+        } else if (artefact instanceof byte[])
+        {
+            return ((byte[]) artefact).length;
+        } else if (artefact instanceof BufferedImage)
+        {
+            BufferedImage image = (BufferedImage) artefact;
+            return 4L * image.getWidth() * image.getHeight();
+        } else if (artefact instanceof DistanceField)
+        {
+            return ((DistanceField) artefact).byteSize();
+        }
+        return 64;
+    }
+
+    /**
+     * Identifies a maze by its dimensions, seed and generator name.
+     */
+    private static final class Key
+    {
+
+        /**
+         * Maze dimensions.
+         */
+        private final int dim;
+        /**
+         * 64 bit seed of the maze.
+         */
+        private final long seed;
+        /**
+         * Name of the generator that carved the maze.
+         */
+        private final String generator;
+
+        /**
+         * Initializes a key.
+         *
+         * @param dim Maze dimensions
+         * @param seed 64 bit seed of the maze.
+         * @param generator Generator name
+         */
+        Key(int dim, long seed, String generator)
+        {
+            this.dim = dim;
+            this.seed = seed;
+            this.generator = generator;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+            Key other = (Key) o;
+            return dim == other.dim && seed == other.seed && generator.equals(other.generator);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * (31 * dim + (int) (seed ^ (seed >>> 32))) + generator.hashCode();
+        }
+    }
+
+    /**
+     * A cached maze: the shared, read-only grid and the artefacts derived from
+     * it.
+     */
+    public final class Entry
+    {
+
+        /**
+         * Key of this entry.
+         */
+        private final Key key;
+        /**
+         * Shared grid, must not be modified.
+         */
+        private final MazeGrid grid;
+        /**
+         * Artefacts derived from the grid, by name.
+         */
+        private final Map<String, Object> artefacts = new HashMap<>();
+        /**
+         * Estimated memory used by the grid and the artefacts.
+         */
+        private long bytes;
+        /**
+         * True while the entry is held by the cache, false once it has been
+         * evicted or cleared. Tells putArtefact() whether to count the
+         * artefact against the cache without looking the entry up, which
+         * would make it the most recently used one.
+         */
+        private boolean held;
+
+        /**
+         * Initializes an entry for a generated grid.
+         *
+         * @param key Key of the entry.
+         * @param grid Generated grid.
+         */
+        private Entry(Key key, MazeGrid grid)
+        {
+            this.key = key;
+            this.grid = grid;
+            this.bytes = grid.byteSize();
+        }
+
+        /**
+         * Returns the shared grid, which must not be modified.
+         *
+         * @return grid Shared grid
+         * @see #grid
+         */
+        public MazeGrid getGrid()
+        {
+            return grid;
+        }
+
+        /**
+         * Returns the seed of the cached maze.
+         *
+         * @return 64 bit seed
+         */
+        public long getSeed()
+        {
+            return key.seed;
+        }
+
+        /**
+         * Returns the name of the generator of the cached maze.
+         *
+         * @return Generator name
+         */
+        public String getGenerator()
+        {
+            return key.generator;
+        }
+
+        /**
+         * Returns an artefact derived from the grid, or null if no artefact
+         * with that name has been stored.
+         *
+         * @param name Name of the artefact.
+         * @return The artefact, or null.
+         */
+        public Object getArtefact(String name)
+        {
+            synchronized (MazeCache.this)
+            {
+                return artefacts.get(name);
+            }
+        }
+
+        /**
+         * Stores an artefact derived from the grid, the artefact is shared by
+         * every user of the entry and must not be modified afterwards. The
+         * memory estimate of the cache grows accordingly, which may evict
+         * other entries.
+         *
+         * @param name Name of the artefact.
+         * @param artefact The artefact.
+         */
+        public void putArtefact(String name, Object artefact)
+        {
+            synchronized (MazeCache.this)
+            {
+                Object old = artefacts.put(name, artefact);
+                long delta = sizeOf(artefact) - (old == null ? 0 : sizeOf(old));
+                bytes += delta;
+                if (held)
+                {
+                    MazeCache.this.bytes += delta;
+                    evict();
+                }
+            }
+        }
+    }
+}
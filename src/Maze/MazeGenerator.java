@@ -0,0 +1,38 @@
+package Maze;
+
+/**
+ * MazeGenerator specification that all maze generating algorithms must meet
+ * in order for GenMaze to delegate the carving of a maze to them. Every
+ * generator writes into the same MazeGrid representation, so the mazes they
+ * produce can be drawn, collided with and solved in the same way regardless
+ * of the algorithm that produced them. Generators take all of their
+ * randomness from the MazeRandom they are given, so a maze can be reproduced
+ * exactly from its seed.
+ *
+ * @see GenMaze
+ * @see MazeGrid
+ */
+public interface MazeGenerator
+{
+
+    /**
+     * Returns a short name which identifies the algorithm and its settings.
+     * Two generators with the same name must produce the same maze from the
+     * same seed, so the name can be used to reproduce or cache a maze.
+     *
+     * @return Generator name
+     */
+    public String getName();
+
+    /**
+     * Carves a perfect maze (exactly one path between any two cells) into the
+     * grid. The grid must be completely closed and unvisited, a freshly
+     * initialized MazeGrid, and every maze cell is visited once this returns.
+     *
+     * @param grid Grid to carve the maze into.
+     * @param start Cell number where the algorithm starts carving.
+     * @param random Source of randomness for this generation, the same seed
+     * must always produce the same maze.
+     */
+    public void generate(MazeGrid grid, int start, MazeRandom random);
+}
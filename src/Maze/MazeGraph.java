@@ -0,0 +1,436 @@
+package Maze;
+
+import java.util.Arrays;
+
+/**
+ * Maze on any topology, stored as a graph of cells in primitive arrays. The
+ * adjacency of the cells is kept in compressed sparse row (CSR) form: the
+ * neighbours of cell c are targets[offsets[c]] to targets[offsets[c + 1] - 1],
+ * and edges[slot] gives the edge joining the cell to the neighbour in that
+ * slot. Every edge is either open (a passage) or closed (a wall), one bit per
+ * edge. Generators and solvers work on this single model regardless of the
+ * shape of the cells, and traversing it allocates nothing and walks
+ * contiguous arrays, which matters at millions of cells. The game itself
+ * still plays square mazes on MazeGrid.
+ *
+ * Every cell is also a polygon, stored in the same CSR form: side i of cell c
+ * runs from vertex sides[c] + i to the next vertex of the cell, and
+ * sideEdges[slot] gives the edge that the side belongs to, or -1 if the side
+ * is on the outer border. The polygons give the shape of the walls and the
+ * extent of the maze.
+ *
+ * Graphs are built by the factories in Topologies.
+ *
+ * @see Topologies
+ * @see MazeGraphBuilder
+ */
+public class MazeGraph
+{
+
+    /**
+     * First neighbour slot of every cell, plus the total number of slots.
+     */
+    private final int[] offsets;
+    /**
+     * Neighbouring cell of every neighbour slot.
+     */
+    private final int[] targets;
+    /**
+     * Edge of every neighbour slot.
+     */
+    private final int[] edges;
+    /**
+     * First side (vertex) slot of every cell, plus the total number of slots.
+     */
+    private final int[] sides;
+    /**
+     * x coordinate of every vertex.
+     */
+    private final float[] vertexX;
+    /**
+     * y coordinate of every vertex.
+     */
+    private final float[] vertexY;
+    /**
+     * Edge of every side, -1 for sides on the outer border.
+     */
+    private final int[] sideEdges;
+    /**
+     * Side slot (in the lower numbered cell) where every edge is drawn.
+     */
+    private final int[] edgeSides;
+    /**
+     * Open bit of every edge.
+     */
+    private final long[] open;
+    /**
+     * Number of edges.
+     */
+    private final int edgeCount;
+    /**
+     * Largest number of neighbours of any cell.
+     */
+    private final int maxDegree;
+    /**
+     * Width of the area covered by the cells.
+     */
+    private final float width;
+    /**
+     * Height of the area covered by the cells.
+     */
+    private final float height;
+
+    /**
+     * Initializes a graph from the arrays assembled by MazeGraphBuilder, every
+     * edge starts closed.
+     *
+     * @param offsets First neighbour slot of every cell.
+     * @param targets Neighbouring cell of every neighbour slot.
+     * @param edges Edge of every neighbour slot.
+     * @param sides First side slot of every cell.
+     * @param vertexX x coordinate of every vertex.
+     * @param vertexY y coordinate of every vertex.
+     * @param sideEdges Edge of every side, -1 on the border.
+     * @param edgeSides Side slot where every edge is drawn.
+     * @param maxDegree Largest number of neighbours of any cell.
+     */
+    MazeGraph(int[] offsets, int[] targets, int[] edges, int[] sides, float[] vertexX, float[] vertexY,
+            int[] sideEdges, int[] edgeSides, int maxDegree)
+    {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.edges = edges;
+        this.sides = sides;
+        this.vertexX = vertexX;
+        this.vertexY = vertexY;
+        this.sideEdges = sideEdges;
+        this.edgeSides = edgeSides;
+        this.edgeCount = edgeSides.length;
+        this.maxDegree = maxDegree;
+        this.open = new long[(edgeCount + 63) >>> 6];
+
+        float w = 0;
+        float h = 0;
+        for (int v = 0; v < vertexX.length; v++)
+        {
+            w = Math.max(w, vertexX[v]);
+            h = Math.max(h, vertexY[v]);
+        }
+        this.width = w;
+        this.height = h;
+    }
+
+    /**
+     * Returns the number of cells.
+     *
+     * @return Cell count
+     */
+    public int getCellCount()
+    {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Returns the number of edges (pairs of neighbouring cells).
+     *
+     * @return edgeCount Edge count
+     * @see #edgeCount
+     */
+    public int getEdgeCount()
+    {
+        return edgeCount;
+    }
+
+    /**
+     * Returns the largest number of neighbours of any cell.
+     *
+     * @return maxDegree Maximum degree
+     * @see #maxDegree
+     */
+    public int getMaxDegree()
+    {
+        return maxDegree;
+    }
+
+    /**
+     * Returns the width of the area covered by the cells, in the units of the
+     * vertex coordinates.
+     *
+     * @return width Width
+     * @see #width
+     */
+    public float getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * Returns the height of the area covered by the cells, in the units of the
+     * vertex coordinates.
+     *
+     * @return height Height
+     * @see #height
+     */
+    public float getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * Returns the first neighbour slot of a cell.
+     *
+     * @param cell Cell number
+     * @return First neighbour slot
+     */
+    public int firstNeighbour(int cell)
+    {
+        return offsets[cell];
+    }
+
+    /**
+     * Returns the neighbour slot after the last neighbour slot of a cell.
+     *
+     * @param cell Cell number
+     * @return Last neighbour slot (exclusive)
+     */
+    public int endNeighbour(int cell)
+    {
+        return offsets[cell + 1];
+    }
+
+    /**
+     * Returns the neighbouring cell in a neighbour slot.
+     *
+     * @param slot Neighbour slot
+     * @return Cell number of the neighbour.
+     */
+    public int neighbour(int slot)
+    {
+        return targets[slot];
+    }
+
+    /**
+     * Returns the edge in a neighbour slot.
+     *
+     * @param slot Neighbour slot
+     * @return Edge number
+     */
+    public int edge(int slot)
+    {
+        return edges[slot];
+    }
+
+    /**
+     * Returns a boolean that represents whether the edge in a neighbour slot
+     * is open, so that the neighbour can be reached.
+     *
+     * @param slot Neighbour slot
+     * @return True if there is a passage to the neighbour.
+     */
+    public boolean isPassage(int slot)
+    {
+        return isOpen(edges[slot]);
+    }
+
+    /**
+     * Returns a boolean that represents whether an edge is open (a passage).
+     *
+     * @param edge Edge number
+     * @return True if the edge is open.
+     */
+    public boolean isOpen(int edge)
+    {
+        return (open[edge >>> 6] & (1L << edge)) != 0;
+    }
+
+    /**
+     * Opens (destroys the wall of) or closes an edge.
+     *
+     * @param edge Edge number
+     * @param value True to open the edge, false to close it.
+     */
+    public void setOpen(int edge, boolean value)
+    {
+        if (value)
+        {
+            open[edge >>> 6] |= 1L << edge;
+        } else
+        {
+            open[edge >>> 6] &= ~(1L << edge);
+        }
+    }
+
+    /**
+     * Closes every edge, turning every cell into a closed room.
+     */
+    public void closeAll()
+    {
+        Arrays.fill(open, 0);
+    }
+
+    /**
+     * Returns the first side slot of a cell.
+     *
+     * @param cell Cell number
+     * @return First side slot
+     */
+    public int firstSide(int cell)
+    {
+        return sides[cell];
+    }
+
+    /**
+     * Returns the side slot after the last side slot of a cell.
+     *
+     * @param cell Cell number
+     * @return Last side slot (exclusive)
+     */
+    public int endSide(int cell)
+    {
+        return sides[cell + 1];
+    }
+
+    /**
+     * Returns the x coordinate of the vertex where a side starts.
+     *
+     * @param side Side slot
+     * @return x coordinate
+     */
+    public float vertexX(int side)
+    {
+        return vertexX[side];
+    }
+
+    /**
+     * Returns the y coordinate of the vertex where a side starts.
+     *
+     * @param side Side slot
+     * @return y coordinate
+     */
+    public float vertexY(int side)
+    {
+        return vertexY[side];
+    }
+
+    /**
+     * Returns the side slot where the side following a side of a cell starts,
+     * which is where the side ends.
+     *
+     * @param cell Cell number
+     * @param side Side slot of the cell.
+     * @return Side slot of the next side.
+     */
+    public int nextSide(int cell, int side)
+    {
+        return side + 1 == sides[cell + 1] ? sides[cell] : side + 1;
+    }
+
+    /**
+     * Returns the edge that a side belongs to.
+     *
+     * @param side Side slot
+     * @return Edge number, -1 if the side is on the outer border.
+     */
+    public int sideEdge(int side)
+    {
+        return sideEdges[side];
+    }
+
+    /**
+     * Returns the side slot where an edge is drawn, one of the two sides of
+     * the neighbouring cells that the edge joins.
+     *
+     * @param edge Edge number
+     * @return Side slot
+     */
+    public int edgeSide(int edge)
+    {
+        return edgeSides[edge];
+    }
+
+    /**
+     * Returns a boolean that represents whether a side is a wall: a side on
+     * the outer border or a side whose edge is closed.
+     *
+     * @param side Side slot
+     * @return True if the side is a wall.
+     */
+    public boolean isWall(int side)
+    {
+        int edge = sideEdges[side];
+        return edge < 0 || !isOpen(edge);
+    }
+
+    /**
+     * Returns the x coordinate of the centre of a cell (the mean of its
+     * vertices).
+     *
+     * @param cell Cell number
+     * @return x coordinate
+     */
+    public float centerX(int cell)
+    {
+        float sum = 0;
+        for (int v = sides[cell]; v < sides[cell + 1]; v++)
+        {
+            sum += vertexX[v];
+        }
+        return sum / (sides[cell + 1] - sides[cell]);
+    }
+
+    /**
+     * Returns the y coordinate of the centre of a cell (the mean of its
+     * vertices).
+     *
+     * @param cell Cell number
+     * @return y coordinate
+     */
+    public float centerY(int cell)
+    {
+        float sum = 0;
+        for (int v = sides[cell]; v < sides[cell + 1]; v++)
+        {
+            sum += vertexY[v];
+        }
+        return sum / (sides[cell + 1] - sides[cell]);
+    }
+
+    /**
+     * Computes the distance, in steps through open edges, from a cell to every
+     * other cell with a breadth first search. Nothing is allocated, the caller
+     * provides the buffers and may reuse them between searches.
+     *
+     * @param source Cell the distances are measured from.
+     * @param dist Receives the distance of every cell, -1 if unreachable. Must
+     * hold getCellCount() entries.
+     * @param queue Scratch space of getCellCount() entries.
+     * @return Number of cells reached, including the source.
+     */
+    public int distances(int source, int[] dist, int[] queue)
+    {
+        int cells = getCellCount();
+        for (int c = 0; c < cells; c++)
+        {
+            dist[c] = -1;
+        }
+        int head = 0;
+        int tail = 0;
+        dist[source] = 0;
+        queue[tail++] = source;
+        while (head < tail)
+        {
+            int cell = queue[head++];
+            int d = dist[cell] + 1;
+            for (int slot = offsets[cell]; slot < offsets[cell + 1]; slot++)
+            {
+                int next = targets[slot];
+                if (dist[next] < 0 && isOpen(edges[slot]))
+                {
+                    dist[next] = d;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return tail;
+    }
+}
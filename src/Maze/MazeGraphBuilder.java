@@ -0,0 +1,170 @@
+package Maze;
+
+import java.util.Arrays;
+
+/**
+ * Assembles a MazeGraph from cell polygons. Cells are added in cell number
+ * order, each as a polygon whose sides are given together with the cell on
+ * the other side (or -1 for the outer border). Two neighbouring cells must
+ * list each other on exactly one side. build() numbers the edges and packs
+ * the adjacency and the polygons into the primitive arrays of the graph.
+ *
+ * @see Topologies
+ */
+public class MazeGraphBuilder
+{
+
+    /**
+     * First side slot of every cell added so far, plus the next free slot.
+     */
+    private int[] sides;
+    /**
+     * x coordinate of every vertex.
+     */
+    private float[] vertexX;
+    /**
+     * y coordinate of every vertex.
+     */
+    private float[] vertexY;
+    /**
+     * Cell on the other side of every side, -1 on the border.
+     */
+    private int[] neighbours;
+    /**
+     * Number of cells added so far.
+     */
+    private int cells;
+
+    /**
+     * Initializes a builder for the given number of cells.
+     *
+     * @param expectedCells Number of cells that will be added.
+     * @param expectedSides Estimated total number of sides of the cells.
+     */
+    public MazeGraphBuilder(int expectedCells, int expectedSides)
+    {
+        this.sides = new int[expectedCells + 1];
+        this.vertexX = new float[Math.max(expectedSides, 4)];
+        this.vertexY = new float[vertexX.length];
+        this.neighbours = new int[vertexX.length];
+    }
+
+    /**
+     * Adds the next cell. Side i of the cell runs from vertex i to vertex i + 1
+     * (the last side back to vertex 0) and borders cell neighbours[i]. The
+     * arrays are copied, so callers may reuse them for the next cell.
+     *
+     * @param xs x coordinates of the vertices.
+     * @param ys y coordinates of the vertices.
+     * @param adjacent Cell on the other side of each side, -1 on the border.
+     * @param count Number of vertices (and sides).
+     * @return Cell number of the added cell.
+     */
+    public int addCell(float[] xs, float[] ys, int[] adjacent, int count)
+    {
+        if (cells + 1 >= sides.length)
+        {
+            sides = Arrays.copyOf(sides, sides.length * 2);
+        }
+        int first = sides[cells];
+        if (first + count > vertexX.length)
+        {
+            int size = Math.max(vertexX.length * 2, first + count);
+            vertexX = Arrays.copyOf(vertexX, size);
+            vertexY = Arrays.copyOf(vertexY, size);
+            neighbours = Arrays.copyOf(neighbours, size);
+        }
+        System.arraycopy(xs, 0, vertexX, first, count);
+        System.arraycopy(ys, 0, vertexY, first, count);
+        System.arraycopy(adjacent, 0, neighbours, first, count);
+        sides[++cells] = first + count;
+        return cells - 1;
+    }
+
+    /**
+     * Builds the graph. Edges are numbered in the order of their first
+     * appearance (lower numbered cell first), and every edge starts closed.
+     *
+     * @return The graph
+     */
+    public MazeGraph build()
+    {
+        int sideCount = sides[cells];
+        int[] sideEdges = new int[sideCount];
+        int[] offsets = new int[cells + 1];
+        int edgeCount = 0;
+        int maxDegree = 0;
+
+        for (int c = 0; c < cells; c++)
+        {
+            int degree = 0;
+            for (int s = sides[c]; s < sides[c + 1]; s++)
+            {
+                if (neighbours[s] >= 0)
+                {
+                    degree++;
+                    if (neighbours[s] > c)
+                    {
+                        edgeCount++;
+                    }
+                }
+            }
+            offsets[c + 1] = offsets[c] + degree;
+            maxDegree = Math.max(maxDegree, degree);
+        }
+
+        int[] targets = new int[offsets[cells]];
+        int[] edges = new int[offsets[cells]];
+        int[] edgeSides = new int[edgeCount];
+        int next = 0;
+        for (int c = 0; c < cells; c++)
+        {
+            int slot = offsets[c];
+            for (int s = sides[c]; s < sides[c + 1]; s++)
+            {
+                int other = neighbours[s];
+                if (other < 0)
+                {
+                    sideEdges[s] = -1;
+                    continue;
+                }
+                int edge;
+                if (other > c)
+                {
+                    edge = next++;
+                    edgeSides[edge] = s;
+                } else
+                {
+                    edge = matchingEdge(sideEdges, other, c);
+                }
+                sideEdges[s] = edge;
+                targets[slot] = other;
+                edges[slot] = edge;
+                slot++;
+            }
+        }
+        return new MazeGraph(offsets, targets, edges, Arrays.copyOf(sides, cells + 1),
+                Arrays.copyOf(vertexX, sideCount), Arrays.copyOf(vertexY, sideCount), sideEdges, edgeSides, maxDegree);
+    }
+
+    /**
+     * Returns the edge already numbered on the side of a lower numbered cell
+     * which borders a cell.
+     *
+     * @param sideEdges Edges numbered so far.
+     * @param cell Lower numbered cell.
+     * @param other Cell on the other side.
+     * @return Edge number
+     */
+    private int matchingEdge(int[] sideEdges, int cell, int other)
+    {
+        for (int s = sides[cell]; s < sides[cell + 1]; s++)
+        {
+            if (neighbours[s] == other)
+            {
+                return sideEdges[s];
+            }
+        }
+        throw new IllegalStateException("cell " + cell + " does not border cell " + other);
+    }
+}
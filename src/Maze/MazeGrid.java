@@ -0,0 +1,575 @@
+package Maze;
+
+import java.util.Arrays;
+
+/**
+ * Compact store for the cells of a maze. Every cell in the grid is a single
+ * byte whose bits describe the walls that exist around the cell (north, east,
+ * south and west) and the flags that describe the cell (visited, visible,
+ * time point and blocked). The grid is N+2 cells wide so that a border of
+ * cells one cell thick surrounds the actual maze (N by N), these border cells
+ * are visited and invisible so that the maze generating algorithm never
+ * crosses into them.
+ *
+ * Cells are addressed either by row and column (x, y) or by their cell number
+ * (y * size() + x). Positions, cell numbers and border status are derived from
+ * the address instead of being stored, and the single start point and end
+ * point are stored as cell numbers.
+ */
+public class MazeGrid
+{
+
+    /**
+     * Bit which represents the existence of the north wall of a cell.
+     */
+    public static final int NORTH = 1;
+    /**
+     * Bit which represents the existence of the east wall of a cell.
+     */
+    public static final int EAST = 2;
+    /**
+     * Bit which represents the existence of the south wall of a cell.
+     */
+    public static final int SOUTH = 4;
+    /**
+     * Bit which represents the existence of the west wall of a cell.
+     */
+    public static final int WEST = 8;
+    /**
+     * All four wall bits, a completely closed cell.
+     */
+    public static final int ALL_WALLS = NORTH | EAST | SOUTH | WEST;
+    /**
+     * Bit which represents whether the cell has been visited by the maze
+     * generating algorithm.
+     */
+    public static final int VISITED = 16;
+    /**
+     * Bit which represents whether the cell is hidden (not drawn to the
+     * screen).
+     */
+    public static final int HIDDEN = 32;
+    /**
+     * Bit which represents whether the cell is a time point.
+     */
+    public static final int TIME_POINT = 64;
+    /**
+     * Bit which represents whether the cell is outside of the shape of the
+     * maze. Blocked cells are also visited and hidden, like the border.
+     *
+     * @see MazeMask
+     */
+    public static final int BLOCKED = 128;
+    /**
+     * One byte per cell holding the wall and flag bits.
+     */
+    private final byte[] cells;
+    /**
+     * Maze dimensions (N by N), excluding the border.
+     */
+    private final int dimensions;
+    /**
+     * Full width of the grid including the border (N+2).
+     */
+    private final int stride;
+    /**
+     * Cell number of the start point cell.
+     */
+    private int startPoint;
+    /**
+     * Cell number of the end point cell.
+     */
+    private int endPoint;
+    /**
+     * Counter which is incremented whenever the visibility or time points of
+     * the grid change, used to detect when a drawn copy is out of date.
+     */
+    private volatile int version;
+
+    /**
+     * Initializes a grid of N+2 by N+2 cells where every cell is completely
+     * closed (all walls exist). Maze cells are visible and unvisited while the
+     * border cells are visited and invisible.
+     *
+     * @param dim Maze dimensions (N)
+     */
+    public MazeGrid(int dim)
+    {
+        this.dimensions = dim;
+        this.stride = dim + 2;
+        this.cells = new byte[stride * stride];
+        reset();
+    }
+
+    /**
+     * Initializes a grid which is an exact copy of another grid.
+     *
+     * @param other Grid to copy.
+     */
+    private MazeGrid(MazeGrid other)
+    {
+        this.dimensions = other.dimensions;
+        this.stride = other.stride;
+        this.cells = other.cells.clone();
+        this.startPoint = other.startPoint;
+        this.endPoint = other.endPoint;
+    }
+
+    /**
+     * Puts the grid back in the state of a new grid: every cell completely
+     * closed, maze cells visible and unvisited, border cells visited and
+     * invisible, and no start or end point. Lets a scratch grid be carved
+     * again without allocating another one.
+     */
+    final void reset()
+    {
+        startPoint = -1;
+        endPoint = -1;
+        Arrays.fill(cells, (byte) (ALL_WALLS | VISITED | HIDDEN));
+        for (int y = 1; y <= dimensions; y++)
+        {
+            Arrays.fill(cells, y * stride + 1, y * stride + dimensions + 1, (byte) ALL_WALLS);
+        }
+    }
+
+    /**
+     * Returns an exact copy of this grid which can be modified without
+     * affecting this grid.
+     *
+     * @return Copy of the grid.
+     */
+    public MazeGrid copy()
+    {
+        return new MazeGrid(this);
+    }
+
+    /**
+     * Returns the number of bytes used by the cells of the grid.
+     *
+     * @return Size of the grid in bytes.
+     */
+    public long byteSize()
+    {
+        return cells.length;
+    }
+
+    /**
+     * Returns the maze dimensions (N), excluding the border.
+     *
+     * @return dimensions Maze dimension integer (N)
+     * @see #dimensions
+     */
+    public int getDimensions()
+    {
+        return dimensions;
+    }
+
+    /**
+     * Returns the full size of the grid including the border (N+2).
+     *
+     * @return stride Grid width and height.
+     * @see #stride
+     */
+    public int size()
+    {
+        return stride;
+    }
+
+    /**
+     * Returns the cell number of the cell located at row x and column y.
+     *
+     * @param x Row
+     * @param y Column
+     * @return Cell number
+     */
+    public int index(int x, int y)
+    {
+        return y * stride + x;
+    }
+
+    /**
+     * Returns the row of the cell with the given cell number.
+     *
+     * @param cell Cell number
+     * @return Row
+     */
+    public int getX(int cell)
+    {
+        return cell % stride;
+    }
+
+    /**
+     * Returns the column of the cell with the given cell number.
+     *
+     * @param cell Cell number
+     * @return Column
+     */
+    public int getY(int cell)
+    {
+        return cell / stride;
+    }
+
+    /**
+     * Returns the cell number of the neighbour on the other side of a wall.
+     *
+     * @param cell Cell number
+     * @param wall Wall bit (NORTH, EAST, SOUTH or WEST)
+     * @return Cell number of the neighbouring cell
+     */
+    public int neighbour(int cell, int wall)
+    {
+        switch (wall)
+        {
+            case NORTH:
+                return cell - stride;
+            case EAST:
+                return cell + 1;
+            case SOUTH:
+                return cell + stride;
+            default:
+                return cell - 1;
+        }
+    }
+
+    /**
+     * Returns the wall bit on the opposite side of a cell (NORTH for SOUTH,
+     * EAST for WEST and so on).
+     *
+     * @param wall Wall bit
+     * @return Opposite wall bit
+     */
+    public static int opposite(int wall)
+    {
+        return wall <= EAST ? wall << 2 : wall >> 2;
+    }
+
+    /**
+     * Returns all bits (walls and flags) of a cell.
+     *
+     * @param cell Cell number
+     * @return Bits of the cell
+     */
+    public int bits(int cell)
+    {
+        return cells[cell] & 0xFF;
+    }
+
+    /**
+     * Returns the wall bits of the cell located at row x and column y.
+     *
+     * @param x Row
+     * @param y Column
+     * @return Wall bits of the cell
+     */
+    public int walls(int x, int y)
+    {
+        return cells[y * stride + x] & ALL_WALLS;
+    }
+
+    /**
+     * Returns a boolean that represents whether a wall of the cell exists.
+     *
+     * @param cell Cell number
+     * @param wall Wall bit
+     * @return True if the wall exists.
+     */
+    public boolean hasWall(int cell, int wall)
+    {
+        return (cells[cell] & wall) != 0;
+    }
+
+    /**
+     * Returns a boolean that represents whether a wall of the cell located at
+     * row x and column y exists.
+     *
+     * @param x Row
+     * @param y Column
+     * @param wall Wall bit
+     * @return True if the wall exists.
+     */
+    public boolean hasWall(int x, int y, int wall)
+    {
+        return (cells[y * stride + x] & wall) != 0;
+    }
+
+    /**
+     * Destroys the wall between a cell and its neighbour, the wall is removed
+     * from both cells so that the two cells stay consistent.
+     *
+     * @param cell Cell number
+     * @param wall Wall bit
+     */
+    public void carve(int cell, int wall)
+    {
+        cells[cell] &= ~wall;
+        cells[neighbour(cell, wall)] &= ~opposite(wall);
+    }
+
+    /**
+     * Builds the wall between a cell and its neighbour, the wall is added to
+     * both cells so that the two cells stay consistent.
+     *
+     * @param cell Cell number
+     * @param wall Wall bit
+     */
+    public void build(int cell, int wall)
+    {
+        cells[cell] |= wall;
+        cells[neighbour(cell, wall)] |= opposite(wall);
+    }
+
+    /**
+     * Replaces all wall bits of a cell, the flags of the cell are kept. Unlike
+     * carve() and build() the neighbours are not updated, so callers which
+     * write whole mazes at once are responsible for keeping the walls of
+     * neighbouring cells consistent.
+     *
+     * @param cell Cell number
+     * @param walls Wall bits
+     */
+    public void setWalls(int cell, int walls)
+    {
+        cells[cell] = (byte) ((cells[cell] & ~ALL_WALLS) | (walls & ALL_WALLS));
+    }
+
+    /**
+     * Returns a boolean that represents whether the cell has been visited.
+     *
+     * @param cell Cell number
+     * @return Visited status.
+     */
+    public boolean isVisited(int cell)
+    {
+        return (cells[cell] & VISITED) != 0;
+    }
+
+    /**
+     * Sets a boolean that represents whether the cell has been visited.
+     *
+     * @param cell Cell number
+     * @param visited Visited status.
+     */
+    public void setVisited(int cell, boolean visited)
+    {
+        setBit(cell, VISITED, visited);
+    }
+
+    /**
+     * Returns a boolean that represents whether the cell located at row x and
+     * column y is outside of the shape of the maze.
+     *
+     * @param x Row
+     * @param y Column
+     * @return True if the cell is blocked.
+     */
+    public boolean isBlocked(int x, int y)
+    {
+        return (cells[y * stride + x] & BLOCKED) != 0;
+    }
+
+    /**
+     * Takes a closed cell out of the maze: the cell is marked blocked, visited
+     * and hidden, so that generators never carve into it and it is never
+     * drawn, exactly like the border around the grid.
+     *
+     * @param cell Cell number
+     */
+    public void block(int cell)
+    {
+        cells[cell] |= (byte) (BLOCKED | VISITED | HIDDEN);
+    }
+
+    /**
+     * Returns a boolean that describes the visibility of the cell located at
+     * row x and column y (true == visible).
+     *
+     * @param x Row
+     * @param y Column
+     * @return Visibility status.
+     */
+    public boolean isVisible(int x, int y)
+    {
+        return (cells[y * stride + x] & HIDDEN) == 0;
+    }
+
+    /**
+     * Sets a boolean that describes the visibility of the cell located at row
+     * x and column y (true == visible).
+     *
+     * @param x Row
+     * @param y Column
+     * @param visibility Visibility status.
+     */
+    public void setVisibility(int x, int y, boolean visibility)
+    {
+        setBit(y * stride + x, HIDDEN, !visibility);
+        version++;
+    }
+
+    /**
+     * Returns a boolean that represents whether the cell located at row x and
+     * column y is a border cell.
+     *
+     * @param x Row
+     * @param y Column
+     * @return True if the cell is part of the border.
+     */
+    public boolean isBorder(int x, int y)
+    {
+        return x == 0 || y == 0 || x == stride - 1 || y == stride - 1;
+    }
+
+    /**
+     * Returns a boolean that represents whether the cell located at row x and
+     * column y is a time point cell.
+     *
+     * @param x Row
+     * @param y Column
+     * @return True if the cell is a time point.
+     */
+    public boolean isTimePoint(int x, int y)
+    {
+        return (cells[y * stride + x] & TIME_POINT) != 0;
+    }
+
+    /**
+     * Sets a boolean that represents whether the cell located at row x and
+     * column y is a time point cell.
+     *
+     * @param x Row
+     * @param y Column
+     * @param timePoint Cell type
+     */
+    public void setTimePoint(int x, int y, boolean timePoint)
+    {
+        setBit(y * stride + x, TIME_POINT, timePoint);
+        version++;
+    }
+
+    /**
+     * Removes every time point from the grid.
+     */
+    public void clearTimePoints()
+    {
+        for (int i = 0; i < cells.length; i++)
+        {
+            cells[i] &= ~TIME_POINT;
+        }
+        version++;
+    }
+
+    /**
+     * Marks the grid as modified so that drawn copies are brought up to date.
+     * Carving does not mark the grid by itself, incremental generation marks
+     * it once per batch of carved walls.
+     *
+     * @see #getVersion()
+     */
+    public void markChanged()
+    {
+        version++;
+    }
+
+    /**
+     * Returns a counter which changes whenever the visibility or the time
+     * points of the grid change, or whenever the grid is marked as changed.
+     * Walls are expected to stay the same once the maze has been generated.
+     *
+     * @return version Modification counter
+     * @see #version
+     */
+    public int getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Returns a boolean that represents whether the cell located at row x and
+     * column y is the start point cell.
+     *
+     * @param x Row
+     * @param y Column
+     * @return True if the cell is the start point.
+     */
+    public boolean isStartPoint(int x, int y)
+    {
+        return y * stride + x == startPoint;
+    }
+
+    /**
+     * Returns a boolean that represents whether the cell located at row x and
+     * column y is the end point cell.
+     *
+     * @param x Row
+     * @param y Column
+     * @return True if the cell is the end point.
+     */
+    public boolean isEndPoint(int x, int y)
+    {
+        return y * stride + x == endPoint;
+    }
+
+    /**
+     * Returns the cell number of the start point cell.
+     *
+     * @return startPoint Cell number, -1 if there is no start point.
+     * @see #startPoint
+     */
+    public int getStartPoint()
+    {
+        return startPoint;
+    }
+
+    /**
+     * Makes the cell located at row x and column y the start point cell.
+     *
+     * @param x Row
+     * @param y Column
+     * @see #startPoint
+     */
+    public void setStartPoint(int x, int y)
+    {
+        this.startPoint = y * stride + x;
+    }
+
+    /**
+     * Returns the cell number of the end point cell.
+     *
+     * @return endPoint Cell number, -1 if there is no end point.
+     * @see #endPoint
+     */
+    public int getEndPoint()
+    {
+        return endPoint;
+    }
+
+    /**
+     * Makes the cell located at row x and column y the end point cell.
+     *
+     * @param x Row
+     * @param y Column
+     * @see #endPoint
+     */
+    public void setEndPoint(int x, int y)
+    {
+        this.endPoint = y * stride + x;
+    }
+
+    /**
+     * Sets or clears a single flag bit of a cell.
+     *
+     * @param cell Cell number
+     * @param bit Flag bit
+     * @param value True to set the bit, false to clear it.
+     */
+    private void setBit(int cell, int bit, boolean value)
+    {
+        if (value)
+        {
+            cells[cell] |= bit;
+        } else
+        {
+            cells[cell] &= ~bit;
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package Maze;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.ImageIO;
+
+/**
+ * Shape of a maze: the set of cells of an N by N grid which belong to the
+ * maze, stored as a packed bitset with one bit per cell. Masks are loaded
+ * from an image (dark, opaque pixels are inside), from a text file (any
+ * character other than a space or a '.' is inside) or built as a circle, so
+ * mazes can be generated in the shape of letters, logos and so on.
+ *
+ * A mask is applied to a grid by blocking every cell outside of it, which
+ * marks the cell as visited and hidden exactly like the border around every
+ * grid. A generator which only carves into unvisited cells, such as the
+ * Depth First Search, therefore stays inside the shape without knowing about
+ * the mask, its inner loop already checks the visited bit. Only a connected
+ * shape can hold a perfect maze, see largestRegion().
+ *
+ * Cells are addressed by row x and column y from 1 to N like in MazeGrid.
+ *
+ * @see MazeGrid#block(int)
+ * @see GenMaze#GenMaze(MazeMask, int, int, long, boolean)
+ */
+public class MazeMask
+{
+
+    /**
+     * Maze dimensions (N by N) of the grids the mask applies to.
+     */
+    private final int dimensions;
+    /**
+     * Bit of every cell which is set when the cell is inside the shape.
+     */
+    private final long[] bits;
+    /**
+     * Largest region of the shape, computed once and dropped whenever the
+     * shape changes.
+     */
+    private MazeMask region;
+
+    /**
+     * Initializes a mask with every cell outside of the shape.
+     *
+     * @param dim Maze dimensions (N)
+     */
+    public MazeMask(int dim)
+    {
+        this.dimensions = dim;
+        this.bits = new long[(int) (((long) dim * dim + 63) >>> 6)];
+    }
+
+    /**
+     * Builds a circular mask filling the grid.
+     *
+     * @param dim Maze dimensions (N)
+     * @return The mask
+     */
+    public static MazeMask circle(int dim)
+    {
+        MazeMask mask = new MazeMask(dim);
+        double centre = (dim + 1) / 2.0;
+        double radius = dim / 2.0;
+        for (int y = 1; y <= dim; y++)
+        {
+            for (int x = 1; x <= dim; x++)
+            {
+                double dx = x - centre;
+                double dy = y - centre;
+                if (dx * dx + dy * dy <= radius * radius)
+                {
+                    mask.set(x, y, true);
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Builds a mask from an image scaled to fit the grid and centered on it.
+     * A cell is inside the shape when the pixel under its centre is opaque
+     * (alpha of at least 128) and dark (luminance below 128).
+     *
+     * @param image Image of the shape.
+     * @param dim Maze dimensions (N)
+     * @return The mask
+     */
+    public static MazeMask fromImage(BufferedImage image, int dim)
+    {
+        MazeMask mask = new MazeMask(dim);
+        double scale = (double) Math.max(image.getWidth(), image.getHeight()) / dim;
+        double offsetX = (dim * scale - image.getWidth()) / 2;
+        double offsetY = (dim * scale - image.getHeight()) / 2;
+        for (int y = 1; y <= dim; y++)
+        {
+            int py = (int) ((y - 0.5) * scale - offsetY);
+            if (py < 0 || py >= image.getHeight())
+            {
+                continue;
+            }
+            for (int x = 1; x <= dim; x++)
+            {
+                int px = (int) ((x - 0.5) * scale - offsetX);
+                if (px < 0 || px >= image.getWidth())
+                {
+                    continue;
+                }
+                int argb = image.getRGB(px, py);
+                int luminance = (299 * ((argb >> 16) & 0xFF) + 587 * ((argb >> 8) & 0xFF) + 114 * (argb & 0xFF)) / 1000;
+                if ((argb >>> 24) >= 128 && luminance < 128)
+                {
+                    mask.set(x, y, true);
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Builds a mask from an image file (PNG or any format ImageIO reads).
+     *
+     * @param file Image file
+     * @param dim Maze dimensions (N)
+     * @return The mask
+     * @throws IOException If the image can not be read.
+     * @see #fromImage(BufferedImage, int)
+     */
+    public static MazeMask fromImage(File file, int dim) throws IOException
+    {
+        BufferedImage image = ImageIO.read(file);
+        if (image == null)
+        {
+            throw new IOException("not a readable image: " + file);
+        }
+        return fromImage(image, dim);
+    }
+
+    /**
+     * Builds a mask from text, character x of line y giving the cell located
+     * at row x and column y. Any character other than a space or a '.' is
+     * inside the shape. The grid is as large as the longest line or the number
+     * of lines, whichever is greater, and the text starts at its first cell.
+     *
+     * @param text Reader of the text, read to the end but not closed.
+     * @return The mask
+     * @throws IOException If the text can not be read.
+     */
+    public static MazeMask fromText(Reader text) throws IOException
+    {
+        BufferedReader reader = new BufferedReader(text);
+        List<String> lines = new ArrayList<>();
+        int dim = 1;
+        for (String line = reader.readLine(); line != null; line = reader.readLine())
+        {
+            lines.add(line);
+            dim = Math.max(dim, line.length());
+        }
+        dim = Math.max(dim, lines.size());
+
+        MazeMask mask = new MazeMask(dim);
+        for (int y = 1; y <= lines.size(); y++)
+        {
+            String line = lines.get(y - 1);
+            for (int x = 1; x <= line.length(); x++)
+            {
+                char c = line.charAt(x - 1);
+                if (c != ' ' && c != '.')
+                {
+                    mask.set(x, y, true);
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Builds a mask from a text file.
+     *
+     * @param file Text file
+     * @return The mask
+     * @throws IOException If the file can not be read.
+     * @see #fromText(Reader)
+     */
+    public static MazeMask fromText(File file) throws IOException
+    {
+        try (Reader reader = new FileReader(file))
+        {
+            return fromText(reader);
+        }
+    }
+
+    /**
+     * Returns the maze dimensions (N by N) of the grids the mask applies to.
+     *
+     * @return dimensions Maze dimensions
+     * @see #dimensions
+     */
+    public int getDimensions()
+    {
+        return dimensions;
+    }
+
+    /**
+     * Returns a boolean that represents whether the cell located at row x and
+     * column y is inside the shape.
+     *
+     * @param x Row
+     * @param y Column
+     * @return True if the cell belongs to the maze.
+     */
+    public boolean contains(int x, int y)
+    {
+        int i = (y - 1) * dimensions + x - 1;
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Adds the cell located at row x and column y to the shape or removes it.
+     *
+     * @param x Row
+     * @param y Column
+     * @param inside True if the cell belongs to the maze.
+     */
+    public void set(int x, int y, boolean inside)
+    {
+        int i = (y - 1) * dimensions + x - 1;
+        region = null;
+        if (inside)
+        {
+            bits[i >>> 6] |= 1L << i;
+        } else
+        {
+            bits[i >>> 6] &= ~(1L << i);
+        }
+    }
+
+    /**
+     * Returns the number of cells inside the shape.
+     *
+     * @return Cell count
+     */
+    public int count()
+    {
+        int count = 0;
+        for (long word : bits)
+        {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the index, (y - 1) * N + x - 1, of the first cell inside the
+     * shape: the lowest column, then the lowest row.
+     *
+     * @return Index of the cell, -1 if the shape is empty.
+     */
+    public int first()
+    {
+        for (int w = 0; w < bits.length; w++)
+        {
+            if (bits[w] != 0)
+            {
+                return (w << 6) + Long.numberOfTrailingZeros(bits[w]);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index, (y - 1) * N + x - 1, of the last cell inside the
+     * shape: the highest column, then the highest row.
+     *
+     * @return Index of the cell, -1 if the shape is empty.
+     */
+    public int last()
+    {
+        for (int w = bits.length - 1; w >= 0; w--)
+        {
+            if (bits[w] != 0)
+            {
+                return (w << 6) + 63 - Long.numberOfLeadingZeros(bits[w]);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a mask of the same shape scaled to other dimensions, each cell
+     * taking the value of the nearest cell of this mask. Text masks are small
+     * and are scaled up before a large maze is generated in them.
+     *
+     * @param dim Maze dimensions (N) of the scaled mask.
+     * @return The scaled mask
+     */
+    public MazeMask scaled(int dim)
+    {
+        MazeMask mask = new MazeMask(dim);
+        for (int y = 1; y <= dim; y++)
+        {
+            int sy = 1 + (int) ((long) (y - 1) * dimensions / dim);
+            for (int x = 1; x <= dim; x++)
+            {
+                if (contains(1 + (int) ((long) (x - 1) * dimensions / dim), sy))
+                {
+                    mask.set(x, y, true);
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Returns a mask holding only the largest region of the shape, cells
+     * joined through their north, east, south and west sides. A perfect maze
+     * can only be carved through a connected shape, so the dot of an 'i' or
+     * the stray pixels of an image are dropped. The region is computed once,
+     * and a shape which is a single region is its own largest region.
+     *
+     * @return Mask of the largest region.
+     */
+    public MazeMask largestRegion()
+    {
+        if (region != null)
+        {
+            return region;
+        }
+        long[] seen = new long[bits.length];
+        int[] queue = new int[Math.max(1, count())];
+        int bestStart = -1;
+        int bestSize = 0;
+        for (int w = 0; w < bits.length; w++)
+        {
+            long open = bits[w] & ~seen[w];
+            while (open != 0)
+            {
+                int start = (w << 6) + Long.numberOfTrailingZeros(open);
+                int size = flood(start, seen, queue);
+                if (size > bestSize)
+                {
+                    bestSize = size;
+                    bestStart = start;
+                }
+                open = bits[w] & ~seen[w];
+            }
+        }
+
+        if (bestSize == queue.length)
+        {
+            //The shape is a single region already.
+            region = this;
+        } else
+        {
+            region = new MazeMask(dimensions);
+            if (bestStart >= 0)
+            {
+                flood(bestStart, region.bits, queue);
+            }
+            region.region = region;
+        }
+        return region;
+    }
+
+    /**
+     * Blocks every cell of a grid outside of the shape so that generators
+     * which only carve into unvisited cells stay inside it.
+     *
+     * @param grid Freshly initialized grid of the same dimensions.
+     * @see MazeGrid#block(int)
+     */
+    public void apply(MazeGrid grid)
+    {
+        if (grid.getDimensions() != dimensions)
+        {
+            throw new IllegalArgumentException("mask of " + dimensions + " applied to a grid of "
+                    + grid.getDimensions());
+        }
+        //Only the cells outside of the shape are visited, a word at a time.
+        int cells = dimensions * dimensions;
+        for (int w = 0; w < bits.length; w++)
+        {
+            long outside = ~bits[w];
+            if (w == bits.length - 1 && (cells & 63) != 0)
+            {
+                outside &= (1L << cells) - 1;
+            }
+            while (outside != 0)
+            {
+                int i = (w << 6) + Long.numberOfTrailingZeros(outside);
+                grid.block(grid.index(i % dimensions + 1, i / dimensions + 1));
+                outside &= outside - 1;
+            }
+        }
+    }
+
+    /**
+     * Marks the region of the shape containing a cell in a bitset, with a
+     * breadth first search through the cells inside the shape.
+     *
+     * @param start Index of a cell inside the shape, (y - 1) * N + x - 1.
+     * @param marked Bitset in which the region is marked, cells already marked
+     * are not entered.
+     * @param queue Scratch space of count() entries.
+     * @return Number of cells in the region.
+     */
+    private int flood(int start, long[] marked, int[] queue)
+    {
+        int head = 0;
+        int tail = 0;
+        marked[start >>> 6] |= 1L << start;
+        queue[tail++] = start;
+        while (head < tail)
+        {
+            int i = queue[head++];
+            int x = i % dimensions;
+            if (x > 0)
+            {
+                tail = enter(i - 1, marked, queue, tail);
+            }
+            if (x < dimensions - 1)
+            {
+                tail = enter(i + 1, marked, queue, tail);
+            }
+            if (i >= dimensions)
+            {
+                tail = enter(i - dimensions, marked, queue, tail);
+            }
+            if (i + dimensions < dimensions * dimensions)
+            {
+                tail = enter(i + dimensions, marked, queue, tail);
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Marks and queues a cell during flood() if it is inside the shape and not
+     * marked yet.
+     *
+     * @param i Index of the cell.
+     * @param marked Bitset in which the region is marked.
+     * @param queue Queue of the search.
+     * @param tail Number of cells queued so far.
+     * @return Number of cells queued, including this one if it was queued.
+     */
+    private int enter(int i, long[] marked, int[] queue, int tail)
+    {
+        long bit = 1L << i;
+        if ((bits[i >>> 6] & bit) != 0 && (marked[i >>> 6] & bit) == 0)
+        {
+            marked[i >>> 6] |= bit;
+            queue[tail++] = i;
+        }
+        return tail;
+    }
+}
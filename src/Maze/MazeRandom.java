@@ -0,0 +1,159 @@
+package Maze;
+
+/**
+ * Fast, seedable random number generator used for maze generation. The
+ * generator is the SplitMix64 algorithm (the algorithm behind
+ * java.util.SplittableRandom): it is not synchronized, so each generation
+ * owns its own instance and concurrent generations never contend on shared
+ * state, and the same seed always produces the same sequence of numbers,
+ * which makes every maze reproducible from its seed. split() derives an
+ * independent generator for work that runs on another thread, the derived
+ * generators are themselves determined by the seed.
+ */
+public class MazeRandom
+{
+
+    /**
+     * Default increment between seeds (the golden ratio), also used by
+     * java.util.SplittableRandom.
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    /**
+     * Current seed, advanced by gamma on every draw.
+     */
+    private long seed;
+    /**
+     * Odd increment added to the seed on every draw.
+     */
+    private final long gamma;
+
+    /**
+     * Initializes a generator whose sequence is determined by the seed.
+     *
+     * @param seed 64 bit seed
+     */
+    public MazeRandom(long seed)
+    {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    /**
+     * Initializes a generator with the given seed and increment.
+     *
+     * @param seed 64 bit seed
+     * @param gamma Odd increment
+     */
+    private MazeRandom(long seed, long gamma)
+    {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * Returns a new generator which is independent of this one, this
+     * generator is advanced so repeated calls return different generators.
+     *
+     * @return Derived generator
+     */
+    public MazeRandom split()
+    {
+        return new MazeRandom(nextLong(), mixGamma(nextSeed()));
+    }
+
+    /**
+     * Returns a random 64 bit value.
+     *
+     * @return random long
+     */
+    public long nextLong()
+    {
+        return mix64(nextSeed());
+    }
+
+    /**
+     * Returns a random integer between zero (inclusive) and bound (exclusive).
+     *
+     * @param bound Upper bound, must be positive.
+     * @return random int
+     */
+    public int nextInt(int bound)
+    {
+        if (bound <= 0)
+        {
+            throw new IllegalArgumentException("bound must be positive: " + bound);
+        }
+        int r = mix32(nextSeed());
+        int m = bound - 1;
+        if ((bound & m) == 0)
+        {
+            //Power of two, the low bits are used directly.
+            return r & m;
+        }
+        //Reject the values that would make the result biased.
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextSeed()) >>> 1)
+        {
+        }
+        return r;
+    }
+
+    /**
+     * Returns a random boolean.
+     *
+     * @return random boolean
+     */
+    public boolean nextBoolean()
+    {
+        return mix32(nextSeed()) < 0;
+    }
+
+    /**
+     * Advances the seed and returns it.
+     *
+     * @return Next seed
+     */
+    private long nextSeed()
+    {
+        return seed += gamma;
+    }
+
+    /**
+     * Mixes a seed into a well distributed 64 bit value.
+     *
+     * @param z Seed
+     * @return Mixed value
+     */
+    private static long mix64(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Mixes a seed into a well distributed 32 bit value.
+     *
+     * @param z Seed
+     * @return Mixed value
+     */
+    private static int mix32(long z)
+    {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    /**
+     * Mixes a seed into an odd increment with enough bit transitions to be a
+     * good gamma for a derived generator.
+     *
+     * @param z Seed
+     * @return Increment for a derived generator.
+     */
+    private static long mixGamma(long z)
+    {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
@@ -0,0 +1,399 @@
+package Maze;
+
+import java.util.Arrays;
+
+/**
+ * Finds shortest paths between cells of a maze with A* and the Manhattan
+ * distance as heuristic. The solver keeps its scratch space between
+ * searches, so solving allocates nothing, and its arrays are marked with the
+ * number of the search rather than cleared, so starting a search costs
+ * nothing however large the grid is.
+ *
+ * Ties on f = g + h go to the lower heuristic, a move towards the target is
+ * expanded directly instead of going through the heap, and a cell reached
+ * again by a shorter path is pushed again, its outdated entry being skipped.
+ * The heuristic is consistent, so the paths are shortest in any grid,
+ * perfect or not.
+ *
+ * @see MazeGrid
+ * @see DistanceField
+ */
+public class MazeSolver
+{
+
+    /**
+     * Largest number of cells (border included) of a grid, the cost of a
+     * path must fit in the high half of a heap key.
+     */
+    private static final int MAX_CELLS = 1 << 30;
+    /**
+     * Initial capacity of the open list, it grows as needed and is kept.
+     */
+    private static final int INITIAL_OPEN = 1024;
+    /**
+     * Row offset of the neighbour on each side. Sides are numbered like the
+     * bits of their walls, north 0, east 1, south 2 and west 3.
+     */
+    private static final int[] DX =
+    {
+        0, 1, 0, -1
+    };
+    /**
+     * Column offset of the neighbour on each side.
+     */
+    private static final int[] DY =
+    {
+        -1, 0, 1, 0
+    };
+    /**
+     * Grid the paths are searched in.
+     */
+    private final MazeGrid grid;
+    /**
+     * Number of cells in a row of the grid, border included.
+     */
+    private final int stride;
+    /**
+     * Cell number offset of the neighbour on each side.
+     */
+    private final int[] offsets;
+    /**
+     * Number of the search which last reached every cell, the other entries
+     * of a cell are only valid for that search.
+     */
+    private final int[] mark;
+    /**
+     * Cost (number of moves) of the best known path from the source to every
+     * cell.
+     */
+    private final int[] cost;
+    /**
+     * Side, as seen from its predecessor, of the move which reaches every
+     * cell on its best known path.
+     */
+    private final byte[] from;
+    /**
+     * Keys of the open list, f in the high half and h in the low half.
+     */
+    private long[] keys;
+    /**
+     * Cell numbers of the open list, in the same order as the keys.
+     */
+    private int[] cells;
+    /**
+     * Number of cells in the open list.
+     */
+    private int open;
+    /**
+     * Cell numbers of the last path found, from the source to the target.
+     */
+    private int[] path;
+    /**
+     * Number of cells of the last path found, 0 if there was none.
+     */
+    private int length;
+    /**
+     * Number of the current search.
+     */
+    private int search;
+    /**
+     * Number of cells expanded by the last search.
+     */
+    private int expanded;
+
+    /**
+     * Initializes a solver for a grid, allocating its scratch space.
+     *
+     * @param grid Grid the paths are searched in.
+     */
+    public MazeSolver(MazeGrid grid)
+    {
+        this.grid = grid;
+        this.stride = grid.size();
+        if ((long) stride * stride > MAX_CELLS)
+        {
+            throw new IllegalArgumentException("grid too large for a solver: " + grid.getDimensions());
+        }
+        int count = stride * stride;
+        this.offsets = new int[]
+        {
+            -stride, 1, stride, -1
+        };
+        this.mark = new int[count];
+        this.cost = new int[count];
+        this.from = new byte[count];
+        this.keys = new long[INITIAL_OPEN];
+        this.cells = new int[INITIAL_OPEN];
+        this.path = new int[Math.min(count, INITIAL_OPEN)];
+    }
+
+    /**
+     * Returns the grid the paths are searched in.
+     *
+     * @return grid Grid
+     * @see #grid
+     */
+    public MazeGrid getGrid()
+    {
+        return grid;
+    }
+
+    /**
+     * Finds a shortest path from the start point to the end point of the
+     * grid.
+     *
+     * @return Number of cells of the path, source and target included, 0 if
+     * there is none.
+     * @see #solve(int, int)
+     */
+    public int solve()
+    {
+        return solve(grid.getStartPoint(), grid.getEndPoint());
+    }
+
+    /**
+     * Finds a shortest path between two cells. The cells of the path are
+     * then read with getPath() until the next search.
+     *
+     * @param source Cell number the path starts at.
+     * @param target Cell number the path ends at.
+     * @return Number of cells of the path, source and target included, 0 if
+     * there is none.
+     */
+    public int solve(int source, int target)
+    {
+        nextSearch();
+        int tx = target % stride;
+        int ty = target / stride;
+        int search = this.search;
+        int[] mark = this.mark;
+        int[] cost = this.cost;
+        byte[] from = this.from;
+        int[] offsets = this.offsets;
+
+        open = 0;
+        expanded = 0;
+        length = 0;
+        mark[source] = search;
+        cost[source] = 0;
+        int h = Math.abs(source % stride - tx) + Math.abs(source / stride - ty);
+        //Cell held out of the heap, -1 if none, with its key.
+        int held = source;
+        long heldKey = ((long) h << 32) | h;
+
+        while (held >= 0 || open > 0)
+        {
+            int cell;
+            long top;
+            if (held >= 0 && (open == 0 || heldKey <= keys[0]))
+            {
+                cell = held;
+                top = heldKey;
+                held = -1;
+            } else
+            {
+                top = keys[0];
+                cell = pop();
+            }
+            if ((int) (top >>> 32) - (int) top != cost[cell])
+            {
+                //A shorter path to the cell was found after this entry.
+                continue;
+            }
+            expanded++;
+            if (cell == target)
+            {
+                writePath(source, target);
+                return length;
+            }
+            int y = cell / stride;
+            int x = cell - y * stride;
+            int g = cost[cell] + 1;
+            //Open sides as bits 0 to 3, walked without testing every wall.
+            int walls = ~grid.bits(cell) & MazeGrid.ALL_WALLS;
+            while (walls != 0)
+            {
+                int side = Integer.numberOfTrailingZeros(walls);
+                walls &= walls - 1;
+                int next = cell + offsets[side];
+                //Expanded already, or queued with a path at most as long.
+                if (mark[next] == search && cost[next] <= g)
+                {
+                    continue;
+                }
+                mark[next] = search;
+                cost[next] = g;
+                from[next] = (byte) side;
+                int nh = Math.abs(x + DX[side] - tx) + Math.abs(y + DY[side] - ty);
+                long key = ((long) (g + nh) << 32) | nh;
+                if (held < 0 && (open == 0 || key < keys[0]))
+                {
+                    held = next;
+                    heldKey = key;
+                } else
+                {
+                    push(next, key);
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Finds a shortest path between two cells and returns a copy of it, for
+     * callers which keep paths around. The copy is the only allocation.
+     *
+     * @param source Cell number the path starts at.
+     * @param target Cell number the path ends at.
+     * @return Cell numbers of the path from the source to the target, empty
+     * if there is none.
+     */
+    public int[] path(int source, int target)
+    {
+        return Arrays.copyOf(path, solve(source, target));
+    }
+
+    /**
+     * Returns the cell numbers of the last path found, from the source to
+     * the target. The array is reused by the next search and only its first
+     * getLength() entries belong to the path.
+     *
+     * @return path Shared path buffer
+     * @see #path
+     */
+    public int[] getPath()
+    {
+        return path;
+    }
+
+    /**
+     * Returns the number of cells of the last path found.
+     *
+     * @return length Cell count, 0 if there was no path.
+     * @see #length
+     */
+    public int getLength()
+    {
+        return length;
+    }
+
+    /**
+     * Returns the number of cells the last search expanded, a measure of how
+     * much of the maze it had to look at.
+     *
+     * @return expanded Cell count
+     * @see #expanded
+     */
+    public int getExpanded()
+    {
+        return expanded;
+    }
+
+    /**
+     * Starts a new search number, clearing the marks only when the numbers
+     * wrap around.
+     */
+    private void nextSearch()
+    {
+        search++;
+        if (search == Integer.MAX_VALUE)
+        {
+            Arrays.fill(mark, 0);
+            search = 1;
+        }
+    }
+
+    /**
+     * Walks back from the target along the sides the cells were reached
+     * through and writes the path into the path buffer, growing it if needed.
+     *
+     * @param source Cell number the path starts at.
+     * @param target Cell number the path ends at.
+     */
+    private void writePath(int source, int target)
+    {
+        length = cost[target] + 1;
+        if (path.length < length)
+        {
+            path = new int[Math.max(length, path.length * 2)];
+        }
+        int cell = target;
+        for (int i = length - 1; i > 0; i--)
+        {
+            path[i] = cell;
+            //Undo the move which reached the cell.
+            cell -= offsets[from[cell]];
+        }
+        path[0] = source;
+    }
+
+    /**
+     * Adds a cell to the open list, growing it if needed, and moves it up
+     * the heap until its parent has a smaller key.
+     *
+     * @param cell Cell number
+     * @param key Heap key of the cell.
+     */
+    private void push(int cell, long key)
+    {
+        if (open == keys.length)
+        {
+            keys = Arrays.copyOf(keys, open * 2);
+            cells = Arrays.copyOf(cells, open * 2);
+        }
+        long[] keys = this.keys;
+        int[] cells = this.cells;
+        int i = open++;
+        while (i > 0)
+        {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key)
+            {
+                break;
+            }
+            keys[i] = keys[parent];
+            cells[i] = cells[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        cells[i] = cell;
+    }
+
+    /**
+     * Removes the cell with the smallest key from the open list.
+     *
+     * @return Cell number
+     */
+    private int pop()
+    {
+        long[] keys = this.keys;
+        int[] cells = this.cells;
+        int top = cells[0];
+        int last = --open;
+        if (last == 0)
+        {
+            return top;
+        }
+        long key = keys[last];
+        int cell = cells[last];
+        int i = 0;
+        int child;
+        while ((child = 2 * i + 1) < last)
+        {
+            if (child + 1 < last && keys[child + 1] < keys[child])
+            {
+                child++;
+            }
+            if (keys[child] >= key)
+            {
+                break;
+            }
+            keys[i] = keys[child];
+            cells[i] = cells[child];
+            i = child;
+        }
+        keys[i] = key;
+        cells[i] = cell;
+        return top;
+    }
+}
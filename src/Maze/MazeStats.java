@@ -0,0 +1,608 @@
+package Maze;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Structural metrics of a generated maze, used to compare generators and to
+ * tune the difficulty of levels from measured data: the degree histogram
+ * (dead ends and junctions), the corridor length histogram, the river factor
+ * (the mean length of the corridors ending in a dead end), the solution
+ * length, and the diameter (the longest path, found with a double breadth
+ * first search).
+ *
+ * The degrees and corridors are measured in bands of rows on the shared pool
+ * while the two breadth first searches run on the calling thread, and
+ * analyze() measures whole mazes concurrently instead. The corridors and the
+ * diameter assume a perfect maze, like DistanceField.
+ *
+ * @see DistanceField
+ */
+public class MazeStats
+{
+
+    /**
+     * Number of rows scanned by one task.
+     */
+    private static final int BAND = 64;
+    /**
+     * Wall bits of the four sides in the order of their side number, north
+     * 0, east 1, south 2 and west 3. The side opposite side s is (s + 2) & 3.
+     */
+    private static final int[] SIDES =
+    {
+        MazeGrid.NORTH, MazeGrid.EAST, MazeGrid.SOUTH, MazeGrid.WEST
+    };
+    /**
+     * Side a corridor leaves a cell by, indexed by the open sides of the cell
+     * shifted left by two and the side it was entered from, -1 if the cell
+     * is not part of a corridor (it does not have exactly two open sides).
+     */
+    private static final byte[] EXITS = new byte[64];
+
+    static
+    {
+        for (int open = 0; open <= MazeGrid.ALL_WALLS; open++)
+        {
+            for (int entered = 0; entered < 4; entered++)
+            {
+                int others = open & ~SIDES[entered];
+                EXITS[open << 2 | entered] = (byte) (Integer.bitCount(open) == 2 && others != open
+                        ? Integer.numberOfTrailingZeros(others) : -1);
+            }
+        }
+    }
+    /**
+     * Grid the metrics were measured on.
+     */
+    private final MazeGrid grid;
+    /**
+     * Number of cells with 0 to 4 open sides, by number of open sides.
+     */
+    private final int[] degrees;
+    /**
+     * Number of corridors of every length, by length in steps.
+     */
+    private final int[] corridors;
+    /**
+     * Number of corridors.
+     */
+    private final int corridorCount;
+    /**
+     * Number of corridors ending in a dead end.
+     */
+    private final int deadEndCorridors;
+    /**
+     * Total length, in steps, of the corridors ending in a dead end.
+     */
+    private final long deadEndSteps;
+    /**
+     * Number of steps from the start point to the end point.
+     */
+    private final int solutionLength;
+    /**
+     * Number of steps of the longest path of the maze.
+     */
+    private final int diameter;
+    /**
+     * Cell number of the first end of a longest path.
+     */
+    private final int diameterStart;
+    /**
+     * Cell number of the second end of a longest path.
+     */
+    private final int diameterEnd;
+
+    /**
+     * Measures a generated grid with a start point and an end point. The
+     * band scan is handed to the shared pool and the breadth first searches
+     * run on the calling thread until it is done, with a single thread the
+     * scan runs after them.
+     *
+     * @param grid Generated grid.
+     */
+    public MazeStats(MazeGrid grid)
+    {
+        this(grid, ParallelMazeGenerator.POOL.getParallelism() > 1);
+    }
+
+    /**
+     * Measures a generated grid, on the calling thread only or with the band
+     * scan on the shared pool.
+     *
+     * @param grid Generated grid.
+     * @param parallel True to scan the bands on the shared pool.
+     */
+    private MazeStats(MazeGrid grid, boolean parallel)
+    {
+        this.grid = grid;
+        ScanTask scan = new ScanTask(grid, 1, grid.getDimensions() + 1);
+        if (parallel)
+        {
+            ParallelMazeGenerator.POOL.execute(scan);
+        }
+
+        DistanceField field = new DistanceField(grid, grid.getStartPoint());
+        this.solutionLength = field.distance(grid.getEndPoint());
+        this.diameterStart = field.getFarthest();
+        field.compute(diameterStart);
+        this.diameter = field.getMaxDistance();
+        this.diameterEnd = field.getFarthest();
+
+        if (parallel)
+        {
+            scan.join();
+        } else
+        {
+            scan.scan();
+        }
+        this.degrees = scan.degrees;
+        this.corridors = Arrays.copyOf(scan.corridors, scan.longest + 1);
+        int count = 0;
+        for (int length = 1; length <= scan.longest; length++)
+        {
+            count += corridors[length];
+        }
+        this.corridorCount = count;
+        this.deadEndCorridors = scan.deadEnds;
+        this.deadEndSteps = scan.deadEndSteps;
+    }
+
+    /**
+     * Measures many generated grids, several at a time on the shared pool.
+     * Every grid is measured on a single thread, which keeps all cores busy
+     * with independent work rather than splitting every grid, so this is
+     * the fastest way to compare generators over many seeds.
+     *
+     * @param grids Generated grids.
+     * @return Metrics of every grid, in the same order.
+     */
+    public static MazeStats[] analyze(MazeGrid... grids)
+    {
+        MazeStats[] stats = new MazeStats[grids.length];
+        if (grids.length > 0)
+        {
+            ParallelMazeGenerator.POOL.invoke(new BatchTask(grids, stats, 0, grids.length));
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the grid the metrics were measured on.
+     *
+     * @return grid Grid
+     * @see #grid
+     */
+    public MazeGrid getGrid()
+    {
+        return grid;
+    }
+
+    /**
+     * Returns the number of cells of the maze, blocked cells excluded.
+     *
+     * @return Cell count
+     */
+    public int getCellCount()
+    {
+        int cells = 0;
+        for (int count : degrees)
+        {
+            cells += count;
+        }
+        return cells;
+    }
+
+    /**
+     * Returns the number of cells with a given number of open sides.
+     *
+     * @param degree Number of open sides, 0 to 4.
+     * @return Cell count
+     */
+    public int getDegreeCount(int degree)
+    {
+        return degrees[degree];
+    }
+
+    /**
+     * Returns the number of dead ends, cells with a single open side.
+     *
+     * @return Cell count
+     */
+    public int getDeadEnds()
+    {
+        return degrees[1];
+    }
+
+    /**
+     * Returns the number of junctions, cells with three or four open sides.
+     *
+     * @return Cell count
+     */
+    public int getJunctions()
+    {
+        return degrees[3] + degrees[4];
+    }
+
+    /**
+     * Returns the number of corridors.
+     *
+     * @return corridorCount Corridor count
+     * @see #corridorCount
+     */
+    public int getCorridorCount()
+    {
+        return corridorCount;
+    }
+
+    /**
+     * Returns the number of corridors of a given length.
+     *
+     * @param length Length in steps.
+     * @return Corridor count
+     */
+    public int getCorridorCount(int length)
+    {
+        return length < 0 || length >= corridors.length ? 0 : corridors[length];
+    }
+
+    /**
+     * Returns the length of the longest corridor.
+     *
+     * @return Number of steps, 0 if the maze has no corridor.
+     */
+    public int getLongestCorridor()
+    {
+        return corridors.length - 1;
+    }
+
+    /**
+     * Returns the mean length of the corridors.
+     *
+     * @return Number of steps, 0 if the maze has no corridor.
+     */
+    public double getMeanCorridorLength()
+    {
+        long steps = 0;
+        for (int length = 1; length < corridors.length; length++)
+        {
+            steps += (long) length * corridors[length];
+        }
+        return corridorCount == 0 ? 0 : (double) steps / corridorCount;
+    }
+
+    /**
+     * Returns the river factor, the mean length of the corridors ending in
+     * a dead end.
+     *
+     * @return Number of steps, 0 if the maze has no dead end.
+     */
+    public double getRiverFactor()
+    {
+        return deadEndCorridors == 0 ? 0 : (double) deadEndSteps / deadEndCorridors;
+    }
+
+    /**
+     * Returns the number of steps from the start point to the end point.
+     *
+     * @return solutionLength Number of steps, DistanceField.UNREACHABLE if
+     * the end point can not be reached.
+     * @see #solutionLength
+     */
+    public int getSolutionLength()
+    {
+        return solutionLength;
+    }
+
+    /**
+     * Returns the number of steps of the longest path of the maze.
+     *
+     * @return diameter Number of steps
+     * @see #diameter
+     */
+    public int getDiameter()
+    {
+        return diameter;
+    }
+
+    /**
+     * Returns the cell number of the first end of a longest path, which with
+     * getDiameterEnd() gives the start and end points of the hardest level
+     * the maze can make.
+     *
+     * @return diameterStart Cell number
+     * @see #diameterStart
+     */
+    public int getDiameterStart()
+    {
+        return diameterStart;
+    }
+
+    /**
+     * Returns the cell number of the second end of a longest path.
+     *
+     * @return diameterEnd Cell number
+     * @see #diameterEnd
+     */
+    public int getDiameterEnd()
+    {
+        return diameterEnd;
+    }
+
+    /**
+     * Returns the metrics on a single line, the dead ends and junctions as a
+     * share of the cells.
+     *
+     * @return Summary of the metrics.
+     */
+    @Override
+    public String toString()
+    {
+        double cells = Math.max(1, getCellCount());
+        return String.format("dead ends %.1f%%, junctions %.1f%%, corridors %d (mean %.2f, longest %d), river %.2f, solution %d, diameter %d",
+                100 * getDeadEnds() / cells, 100 * getJunctions() / cells, corridorCount, getMeanCorridorLength(),
+                getLongestCorridor(), getRiverFactor(), solutionLength, diameter);
+    }
+
+    /**
+     * Fork/join task which scans a band of rows, bands are split in half
+     * until they are at most BAND rows high and the results of the halves are
+     * added up.
+     */
+    private static class ScanTask extends RecursiveAction
+    {
+
+        /**
+         * Version of the serialized form of the task.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Grid being scanned.
+         */
+        private final MazeGrid grid;
+        /**
+         * First row of the band (inclusive).
+         */
+        private final int from;
+        /**
+         * Last row of the band (exclusive).
+         */
+        private final int to;
+        /**
+         * Number of cells with 0 to 4 open sides in the band.
+         */
+        private int[] degrees = new int[5];
+        /**
+         * Number of corridors of every length recorded by the band, grown as
+         * needed.
+         */
+        private int[] corridors = new int[16];
+        /**
+         * Length of the longest corridor recorded by the band.
+         */
+        private int longest;
+        /**
+         * Number of corridors ending in a dead end recorded by the band.
+         */
+        private int deadEnds;
+        /**
+         * Total length of the corridors ending in a dead end recorded by the
+         * band.
+         */
+        private long deadEndSteps;
+
+        /**
+         * Initializes a task for the rows from (inclusive) to to (exclusive).
+         *
+         * @param grid Grid to scan.
+         * @param from First row
+         * @param to Last row (exclusive).
+         */
+        ScanTask(MazeGrid grid, int from, int to)
+        {
+            this.grid = grid;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Scans the band, or splits it in half and adds up the halves.
+         */
+        @Override
+        protected void compute()
+        {
+            if (to - from > BAND)
+            {
+                int mid = (from + to) >>> 1;
+                ScanTask low = new ScanTask(grid, from, mid);
+                ScanTask high = new ScanTask(grid, mid, to);
+                invokeAll(low, high);
+                add(low);
+                add(high);
+                return;
+            }
+            scan();
+        }
+
+        /**
+         * Counts the degrees of the cells of the band and records the
+         * corridors leaving its dead ends and junctions. A corridor whose
+         * ends both lie in the band is walked once, from the end scanned
+         * first, which marks the side of the other end it arrives by. A
+         * corridor leaving the band is walked by both bands and recorded by
+         * the one holding its end with the lower cell number.
+         */
+        void scan()
+        {
+            int dim = grid.getDimensions();
+            int stride = grid.size();
+            int[] offsets =
+            {
+                -stride, 1, stride, -1
+            };
+            int[] degrees = this.degrees;
+            int[] corridors = this.corridors;
+            int deadEnds = 0;
+            long deadEndSteps = 0;
+            //Sides of the cells of the band by which a corridor has already
+            //been walked, from its other end.
+            int base = from * stride;
+            int limit = to * stride;
+            byte[] walked = new byte[limit - base];
+            for (int y = from; y < to; y++)
+            {
+                int last = y * stride + dim;
+                for (int cell = y * stride + 1; cell <= last; cell++)
+                {
+                    int bits = grid.bits(cell);
+                    if ((bits & MazeGrid.BLOCKED) != 0)
+                    {
+                        continue;
+                    }
+                    int open = ~bits & MazeGrid.ALL_WALLS;
+                    int degree = Integer.bitCount(open);
+                    degrees[degree]++;
+                    if (degree == 2)
+                    {
+                        continue;
+                    }
+                    //Walk every corridor leaving the cell to the next cell
+                    //which is not part of a corridor.
+                    open &= ~walked[cell - base];
+                    while (open != 0)
+                    {
+                        int side = Integer.numberOfTrailingZeros(open);
+                        int end = cell + offsets[side];
+                        int entered = (side + 2) & 3;
+                        int steps = 1;
+                        int ahead = ~grid.bits(end) & MazeGrid.ALL_WALLS;
+                        int exit;
+                        while ((exit = EXITS[ahead << 2 | entered]) >= 0)
+                        {
+                            end += offsets[exit];
+                            entered = (exit + 2) & 3;
+                            steps++;
+                            ahead = ~grid.bits(end) & MazeGrid.ALL_WALLS;
+                        }
+                        if (end >= base && end < limit)
+                        {
+                            //The other end is scanned later by this band, or
+                            //is this cell when the corridor is a loop.
+                            walked[end - base] |= SIDES[entered];
+                        } else if (end < cell)
+                        {
+                            //The band of the other end records the corridor.
+                            open &= open - 1;
+                            continue;
+                        }
+                        if (steps >= corridors.length)
+                        {
+                            corridors = Arrays.copyOf(corridors, Math.max(steps + 1, corridors.length * 2));
+                        }
+                        corridors[steps]++;
+                        if (degree == 1 || ahead == SIDES[entered])
+                        {
+                            deadEnds++;
+                            deadEndSteps += steps;
+                        }
+                        open &= ~(SIDES[side] | walked[cell - base]);
+                    }
+                }
+            }
+            int longest = corridors.length - 1;
+            while (longest > 0 && corridors[longest] == 0)
+            {
+                longest--;
+            }
+            this.corridors = corridors;
+            this.longest = longest;
+            this.deadEnds = deadEnds;
+            this.deadEndSteps = deadEndSteps;
+        }
+
+        /**
+         * Adds the results of another band to the results of this one.
+         *
+         * @param other Scanned band
+         */
+        private void add(ScanTask other)
+        {
+            for (int d = 0; d < degrees.length; d++)
+            {
+                degrees[d] += other.degrees[d];
+            }
+            if (other.longest >= corridors.length)
+            {
+                corridors = Arrays.copyOf(corridors, other.longest + 1);
+            }
+            for (int length = 1; length <= other.longest; length++)
+            {
+                corridors[length] += other.corridors[length];
+            }
+            longest = Math.max(longest, other.longest);
+            deadEnds += other.deadEnds;
+            deadEndSteps += other.deadEndSteps;
+        }
+    }
+
+    /**
+     * Fork/join task which measures a range of grids, ranges are split in
+     * half until a single grid is left.
+     */
+    private static class BatchTask extends RecursiveAction
+    {
+
+        /**
+         * Version of the serialized form of the task.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Grids to measure.
+         */
+        private final MazeGrid[] grids;
+        /**
+         * Metrics of every grid, filled in by the tasks.
+         */
+        private final MazeStats[] stats;
+        /**
+         * First grid of the range (inclusive).
+         */
+        private final int from;
+        /**
+         * Last grid of the range (exclusive).
+         */
+        private final int to;
+
+        /**
+         * Initializes a task for the grids from (inclusive) to to
+         * (exclusive).
+         *
+         * @param grids Grids to measure.
+         * @param stats Metrics of every grid.
+         * @param from First grid
+         * @param to Last grid (exclusive).
+         */
+        BatchTask(MazeGrid[] grids, MazeStats[] stats, int from, int to)
+        {
+            this.grids = grids;
+            this.stats = stats;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Measures the single grid of the range or splits the range in half.
+         */
+        @Override
+        protected void compute()
+        {
+            if (to - from > 1)
+            {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BatchTask(grids, stats, from, mid), new BatchTask(grids, stats, mid, to));
+                return;
+            }
+            stats[from] = new MazeStats(grids[from], false);
+        }
+    }
+}
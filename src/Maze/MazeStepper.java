@@ -0,0 +1,32 @@
+package Maze;
+
+/**
+ * Incremental maze generation which is advanced in bounded batches of work
+ * instead of carving the whole maze in a single call. A stepper lets the maze
+ * be carved a little at a time, for example a few walls per frame so the
+ * carving can be animated, or cooperatively alongside other work so that
+ * generating a huge maze never blocks the thread for long. Running a stepper
+ * to completion gives exactly the same maze as the one-shot generation with
+ * the same seed, however the work is split into batches.
+ *
+ * @see IncrementalGenerator
+ */
+public interface MazeStepper
+{
+
+    /**
+     * Performs at most budget units of work, a unit being a single wall
+     * removal or a single backtracking move of the algorithm.
+     *
+     * @param budget Maximum number of units of work, must be positive.
+     * @return True if the maze is complete.
+     */
+    public boolean step(int budget);
+
+    /**
+     * Returns a boolean that represents whether the maze is complete.
+     *
+     * @return True if there is no work left.
+     */
+    public boolean isDone();
+}
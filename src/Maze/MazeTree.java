@@ -0,0 +1,452 @@
+package Maze;
+
+import java.util.Arrays;
+
+/**
+ * Index over the spanning tree of a perfect maze which answers path queries
+ * between any two cells without searching the maze. The tree is rooted at a
+ * cell (the end point by default) and every cell stores its parent, its
+ * depth and one jump pointer to an ancestor. The jump pointers follow the
+ * skew-binary scheme: the jump of a cell skips as far as the jump of its
+ * parent's jump when the parent's two jumps cover the same distance, and to
+ * the parent otherwise. This takes three ints per cell, is built in a single
+ * breadth first pass, and reaches any ancestor in O(log n) jumps, which gives
+ * the lowest common ancestor of two cells and so the length of the path
+ * between them in O(log n).
+ *
+ * The depth of a cell is its distance to the root. The depth a jump leads to
+ * only depends on the depth it starts from, so it is kept in a table by depth
+ * rather than per cell, and the jump and parent of a cell are packed in a
+ * single long: a step up the tree reads one entry of the large arrays.
+ *
+ * The build walks the maze the way DistanceField does and likewise rejects a
+ * maze whose passages form a cycle with an IllegalArgumentException.
+ *
+ * @see DistanceField
+ */
+public class MazeTree
+{
+
+    /**
+     * Depth of cells which can not be reached from the root (border and
+     * blocked cells).
+     */
+    public static final int UNREACHABLE = -1;
+    /**
+     * Wall bits of the four sides in the order of their side number, north
+     * 0, east 1, south 2 and west 3. The side opposite side s is (s + 2) & 3.
+     */
+    private static final int[] SIDES =
+    {
+        MazeGrid.NORTH, MazeGrid.EAST, MazeGrid.SOUTH, MazeGrid.WEST
+    };
+    /**
+     * Grid the tree spans.
+     */
+    private final MazeGrid grid;
+    /**
+     * Cell number of the root.
+     */
+    private final int root;
+    /**
+     * Jump pointer (high half) and parent (low half) of every cell by cell
+     * number, the root is its own parent and jump.
+     */
+    private final long[] links;
+    /**
+     * Depth of every cell by cell number, its distance to the root.
+     */
+    private final int[] depth;
+    /**
+     * Depth the jump pointer of a cell leads to, by depth of the cell.
+     */
+    private final int[] jumpDepth;
+    /**
+     * Number of cells of the tree.
+     */
+    private final int cells;
+
+    /**
+     * Builds the index of a generated grid rooted at its end point.
+     *
+     * @param grid Generated grid with an end point.
+     */
+    public MazeTree(MazeGrid grid)
+    {
+        this(grid, grid.getEndPoint());
+    }
+
+    /**
+     * Builds the index of a generated grid rooted at a cell. Cells are
+     * visited in breadth first order, so the parent and its jump pointer are
+     * complete when a cell's jump pointer is set.
+     *
+     * @param grid Generated grid.
+     * @param root Cell number of the root.
+     * @throws IllegalArgumentException If the maze is not perfect, its
+     * passages form a cycle.
+     */
+    public MazeTree(MazeGrid grid, int root)
+    {
+        this.grid = grid;
+        this.root = root;
+        int stride = grid.size();
+        int[] offsets =
+        {
+            -stride, 1, stride, -1
+        };
+        long[] links = new long[stride * stride];
+        int[] depth = new int[stride * stride];
+        Arrays.fill(depth, UNREACHABLE);
+        int[] jumpDepth = new int[stride * stride];
+        //Cell number shifted left by two and the side it was entered from.
+        int[] queue = new int[stride * stride];
+
+        links[root] = ((long) root << 32) | root;
+        depth[root] = 0;
+        int deepest = 0;
+        int head = 0;
+        int tail = 0;
+        int open = ~grid.bits(root) & MazeGrid.ALL_WALLS;
+        for (int side = 0; side < 4; side++)
+        {
+            if ((open & SIDES[side]) != 0)
+            {
+                queue[tail++] = ((root + offsets[side]) << 2) | ((side + 2) & 3);
+            }
+        }
+        //A cell adds at most three cells to the queue, which only fills up
+        //if the search goes round a cycle.
+        int limit = queue.length - 3;
+        while (head < tail)
+        {
+            if (tail > limit)
+            {
+                throw new IllegalArgumentException("maze is not perfect, cycle near "
+                        + grid.getX(queue[head] >>> 2) + ", " + grid.getY(queue[head] >>> 2));
+            }
+            int entry = queue[head++];
+            int cell = entry >>> 2;
+            int p = cell + offsets[entry & 3];
+            int d = depth[p] + 1;
+            if (d > deepest)
+            {
+                //Cells are visited by depth, the first one at a depth sets
+                //the depth of the jumps from it.
+                int pd = jumpDepth[d - 1];
+                jumpDepth[d] = d - 1 - pd == pd - jumpDepth[pd] ? jumpDepth[pd] : d - 1;
+                deepest = d;
+            }
+            depth[cell] = d;
+            int jump = jumpDepth[d] == d - 1 ? p : (int) (links[(int) (links[p] >>> 32)] >>> 32);
+            links[cell] = ((long) jump << 32) | p;
+
+            open = ~(grid.bits(cell) | SIDES[entry & 3]) & MazeGrid.ALL_WALLS;
+            while (open != 0)
+            {
+                int side = Integer.numberOfTrailingZeros(open);
+                open &= open - 1;
+                queue[tail++] = ((cell + offsets[side]) << 2) | ((side + 2) & 3);
+            }
+        }
+        this.links = links;
+        this.depth = depth;
+        this.jumpDepth = Arrays.copyOf(jumpDepth, deepest + 1);
+        this.cells = tail + 1;
+    }
+
+    /**
+     * Returns the grid the tree spans.
+     *
+     * @return grid Grid
+     * @see #grid
+     */
+    public MazeGrid getGrid()
+    {
+        return grid;
+    }
+
+    /**
+     * Returns the cell number of the root.
+     *
+     * @return root Cell number
+     * @see #root
+     */
+    public int getRoot()
+    {
+        return root;
+    }
+
+    /**
+     * Returns the number of cells of the tree, every open cell of a perfect
+     * maze.
+     *
+     * @return cells Cell count
+     * @see #cells
+     */
+    public int getCellCount()
+    {
+        return cells;
+    }
+
+    /**
+     * Returns the parent of a cell, the next cell on its path to the root.
+     *
+     * @param cell Cell number
+     * @return Cell number of the parent, the root is its own parent.
+     */
+    public int parent(int cell)
+    {
+        return (int) links[cell];
+    }
+
+    /**
+     * Returns the depth of a cell, its distance to the root.
+     *
+     * @param cell Cell number
+     * @return Number of steps, UNREACHABLE if the cell is not in the tree.
+     */
+    public int depth(int cell)
+    {
+        return depth[cell];
+    }
+
+    /**
+     * Returns the ancestor of a cell at a given depth, in O(log n) jumps.
+     *
+     * @param cell Cell number
+     * @param d Depth of the ancestor, at most the depth of the cell.
+     * @return Cell number of the ancestor.
+     */
+    public int ancestor(int cell, int d)
+    {
+        if (d < 0 || d > depth[cell])
+        {
+            throw new IllegalArgumentException("no ancestor of cell " + cell + " at depth " + d);
+        }
+        int at = depth[cell];
+        while (at > d)
+        {
+            int to = jumpDepth[at];
+            if (to >= d)
+            {
+                cell = (int) (links[cell] >>> 32);
+                at = to;
+            } else
+            {
+                cell = (int) links[cell];
+                at--;
+            }
+        }
+        return cell;
+    }
+
+    /**
+     * Returns the lowest common ancestor of two cells, the cell where their
+     * paths to the root meet, which is also the cell of the path between them
+     * closest to the root.
+     *
+     * @param a Cell number
+     * @param b Cell number
+     * @return Cell number of the common ancestor.
+     */
+    public int lca(int a, int b)
+    {
+        checkReachable(a);
+        checkReachable(b);
+        if (depth[a] > depth[b])
+        {
+            a = ancestor(a, depth[b]);
+        } else if (depth[b] > depth[a])
+        {
+            b = ancestor(b, depth[a]);
+        }
+        //Both cells are at the same depth, so are their jump targets.
+        while (a != b)
+        {
+            long la = links[a];
+            long lb = links[b];
+            if ((la >>> 32) != (lb >>> 32))
+            {
+                a = (int) (la >>> 32);
+                b = (int) (lb >>> 32);
+            } else
+            {
+                a = (int) la;
+                b = (int) lb;
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Returns the number of steps between two cells, in O(log n).
+     *
+     * @param a Cell number
+     * @param b Cell number
+     * @return Number of steps, UNREACHABLE if a cell is not in the tree.
+     */
+    public int distance(int a, int b)
+    {
+        if (depth[a] == UNREACHABLE || depth[b] == UNREACHABLE)
+        {
+            return UNREACHABLE;
+        }
+        return depth[a] + depth[b] - 2 * depth[lca(a, b)];
+    }
+
+    /**
+     * Returns the number of steps between the cells located at rows x1, x2
+     * and columns y1, y2.
+     *
+     * @param x1 Row of the first cell.
+     * @param y1 Column of the first cell.
+     * @param x2 Row of the second cell.
+     * @param y2 Column of the second cell.
+     * @return Number of steps, UNREACHABLE if a cell is not in the tree.
+     */
+    public int distance(int x1, int y1, int x2, int y2)
+    {
+        return distance(grid.index(x1, y1), grid.index(x2, y2));
+    }
+
+    /**
+     * Returns the path between two cells. Only the common ancestor is looked
+     * up, the cells of the path are produced when they are asked for.
+     *
+     * @param a Cell number the path starts at.
+     * @param b Cell number the path ends at.
+     * @return Path from a to b.
+     */
+    public Path path(int a, int b)
+    {
+        return new Path(a, b, lca(a, b));
+    }
+
+    /**
+     * Throws if a cell is not in the tree.
+     *
+     * @param cell Cell number
+     */
+    private void checkReachable(int cell)
+    {
+        if (depth[cell] == UNREACHABLE)
+        {
+            throw new IllegalArgumentException("cell " + cell + " is not in the maze tree");
+        }
+    }
+
+    /**
+     * Path between two cells of the tree, which runs up from the first cell
+     * to their common ancestor and down to the second cell. Any cell of the
+     * path is found in O(log n) and the cells are walked in order in O(1)
+     * each on the way up.
+     */
+    public final class Path
+    {
+
+        /**
+         * Cell number the path starts at.
+         */
+        private final int from;
+        /**
+         * Cell number the path ends at.
+         */
+        private final int to;
+        /**
+         * Number of steps from the start to the common ancestor.
+         */
+        private final int up;
+        /**
+         * Number of cells of the path.
+         */
+        private final int length;
+        /**
+         * Position of the next cell returned by nextCell().
+         */
+        private int position;
+        /**
+         * Cell at the position before the next one, on the way up.
+         */
+        private int current;
+
+        /**
+         * Initializes the path between two cells.
+         *
+         * @param from Cell number the path starts at.
+         * @param to Cell number the path ends at.
+         * @param lca Common ancestor of the two cells.
+         */
+        private Path(int from, int to, int lca)
+        {
+            this.from = from;
+            this.to = to;
+            this.up = depth[from] - depth[lca];
+            this.length = up + depth[to] - depth[lca] + 1;
+            this.current = from;
+        }
+
+        /**
+         * Returns the number of cells of the path, both ends included.
+         *
+         * @return length Cell count
+         * @see #length
+         */
+        public int length()
+        {
+            return length;
+        }
+
+        /**
+         * Returns a cell of the path, in O(log n).
+         *
+         * @param i Position on the path, 0 for the start.
+         * @return Cell number
+         */
+        public int cell(int i)
+        {
+            if (i < 0 || i >= length)
+            {
+                throw new IndexOutOfBoundsException("path position " + i + " of " + length);
+            }
+            if (i <= up)
+            {
+                return ancestor(from, depth[from] - i);
+            }
+            return ancestor(to, depth[to] - (length - 1 - i));
+        }
+
+        /**
+         * Returns true if nextCell() has cells left to return.
+         *
+         * @return True until the end of the path has been returned.
+         */
+        public boolean hasNext()
+        {
+            return position < length;
+        }
+
+        /**
+         * Returns the next cell of the path, starting at its first cell. The
+         * cells up to the common ancestor follow parent pointers, the ones
+         * after it are looked up with cell().
+         *
+         * @return Cell number
+         */
+        public int nextCell()
+        {
+            if (position == 0)
+            {
+                position++;
+                return from;
+            }
+            if (position <= up)
+            {
+                position++;
+                current = (int) links[current];
+                return current;
+            }
+            return cell(position++);
+        }
+    }
+}
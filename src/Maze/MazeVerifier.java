@@ -0,0 +1,354 @@
+package Maze;
+
+/**
+ * Checks that a generated grid is a perfect maze, the guarantee every
+ * MazeGenerator makes and every other part of the game relies on
+ * (DistanceField, MazeTree and MazeStats assume it). A grid is perfect when:
+ *
+ * - the border is sealed: border and blocked cells have all four walls;
+ * - the walls are consistent: every wall between two cells is seen from both
+ * of them, a cell is never open towards a neighbour which is closed towards
+ * it;
+ * - every maze cell has been visited by the generator;
+ * - the passages form no cycle;
+ * - the passages connect every maze cell.
+ *
+ * All of it is checked in a single pass over the cells which looks at the
+ * east and south side of every cell, so every wall is seen once. The
+ * passages found are joined in a union-find forest over the cell numbers: a
+ * passage between two cells which are already connected closes a cycle, and
+ * the maze is connected when the passages join the cells into a single
+ * tree. In this order a cell has no passage in the forest yet when the
+ * passage from the cell above it is seen, so only east passages need to look
+ * up both roots and only they can close a cycle. The pass takes linear time
+ * and one int per cell.
+ *
+ * @see MazeGenerator
+ * @see GeneratorHarness
+ */
+public class MazeVerifier
+{
+
+    /**
+     * Grid which was checked.
+     */
+    private final MazeGrid grid;
+    /**
+     * Number of maze cells, border and blocked cells excluded.
+     */
+    private int cells;
+    /**
+     * Number of connected regions of maze cells.
+     */
+    private int components;
+    /**
+     * Number of border and blocked cells which are not closed on all sides.
+     */
+    private int openBorders;
+    /**
+     * Number of walls which exist on one side only.
+     */
+    private int inconsistentWalls;
+    /**
+     * Number of maze cells which the generator did not visit.
+     */
+    private int unvisited;
+    /**
+     * Number of passages which close a cycle.
+     */
+    private int cycles;
+    /**
+     * Cell number of the first border or blocked cell which is not closed,
+     * -1 if there is none.
+     */
+    private int firstOpenBorder = -1;
+    /**
+     * Cell number of the first cell with a wall on one side only, -1 if
+     * there is none.
+     */
+    private int firstInconsistentWall = -1;
+    /**
+     * Cell number of the first unvisited maze cell, -1 if there is none.
+     */
+    private int firstUnvisited = -1;
+    /**
+     * Cell number of the first cell whose passage closes a cycle, -1 if
+     * there is none.
+     */
+    private int firstCycle = -1;
+
+    /**
+     * Checks a grid.
+     *
+     * @param grid Generated grid.
+     */
+    public MazeVerifier(MazeGrid grid)
+    {
+        this.grid = grid;
+        int stride = grid.size();
+        int[] parent = new int[stride * stride];
+        for (int i = 0; i < parent.length; i++)
+        {
+            parent[i] = i;
+        }
+
+        int joined = 0;
+        for (int y = 0; y < stride; y++)
+        {
+            for (int x = 0; x < stride; x++)
+            {
+                int cell = y * stride + x;
+                int bits = grid.bits(cell);
+                boolean inside = isMazeCell(x, y, bits, stride);
+                if (!inside)
+                {
+                    if ((bits & MazeGrid.ALL_WALLS) != MazeGrid.ALL_WALLS)
+                    {
+                        openBorders++;
+                        firstOpenBorder = firstOpenBorder < 0 ? cell : firstOpenBorder;
+                    }
+                } else
+                {
+                    cells++;
+                    if ((bits & MazeGrid.VISITED) == 0)
+                    {
+                        unvisited++;
+                        firstUnvisited = firstUnvisited < 0 ? cell : firstUnvisited;
+                    }
+                }
+
+                //The east wall of this cell against the west wall of the
+                //next one. Root of the cell in the forest, found when needed.
+                int root = -1;
+                if (x < stride - 1)
+                {
+                    int next = cell + 1;
+                    int nextBits = grid.bits(next);
+                    boolean open = (bits & MazeGrid.EAST) == 0;
+                    if (open != ((nextBits & MazeGrid.WEST) == 0))
+                    {
+                        inconsistentWalls++;
+                        firstInconsistentWall = firstInconsistentWall < 0 ? cell : firstInconsistentWall;
+                    } else if (open && inside && isMazeCell(x + 1, y, nextBits, stride))
+                    {
+                        root = KruskalGenerator.find(parent, cell);
+                        int other = KruskalGenerator.find(parent, next);
+                        if (root == other)
+                        {
+                            cycles++;
+                            firstCycle = firstCycle < 0 ? cell : firstCycle;
+                        } else
+                        {
+                            parent[other] = root;
+                            joined++;
+                        }
+                    }
+                }
+                //The south wall against the north wall of the cell below. Its
+                //other passages are only seen on the next row, so the cell
+                //below is still alone in the forest and is joined directly.
+                if (y < stride - 1)
+                {
+                    int next = cell + stride;
+                    int nextBits = grid.bits(next);
+                    boolean open = (bits & MazeGrid.SOUTH) == 0;
+                    if (open != ((nextBits & MazeGrid.NORTH) == 0))
+                    {
+                        inconsistentWalls++;
+                        firstInconsistentWall = firstInconsistentWall < 0 ? cell : firstInconsistentWall;
+                    } else if (open && inside && isMazeCell(x, y + 1, nextBits, stride))
+                    {
+                        parent[next] = root < 0 ? KruskalGenerator.find(parent, cell) : root;
+                        joined++;
+                    }
+                }
+            }
+        }
+        this.components = cells - joined;
+    }
+
+    /**
+     * Returns true if a cell is a maze cell, neither on the border nor
+     * blocked.
+     *
+     * @param x Row
+     * @param y Column
+     * @param bits Wall and flag bits of the cell.
+     * @param stride Number of cells in a row of the grid, border included.
+     * @return True for a maze cell.
+     */
+    private static boolean isMazeCell(int x, int y, int bits, int stride)
+    {
+        return x > 0 && y > 0 && x < stride - 1 && y < stride - 1 && (bits & MazeGrid.BLOCKED) == 0;
+    }
+
+    /**
+     * Returns the cell number of the first cell where two grids of the same
+     * dimensions differ, in their walls or in the cells which are blocked.
+     * Used to check that an optimized generator still carves the same maze
+     * from the same seed.
+     *
+     * @param a Grid
+     * @param b Grid
+     * @return Cell number, -1 if the grids hold the same maze.
+     */
+    public static int firstDifference(MazeGrid a, MazeGrid b)
+    {
+        if (a.getDimensions() != b.getDimensions())
+        {
+            throw new IllegalArgumentException("grids of different dimensions: " + a.getDimensions()
+                    + ", " + b.getDimensions());
+        }
+        int mask = MazeGrid.ALL_WALLS | MazeGrid.BLOCKED;
+        int count = a.size() * a.size();
+        for (int cell = 0; cell < count; cell++)
+        {
+            if (((a.bits(cell) ^ b.bits(cell)) & mask) != 0)
+            {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if the grid is a perfect maze: the border is sealed, the
+     * walls are consistent, every maze cell was visited and the passages
+     * form a single tree.
+     *
+     * @return True for a perfect maze.
+     */
+    public boolean isPerfect()
+    {
+        return openBorders == 0 && inconsistentWalls == 0 && unvisited == 0 && cycles == 0 && components <= 1;
+    }
+
+    /**
+     * Returns the grid which was checked.
+     *
+     * @return grid Grid
+     * @see #grid
+     */
+    public MazeGrid getGrid()
+    {
+        return grid;
+    }
+
+    /**
+     * Returns the number of maze cells, border and blocked cells excluded.
+     *
+     * @return cells Cell count
+     * @see #cells
+     */
+    public int getCellCount()
+    {
+        return cells;
+    }
+
+    /**
+     * Returns the number of connected regions of maze cells, 1 for a
+     * connected maze.
+     *
+     * @return components Region count
+     * @see #components
+     */
+    public int getComponents()
+    {
+        return components;
+    }
+
+    /**
+     * Returns the number of border and blocked cells which are not closed on
+     * all sides.
+     *
+     * @return openBorders Cell count
+     * @see #openBorders
+     */
+    public int getOpenBorders()
+    {
+        return openBorders;
+    }
+
+    /**
+     * Returns the number of walls which exist on one side only.
+     *
+     * @return inconsistentWalls Wall count
+     * @see #inconsistentWalls
+     */
+    public int getInconsistentWalls()
+    {
+        return inconsistentWalls;
+    }
+
+    /**
+     * Returns the number of maze cells which the generator did not visit.
+     *
+     * @return unvisited Cell count
+     * @see #unvisited
+     */
+    public int getUnvisited()
+    {
+        return unvisited;
+    }
+
+    /**
+     * Returns the number of passages which close a cycle.
+     *
+     * @return cycles Passage count
+     * @see #cycles
+     */
+    public int getCycles()
+    {
+        return cycles;
+    }
+
+    /**
+     * Describes the violations found, with the position of the first cell
+     * of every kind.
+     *
+     * @return "perfect" or the list of violations.
+     */
+    @Override
+    public String toString()
+    {
+        if (isPerfect())
+        {
+            return "perfect";
+        }
+        StringBuilder text = new StringBuilder();
+        describe(text, openBorders, "open border cells", firstOpenBorder);
+        describe(text, inconsistentWalls, "one-sided walls", firstInconsistentWall);
+        describe(text, unvisited, "unvisited cells", firstUnvisited);
+        describe(text, cycles, "cycles", firstCycle);
+        if (components > 1)
+        {
+            describe(text, components, "disconnected regions", -1);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Appends one kind of violation to a description.
+     *
+     * @param text Description being built.
+     * @param count Number of violations of this kind.
+     * @param what Name of the violation.
+     * @param first Cell number of the first violation, -1 to leave it out.
+     */
+    private void describe(StringBuilder text, int count, String what, int first)
+    {
+        if (count == 0)
+        {
+            return;
+        }
+        if (text.length() > 0)
+        {
+            text.append(", ");
+        }
+        text.append(count).append(' ').append(what);
+        if (first >= 0)
+        {
+            text.append(" (first at ").append(grid.getX(first)).append(", ").append(grid.getY(first)).append(')');
+        }
+    }
+}
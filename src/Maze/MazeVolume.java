@@ -0,0 +1,402 @@
+package Maze;
+
+import java.util.Arrays;
+
+/**
+ * Maze of several floors connected by stairs, generated as a single perfect
+ * maze through an N by N by F volume of cells. The volume is not stored as F
+ * separate grids but as three bit layers with one bit per cell: the east
+ * passage layer, the south passage layer and the stairs layer, a bit of which
+ * is set when a staircase leads from the cell up to the cell above it. The
+ * north, west and down connections of a cell are the south, east and up bits
+ * of its neighbours, and the outer walls always exist. Cells of a floor are
+ * contiguous in every layer, floor after floor, so a floor is read as a
+ * single run of words. A 256 by 256 by 16 volume takes 384 KB.
+ *
+ * Generation and solving reuse buffers, generate() keeps its stack and
+ * visited bits between calls and distances() works in caller provided
+ * arrays, so repeatedly generating and solving volumes does not allocate.
+ *
+ * Cells are addressed by row x and column y from 1 to N like in MazeGrid, and
+ * by floor from 0 (the ground floor) to F - 1. The volume cell number of a
+ * cell is (floor * N + y - 1) * N + x - 1.
+ *
+ * @see MazeGrid
+ */
+public class MazeVolume
+{
+
+    /**
+     * Stairs bit of a cell with a staircase leading up.
+     */
+    public static final int STAIRS_UP = 1;
+    /**
+     * Stairs bit of a cell with a staircase leading down.
+     */
+    public static final int STAIRS_DOWN = 2;
+    /**
+     * While the Depth First Search has a choice between moving across a floor
+     * and taking a staircase, it takes the staircase once in this many moves.
+     * Without the weighting the search changes floor as often as it changes
+     * direction on a floor and the floors become a tangle of stairs.
+     */
+    private static final int STAIRS_ODDS = 8;
+    /**
+     * Maze dimensions (N by N) of every floor.
+     */
+    private final int dimensions;
+    /**
+     * Number of floors.
+     */
+    private final int floors;
+    /**
+     * Number of cells on a floor.
+     */
+    private final int floorCells;
+    /**
+     * Bit of every cell which is set when its east wall has been destroyed.
+     */
+    private final long[] east;
+    /**
+     * Bit of every cell which is set when its south wall has been destroyed.
+     */
+    private final long[] south;
+    /**
+     * Bit of every cell which is set when a staircase leads up from it.
+     */
+    private final long[] up;
+    /**
+     * Stack of the Depth First Search, kept between generations.
+     */
+    private int[] stack;
+    /**
+     * Visited bit of every cell during generation, kept between generations.
+     */
+    private long[] visited;
+
+    /**
+     * Initializes a volume of floors of N by N cells in which every cell is
+     * completely closed.
+     *
+     * @param dim Maze dimensions (N) of every floor.
+     * @param floors Number of floors.
+     */
+    public MazeVolume(int dim, int floors)
+    {
+        if (dim < 1 || floors < 1 || (long) dim * dim * floors > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("invalid volume " + dim + " x " + dim + " x " + floors);
+        }
+        this.dimensions = dim;
+        this.floors = floors;
+        this.floorCells = dim * dim;
+        int words = (int) (((long) floorCells * floors + 63) >>> 6);
+        this.east = new long[words];
+        this.south = new long[words];
+        this.up = new long[words];
+    }
+
+    /**
+     * Returns the maze dimensions (N by N) of every floor.
+     *
+     * @return dimensions Maze dimensions
+     * @see #dimensions
+     */
+    public int getDimensions()
+    {
+        return dimensions;
+    }
+
+    /**
+     * Returns the number of floors.
+     *
+     * @return floors Floor count
+     * @see #floors
+     */
+    public int getFloors()
+    {
+        return floors;
+    }
+
+    /**
+     * Returns the number of cells of the whole volume.
+     *
+     * @return Cell count
+     */
+    public int getCellCount()
+    {
+        return floorCells * floors;
+    }
+
+    /**
+     * Returns the volume cell number of the cell located at row x and column
+     * y on a floor.
+     *
+     * @param x Row
+     * @param y Column
+     * @param floor Floor
+     * @return Volume cell number
+     */
+    public int index(int x, int y, int floor)
+    {
+        return (floor * dimensions + y - 1) * dimensions + x - 1;
+    }
+
+    /**
+     * Returns the wall bits (as in MazeGrid) of the cell located at row x and
+     * column y on a floor.
+     *
+     * @param x Row
+     * @param y Column
+     * @param floor Floor
+     * @return Wall bits of the cell.
+     */
+    public int walls(int x, int y, int floor)
+    {
+        int cell = index(x, y, floor);
+        int walls = 0;
+        if (x == dimensions || !get(east, cell))
+        {
+            walls |= MazeGrid.EAST;
+        }
+        if (y == dimensions || !get(south, cell))
+        {
+            walls |= MazeGrid.SOUTH;
+        }
+        if (y == 1 || !get(south, cell - dimensions))
+        {
+            walls |= MazeGrid.NORTH;
+        }
+        if (x == 1 || !get(east, cell - 1))
+        {
+            walls |= MazeGrid.WEST;
+        }
+        return walls;
+    }
+
+    /**
+     * Returns the stairs bits of the cell located at row x and column y on a
+     * floor.
+     *
+     * @param x Row
+     * @param y Column
+     * @param floor Floor
+     * @return STAIRS_UP and/or STAIRS_DOWN, 0 if the cell has no stairs.
+     */
+    public int stairs(int x, int y, int floor)
+    {
+        int cell = index(x, y, floor);
+        int stairs = 0;
+        if (get(up, cell))
+        {
+            stairs |= STAIRS_UP;
+        }
+        if (floor > 0 && get(up, cell - floorCells))
+        {
+            stairs |= STAIRS_DOWN;
+        }
+        return stairs;
+    }
+
+    /**
+     * Copies the walls of a floor into a grid of the same dimensions, so that
+     * the floor can be drawn and collided with like any other maze. Flags of
+     * the grid (start, end and time points, visibility) are left alone.
+     *
+     * @param floor Floor
+     * @param grid Grid of the same dimensions as the volume.
+     */
+    public void copyFloor(int floor, MazeGrid grid)
+    {
+        for (int y = 1; y <= dimensions; y++)
+        {
+            int cell = grid.index(1, y);
+            for (int x = 1; x <= dimensions; x++, cell++)
+            {
+                grid.setWalls(cell, walls(x, y, floor));
+                grid.setVisited(cell, true);
+            }
+        }
+        grid.markChanged();
+    }
+
+    /**
+     * Carves a perfect maze through the whole volume with a Depth First
+     * Search starting at the first cell of the ground floor. The search is
+     * the one DepthFirstGenerator uses with two more directions, up and down
+     * a staircase, which it takes less often than moving across a floor.
+     *
+     * @param seed 64 bit seed of the maze.
+     * @see #STAIRS_ODDS
+     * @see DepthFirstGenerator
+     */
+    public void generate(long seed)
+    {
+        MazeRandom random = new MazeRandom(seed);
+        int cells = getCellCount();
+        if (stack == null)
+        {
+            stack = new int[cells];
+            visited = new long[east.length];
+        }
+        Arrays.fill(east, 0);
+        Arrays.fill(south, 0);
+        Arrays.fill(up, 0);
+        Arrays.fill(visited, 0);
+
+        //Moves across the floor and up or down the stairs, as the offset of
+        //the cell moved to.
+        int[] across = new int[4];
+        int[] stairs = new int[2];
+        int top = 0;
+        set(visited, 0);
+        stack[top++] = 0;
+        while (top > 0)
+        {
+            int cell = stack[top - 1];
+            int onFloor = cell % floorCells;
+            int x = onFloor % dimensions;
+            int y = onFloor / dimensions;
+            int floor = cell / floorCells;
+            int count = 0;
+            int climbs = 0;
+
+            if (y < dimensions - 1 && !get(visited, cell + dimensions))
+            {
+                across[count++] = dimensions;
+            }
+            if (x < dimensions - 1 && !get(visited, cell + 1))
+            {
+                across[count++] = 1;
+            }
+            if (y > 0 && !get(visited, cell - dimensions))
+            {
+                across[count++] = -dimensions;
+            }
+            if (x > 0 && !get(visited, cell - 1))
+            {
+                across[count++] = -1;
+            }
+            if (floor < floors - 1 && !get(visited, cell + floorCells))
+            {
+                stairs[climbs++] = floorCells;
+            }
+            if (floor > 0 && !get(visited, cell - floorCells))
+            {
+                stairs[climbs++] = -floorCells;
+            }
+
+            //Dead end, backtrack to the previous cell.
+            if (count == 0 && climbs == 0)
+            {
+                top--;
+                continue;
+            }
+
+            int move;
+            long[] layer;
+            if (climbs > 0 && (count == 0 || random.nextInt(STAIRS_ODDS) == 0))
+            {
+                move = stairs[climbs == 1 ? 0 : random.nextInt(climbs)];
+                layer = up;
+            } else
+            {
+                move = across[count == 1 ? 0 : random.nextInt(count)];
+                layer = (move == 1 || move == -1) ? east : south;
+            }
+            int next = cell + move;
+            //The passage is stored on the lower numbered cell of the two.
+            set(layer, Math.min(cell, next));
+            set(visited, next);
+            stack[top++] = next;
+        }
+    }
+
+    /**
+     * Computes the distance, in moves across a floor or along a staircase,
+     * from a cell to every cell of the volume with a breadth first search.
+     * Nothing is allocated, the caller provides the buffers and may reuse them
+     * between searches.
+     *
+     * @param source Volume cell number the distances are measured from.
+     * @param dist Receives the distance of every cell, -1 if unreachable. Must
+     * hold getCellCount() entries.
+     * @param queue Scratch space of getCellCount() entries.
+     * @return Number of cells reached, including the source.
+     */
+    public int distances(int source, int[] dist, int[] queue)
+    {
+        int cells = getCellCount();
+        for (int c = 0; c < cells; c++)
+        {
+            dist[c] = -1;
+        }
+        int head = 0;
+        int tail = 0;
+        dist[source] = 0;
+        queue[tail++] = source;
+        while (head < tail)
+        {
+            int cell = queue[head++];
+            int d = dist[cell] + 1;
+            int onFloor = cell % floorCells;
+            int x = onFloor % dimensions;
+            int y = onFloor / dimensions;
+
+            if (x < dimensions - 1 && get(east, cell) && dist[cell + 1] < 0)
+            {
+                dist[cell + 1] = d;
+                queue[tail++] = cell + 1;
+            }
+            if (x > 0 && get(east, cell - 1) && dist[cell - 1] < 0)
+            {
+                dist[cell - 1] = d;
+                queue[tail++] = cell - 1;
+            }
+            if (y < dimensions - 1 && get(south, cell) && dist[cell + dimensions] < 0)
+            {
+                dist[cell + dimensions] = d;
+                queue[tail++] = cell + dimensions;
+            }
+            if (y > 0 && get(south, cell - dimensions) && dist[cell - dimensions] < 0)
+            {
+                dist[cell - dimensions] = d;
+                queue[tail++] = cell - dimensions;
+            }
+            if (cell + floorCells < cells && get(up, cell) && dist[cell + floorCells] < 0)
+            {
+                dist[cell + floorCells] = d;
+                queue[tail++] = cell + floorCells;
+            }
+            if (cell >= floorCells && get(up, cell - floorCells) && dist[cell - floorCells] < 0)
+            {
+                dist[cell - floorCells] = d;
+                queue[tail++] = cell - floorCells;
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Returns the bit of a cell in a layer.
+     *
+     * @param layer Bit layer
+     * @param cell Volume cell number
+     * @return True if the bit is set.
+     */
+    private static boolean get(long[] layer, int cell)
+    {
+        return (layer[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Sets the bit of a cell in a layer.
+     *
+     * @param layer Bit layer
+     * @param cell Volume cell number
+     */
+    private static void set(long[] layer, int cell)
+    {
+        layer[cell >>> 6] |= 1L << cell;
+    }
+}
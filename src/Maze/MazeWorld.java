@@ -0,0 +1,506 @@
+package Maze;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Endless maze made of square chunks which are generated on demand. World
+ * cells are addressed by any pair of ints (wx, wy) and chunk (cx, cy) holds
+ * the cells cx * chunkSize to (cx + 1) * chunkSize - 1 along x and likewise
+ * along y. Every chunk is a perfect maze carved from a seed derived from the
+ * world seed and the chunk's position. Each chunk then opens a single door
+ * in either its north or its west seam, picked from the chunk's seed like a
+ * cell of a Binary Tree maze, at a position derived from the world seed and
+ * the seam's position. Every chunk is linked to exactly one chunk north or
+ * west of it, so the seams form no cycle and the whole world stays free of
+ * cycles: the path between two chunks leads north and west until their
+ * links meet. Both chunks beside a seam compute the same door, so chunks can
+ * be generated in any order, dropped and generated again and the world
+ * always looks the same.
+ *
+ * At most maxChunks chunks are held in memory, the least recently used chunk
+ * is evicted when another one is needed, so the memory used stays bounded no
+ * matter how far the player travels. prefetch() generates the chunks around a
+ * position ahead of time on a background thread.
+ *
+ * @see MazeGrid
+ */
+public class MazeWorld
+{
+
+    /**
+     * Salt of the seeds which place the doors in the east seams of chunks.
+     */
+    private static final long EAST_SEAM = 1;
+    /**
+     * Salt of the seeds which place the doors in the south seams of chunks.
+     */
+    private static final long SOUTH_SEAM = 2;
+    /**
+     * Salt of the seeds which pick the seam, north or west, a chunk opens.
+     */
+    private static final long LINK = 3;
+    /**
+     * Seed of the world.
+     */
+    private final long seed;
+    /**
+     * Width and height of a chunk in cells.
+     */
+    private final int chunkSize;
+    /**
+     * Maximum number of chunks held in memory.
+     */
+    private final int maxChunks;
+    /**
+     * Algorithm used to carve each chunk.
+     */
+    private final MazeGenerator generator;
+    /**
+     * Generated chunks by chunk key, in access order (the least recently used
+     * chunk comes first).
+     */
+    private final LinkedHashMap<Long, MazeGrid> chunks = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * Chunks which are being generated in the background by chunk key.
+     */
+    private final Map<Long, Future<MazeGrid>> pending = new HashMap<>();
+    /**
+     * Single worker thread which generates chunks ahead of the player. The
+     * thread is a daemon so that it never keeps the game running after the
+     * window is closed.
+     */
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(new ThreadFactory()
+    {
+        @Override
+        public Thread newThread(Runnable r)
+        {
+            Thread thread = new Thread(r, "maze-world");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    /**
+     * Number of chunks generated so far.
+     */
+    private long generated;
+    /**
+     * Number of chunks evicted so far.
+     */
+    private long evicted;
+
+    /**
+     * Initializes an empty world whose chunks are carved with the Depth First
+     * Search.
+     *
+     * @param seed 64 bit seed of the world.
+     * @param chunkSize Width and height of a chunk in cells.
+     * @param maxChunks Maximum number of chunks held in memory.
+     */
+    public MazeWorld(long seed, int chunkSize, int maxChunks)
+    {
+        this(seed, chunkSize, maxChunks, new DepthFirstGenerator());
+    }
+
+    /**
+     * Initializes an empty world whose chunks are carved with the given
+     * generator. The generator is used from several threads at once.
+     *
+     * @param seed 64 bit seed of the world.
+     * @param chunkSize Width and height of a chunk in cells.
+     * @param maxChunks Maximum number of chunks held in memory.
+     * @param generator Algorithm used to carve each chunk.
+     */
+    public MazeWorld(long seed, int chunkSize, int maxChunks, MazeGenerator generator)
+    {
+        if (chunkSize < 1 || maxChunks < 1)
+        {
+            throw new IllegalArgumentException("chunk size and count must be positive: " + chunkSize + ", " + maxChunks);
+        }
+        this.seed = seed;
+        this.chunkSize = chunkSize;
+        this.maxChunks = maxChunks;
+        this.generator = generator;
+    }
+
+    /**
+     * Returns the width and height of a chunk in cells.
+     *
+     * @return chunkSize Chunk size
+     * @see #chunkSize
+     */
+    public int getChunkSize()
+    {
+        return chunkSize;
+    }
+
+    /**
+     * Returns the chunk coordinate of a world coordinate.
+     *
+     * @param w World coordinate (x or y).
+     * @return Chunk coordinate
+     */
+    public int chunkOf(int w)
+    {
+        //Division rounding towards negative infinity.
+        int c = w / chunkSize;
+        return (w % chunkSize != 0 && w < 0) ? c - 1 : c;
+    }
+
+    /**
+     * Returns the wall bits of the world cell located at (wx, wy), generating
+     * its chunk first if it is not in memory.
+     *
+     * @param wx World x coordinate
+     * @param wy World y coordinate
+     * @return Wall bits of the cell.
+     */
+    public int walls(int wx, int wy)
+    {
+        int cx = chunkOf(wx);
+        int cy = chunkOf(wy);
+        MazeGrid chunk = getChunk(cx, cy);
+        return chunk.walls(wx - cx * chunkSize + 1, wy - cy * chunkSize + 1);
+    }
+
+    /**
+     * Returns a boolean that represents whether a wall of the world cell
+     * located at (wx, wy) exists.
+     *
+     * @param wx World x coordinate
+     * @param wy World y coordinate
+     * @param wall Wall bit
+     * @return True if the wall exists.
+     */
+    public boolean hasWall(int wx, int wy, int wall)
+    {
+        return (walls(wx, wy) & wall) != 0;
+    }
+
+    /**
+     * Copies the walls of the square window of the world whose north west cell
+     * is (wx, wy) into a grid, so that the window can be drawn, collided with
+     * and solved like any other maze. Cell (1, 1) of the grid receives world
+     * cell (wx, wy). The cells on the edge of the window are closed towards
+     * the outside, so the border of the grid stays sealed. A window holds no
+     * cycle, but two of its cells may only be joined by a path which leaves
+     * the window, so it can be split into several regions and is a perfect
+     * maze only when it lies within a single chunk. DistanceField, MazeTree
+     * and MazeStats treat the cells of the other regions as unreachable.
+     *
+     * @param wx World x coordinate of the north west cell of the window.
+     * @param wy World y coordinate of the north west cell of the window.
+     * @param grid Grid the size of the window.
+     */
+    public void copyWindow(int wx, int wy, MazeGrid grid)
+    {
+        int dim = grid.getDimensions();
+        for (int y = 1; y <= dim; y++)
+        {
+            int cy = chunkOf(wy + y - 1);
+            int ly = wy + y - 1 - cy * chunkSize + 1;
+            int x = 1;
+            while (x <= dim)
+            {
+                //Copy the run of cells which lies in the same chunk.
+                int cx = chunkOf(wx + x - 1);
+                MazeGrid chunk = getChunk(cx, cy);
+                int lx = wx + x - 1 - cx * chunkSize + 1;
+                for (; lx <= chunkSize && x <= dim; lx++, x++)
+                {
+                    int cell = grid.index(x, y);
+                    int walls = chunk.walls(lx, ly);
+                    //Close the doors leading out of the window.
+                    walls |= x == 1 ? MazeGrid.WEST : 0;
+                    walls |= x == dim ? MazeGrid.EAST : 0;
+                    walls |= y == 1 ? MazeGrid.NORTH : 0;
+                    walls |= y == dim ? MazeGrid.SOUTH : 0;
+                    grid.setWalls(cell, walls);
+                    grid.setVisited(cell, true);
+                }
+            }
+        }
+        grid.markChanged();
+    }
+
+    /**
+     * Returns the grid of chunk (cx, cy). The chunk is generated on the
+     * calling thread if it is neither in memory nor being generated in the
+     * background, in which case the call waits for it. The grid is shared and
+     * must not be modified.
+     *
+     * @param cx Chunk x coordinate
+     * @param cy Chunk y coordinate
+     * @return Grid of the chunk.
+     */
+    public MazeGrid getChunk(int cx, int cy)
+    {
+        Long key = key(cx, cy);
+        Future<MazeGrid> future;
+        synchronized (this)
+        {
+            MazeGrid chunk = chunks.get(key);
+            if (chunk != null)
+            {
+                return chunk;
+            }
+            future = pending.get(key);
+        }
+
+        MazeGrid chunk;
+        if (future != null)
+        {
+            try
+            {
+                chunk = future.get();
+            } catch (InterruptedException | ExecutionException e)
+            {
+                throw new IllegalStateException("Failed to generate chunk " + cx + ", " + cy, e);
+            }
+        } else
+        {
+            chunk = generate(cx, cy);
+        }
+        return store(key, chunk);
+    }
+
+    /**
+     * Starts generating, in the background, every chunk within radius chunks
+     * of the chunk that holds world cell (wx, wy) which is not in memory yet.
+     * Chunks nearest to the position are generated first.
+     *
+     * @param wx World x coordinate of the player.
+     * @param wy World y coordinate of the player.
+     * @param radius Number of chunks around the player's chunk to generate.
+     */
+    public synchronized void prefetch(int wx, int wy, int radius)
+    {
+        if ((2L * radius + 1) * (2L * radius + 1) > maxChunks)
+        {
+            throw new IllegalArgumentException("radius " + radius + " needs more than " + maxChunks + " chunks");
+        }
+        int px = chunkOf(wx);
+        int py = chunkOf(wy);
+        for (int r = 0; r <= radius; r++)
+        {
+            for (int cy = py - r; cy <= py + r; cy++)
+            {
+                for (int cx = px - r; cx <= px + r; cx++)
+                {
+                    //Only the ring at distance r, the inside was done before.
+                    if (Math.max(Math.abs(cx - px), Math.abs(cy - py)) != r)
+                    {
+                        continue;
+                    }
+                    final Long key = key(cx, cy);
+                    if (chunks.containsKey(key) || pending.containsKey(key))
+                    {
+                        continue;
+                    }
+                    final int fx = cx;
+                    final int fy = cy;
+                    pending.put(key, worker.submit(new Callable<MazeGrid>()
+                    {
+                        @Override
+                        public MazeGrid call()
+                        {
+                            return store(key, generate(fx, fy));
+                        }
+                    }));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of chunks in memory.
+     *
+     * @return Chunk count
+     */
+    public synchronized int getLoadedChunks()
+    {
+        return chunks.size();
+    }
+
+    /**
+     * Returns the number of chunks generated so far, chunks generated again
+     * after being evicted are counted every time.
+     *
+     * @return generated Generated chunk count
+     * @see #generated
+     */
+    public synchronized long getGeneratedChunks()
+    {
+        return generated;
+    }
+
+    /**
+     * Returns the number of chunks evicted so far.
+     *
+     * @return evicted Evicted chunk count
+     * @see #evicted
+     */
+    public synchronized long getEvictedChunks()
+    {
+        return evicted;
+    }
+
+    /**
+     * Returns the seed that the world is generated from.
+     *
+     * @return seed 64 bit seed of the world.
+     * @see #seed
+     */
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    /**
+     * Stops the background thread once the chunks it was asked for are
+     * generated. Chunks can still be read afterwards, those not in memory
+     * are then generated on the calling thread, but prefetch() must not be
+     * called again.
+     */
+    public void close()
+    {
+        worker.shutdown();
+    }
+
+    /**
+     * Adds a generated chunk to memory, evicting the least recently used
+     * chunks beyond maxChunks. If the chunk was stored in the meantime by
+     * another thread, that copy is kept and returned instead.
+     *
+     * @param key Chunk key
+     * @param chunk Generated grid of the chunk.
+     * @return Grid of the chunk held in memory.
+     */
+    private synchronized MazeGrid store(Long key, MazeGrid chunk)
+    {
+        pending.remove(key);
+        MazeGrid existing = chunks.get(key);
+        if (existing != null)
+        {
+            return existing;
+        }
+        chunks.put(key, chunk);
+        generated++;
+
+        Iterator<MazeGrid> it = chunks.values().iterator();
+        while (chunks.size() > maxChunks)
+        {
+            it.next();
+            it.remove();
+            evicted++;
+        }
+        return chunk;
+    }
+
+    /**
+     * Generates chunk (cx, cy): carves a perfect maze from the chunk's seed and
+     * opens the doors in its seams, the door of its own link and those of the
+     * chunks east and south of it which link to it.
+     *
+     * @param cx Chunk x coordinate
+     * @param cy Chunk y coordinate
+     * @return Grid of the chunk.
+     */
+    private MazeGrid generate(int cx, int cy)
+    {
+        MazeGrid grid = new MazeGrid(chunkSize);
+        generator.generate(grid, grid.index(1, 1), new MazeRandom(seed(cx, cy, 0)));
+
+        if (linksNorth(cx, cy))
+        {
+            open(grid, grid.index(door(cx, cy - 1, SOUTH_SEAM), 1), MazeGrid.NORTH);
+        } else
+        {
+            open(grid, grid.index(1, door(cx - 1, cy, EAST_SEAM)), MazeGrid.WEST);
+        }
+        if (!linksNorth(cx + 1, cy))
+        {
+            open(grid, grid.index(chunkSize, door(cx, cy, EAST_SEAM)), MazeGrid.EAST);
+        }
+        if (linksNorth(cx, cy + 1))
+        {
+            open(grid, grid.index(door(cx, cy, SOUTH_SEAM), chunkSize), MazeGrid.SOUTH);
+        }
+        return grid;
+    }
+
+    /**
+     * Returns a boolean that represents whether chunk (cx, cy) is linked to
+     * the chunk north of it rather than to the chunk west of it.
+     *
+     * @param cx Chunk x coordinate
+     * @param cy Chunk y coordinate
+     * @return True if the door is in the north seam of the chunk.
+     */
+    private boolean linksNorth(int cx, int cy)
+    {
+        return (seed(cx, cy, LINK) & 1) != 0;
+    }
+
+    /**
+     * Destroys a wall on the edge of a chunk. Only the chunk's own cell loses
+     * the wall, the matching wall is opened by the neighbouring chunk.
+     *
+     * @param grid Grid of the chunk.
+     * @param cell Cell number of the edge cell.
+     * @param wall Wall bit facing the seam.
+     */
+    private static void open(MazeGrid grid, int cell, int wall)
+    {
+        grid.setWalls(cell, grid.bits(cell) & MazeGrid.ALL_WALLS & ~wall);
+    }
+
+    /**
+     * Returns the position (1 to chunkSize) of the door in the east or south
+     * seam of chunk (cx, cy).
+     *
+     * @param cx Chunk x coordinate
+     * @param cy Chunk y coordinate
+     * @param seam EAST_SEAM or SOUTH_SEAM
+     * @return Row or column of the door.
+     */
+    private int door(int cx, int cy, long seam)
+    {
+        return 1 + new MazeRandom(seed(cx, cy, seam)).nextInt(chunkSize);
+    }
+
+    /**
+     * Derives the seed of chunk (cx, cy) or of one of its seams from the world
+     * seed.
+     *
+     * @param cx Chunk x coordinate
+     * @param cy Chunk y coordinate
+     * @param salt 0 for the chunk itself, EAST_SEAM or SOUTH_SEAM for a seam,
+     * LINK for the seam the chunk opens.
+     * @return Derived seed
+     */
+    private long seed(int cx, int cy, long salt)
+    {
+        return new MazeRandom(seed ^ key(cx, cy) * 0x9e3779b97f4a7c15L ^ salt * 0xbf58476d1ce4e5b9L).nextLong();
+    }
+
+    /**
+     * Packs chunk coordinates into a single key.
+     *
+     * @param cx Chunk x coordinate
+     * @param cy Chunk y coordinate
+     * @return Chunk key
+     */
+    private static long key(int cx, int cy)
+    {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+}
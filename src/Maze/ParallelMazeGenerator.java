@@ -0,0 +1,249 @@
+package Maze;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates a maze on all available cores. The grid is split into square
+ * tiles and a spanning tree (Depth First Search maze) is carved inside every
+ * tile concurrently on a ForkJoinPool. The tiles are then joined across their
+ * seams by a union-find pass over the tiles, which opens exactly one door in
+ * a random selection of seams that connects every tile without creating a
+ * loop. Since every tile is a perfect maze and the tiles are joined by a
+ * spanning tree, the whole grid is a perfect maze with exactly one path
+ * between any two cells.
+ *
+ * @see DepthFirstGenerator#carveRegion(MazeGrid, int, int, int, int, int, MazeRandom)
+ */
+public class ParallelMazeGenerator implements MazeGenerator
+{
+
+    /**
+     * Default width and height of a tile in cells.
+     */
+    public static final int DEFAULT_TILE_SIZE = 256;
+    /**
+     * Pool shared by all parallel generators.
+     */
+    static final ForkJoinPool POOL = new ForkJoinPool();
+    /**
+     * Width and height of a tile in cells.
+     */
+    private final int tileSize;
+
+    /**
+     * Initializes a generator which uses the default tile size.
+     */
+    public ParallelMazeGenerator()
+    {
+        this(DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Initializes a generator which uses the given tile size.
+     *
+     * @param tileSize Width and height of a tile in cells.
+     */
+    public ParallelMazeGenerator(int tileSize)
+    {
+        if (tileSize < 1)
+        {
+            throw new IllegalArgumentException("tileSize must be at least 1: " + tileSize);
+        }
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Returns the name of this generator, which includes the tile size since
+     * the tile size changes the maze produced from a seed.
+     *
+     * @return Generator name
+     */
+    @Override
+    public String getName()
+    {
+        return "parallel-" + tileSize;
+    }
+
+    /**
+     * Generates a perfect maze covering the whole grid, every tile starts
+     * carving at its own first cell so the start cell is not needed.
+     *
+     * @param grid Grid to carve the maze into.
+     * @param start Cell number where the algorithm starts carving (unused).
+     * @param random Source of randomness for this generation.
+     */
+    @Override
+    public void generate(MazeGrid grid, int start, MazeRandom random)
+    {
+        int dim = grid.getDimensions();
+        int tiles = (dim + tileSize - 1) / tileSize;
+
+        //Every tile gets its own generator, derived in tile order so that the
+        //maze does not depend on which thread carves which tile.
+        MazeRandom[] randoms = new MazeRandom[tiles * tiles];
+        for (int i = 0; i < randoms.length; i++)
+        {
+            randoms[i] = random.split();
+        }
+        POOL.invoke(new TileTask(grid, tiles, randoms, 0, tiles * tiles));
+
+        int[] doors = doors(dim, tileSize, random);
+        for (int i = 0; i < doors.length; i += 3)
+        {
+            grid.carve(grid.index(doors[i], doors[i + 1]), doors[i + 2]);
+        }
+    }
+
+    /**
+     * Picks the doors which join the tiles of a maze across their seams.
+     * Every seam between two neighbouring tiles is a candidate edge of the
+     * tile graph, the edges are visited in a random order and a door is
+     * opened in a seam only if the two tiles are not yet connected (Kruskal's
+     * algorithm over the tiles). The tiles on the east and south edges are
+     * cut short when tileSize does not divide the dimensions. Shared with
+     * MappedMaze, which stitches its tiles the same way.
+     *
+     * @param dim Maze dimensions
+     * @param tileSize Width and height of a tile in cells.
+     * @param random Source of randomness for the seams.
+     * @return Row, column and wall bit (EAST or SOUTH) of the cell on the
+     * north west side of every door, three ints per door.
+     */
+    static int[] doors(int dim, int tileSize, MazeRandom random)
+    {
+        int tiles = (dim + tileSize - 1) / tileSize;
+        int[] parent = new int[tiles * tiles];
+        for (int i = 0; i < parent.length; i++)
+        {
+            parent[i] = i;
+        }
+
+        //Seam e < tiles*tiles joins tile e to its east neighbour, seam
+        //e >= tiles*tiles joins tile (e - tiles*tiles) to its south neighbour.
+        int[] seams = new int[2 * tiles * tiles];
+        int count = 0;
+        for (int t = 0; t < tiles * tiles; t++)
+        {
+            if (t % tiles < tiles - 1)
+            {
+                seams[count++] = t;
+            }
+            if (t / tiles < tiles - 1)
+            {
+                seams[count++] = tiles * tiles + t;
+            }
+        }
+        for (int i = count - 1; i > 0; i--)
+        {
+            int j = random.nextInt(i + 1);
+            int tmp = seams[i];
+            seams[i] = seams[j];
+            seams[j] = tmp;
+        }
+
+        int[] doors = new int[3 * (tiles * tiles - 1)];
+        int door = 0;
+        for (int i = 0; i < count; i++)
+        {
+            boolean east = seams[i] < tiles * tiles;
+            int tile = east ? seams[i] : seams[i] - tiles * tiles;
+            int other = east ? tile + 1 : tile + tiles;
+            int a = KruskalGenerator.find(parent, tile);
+            int b = KruskalGenerator.find(parent, other);
+            if (a == b)
+            {
+                continue;
+            }
+            parent[b] = a;
+
+            int x0 = (tile % tiles) * tileSize + 1;
+            int y0 = (tile / tiles) * tileSize + 1;
+            int x1 = Math.min(x0 + tileSize - 1, dim);
+            int y1 = Math.min(y0 + tileSize - 1, dim);
+            if (east)
+            {
+                doors[door++] = x1;
+                doors[door++] = y0 + random.nextInt(y1 - y0 + 1);
+                doors[door++] = MazeGrid.EAST;
+            } else
+            {
+                doors[door++] = x0 + random.nextInt(x1 - x0 + 1);
+                doors[door++] = y1;
+                doors[door++] = MazeGrid.SOUTH;
+            }
+        }
+        return doors;
+    }
+
+    /**
+     * Fork/join task which carves a range of tiles, ranges are split in half
+     * until a single tile is left.
+     */
+    private class TileTask extends RecursiveAction
+    {
+
+        /**
+         * Version of the serialized form of the task.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Grid to carve the tiles into.
+         */
+        private final MazeGrid grid;
+        /**
+         * Number of tiles along each side of the grid.
+         */
+        private final int tiles;
+        /**
+         * Source of randomness for each tile.
+         */
+        private final MazeRandom[] randoms;
+        /**
+         * First tile number of the range (inclusive).
+         */
+        private final int from;
+        /**
+         * Last tile number of the range (exclusive).
+         */
+        private final int to;
+
+        /**
+         * Initializes a task for the tiles from (inclusive) to to (exclusive).
+         *
+         * @param grid Grid to carve the tiles into.
+         * @param tiles Number of tiles along each side of the grid.
+         * @param randoms Source of randomness for each tile.
+         * @param from First tile number.
+         * @param to Last tile number (exclusive).
+         */
+        TileTask(MazeGrid grid, int tiles, MazeRandom[] randoms, int from, int to)
+        {
+            this.grid = grid;
+            this.tiles = tiles;
+            this.randoms = randoms;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Carves the single tile of the range or splits the range in half.
+         */
+        @Override
+        protected void compute()
+        {
+            if (to - from > 1)
+            {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileTask(grid, tiles, randoms, from, mid), new TileTask(grid, tiles, randoms, mid, to));
+                return;
+            }
+            int dim = grid.getDimensions();
+            int x0 = (from % tiles) * tileSize + 1;
+            int y0 = (from / tiles) * tileSize + 1;
+            int x1 = Math.min(x0 + tileSize - 1, dim);
+            int y1 = Math.min(y0 + tileSize - 1, dim);
+            DepthFirstGenerator.carveRegion(grid, x0, y0, x1, y1, grid.index(x0, y0), randoms[from]);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package Maze;
+
+/**
+ * Randomized Prim maze generator. The maze grows outwards from the start cell,
+ * at each step a random cell is taken from the frontier (unvisited cells next
+ * to the maze) and joined to a random visited neighbour. The frontier is a
+ * plain array of cell numbers with constant time random removal and frontier
+ * membership is a bitset, so no objects are allocated per cell. The mazes
+ * have many short dead ends radiating from the start cell.
+ */
+public class PrimGenerator implements MazeGenerator
+{
+
+    /**
+     * Returns the name of this generator.
+     *
+     * @return Generator name
+     */
+    @Override
+    public String getName()
+    {
+        return "prim";
+    }
+
+    /**
+     * Carves a maze through the whole grid starting at the start cell.
+     *
+     * @param grid Grid to carve the maze into.
+     * @param start Cell number where the algorithm starts carving.
+     * @param random Source of randomness for this generation.
+     */
+    @Override
+    public void generate(MazeGrid grid, int start, MazeRandom random)
+    {
+        int dim = grid.getDimensions();
+        int stride = grid.size();
+        int[] frontier = new int[dim * dim];
+        long[] inFrontier = new long[(stride * stride + 63) >>> 6];
+        int[] options = new int[4];
+        int size = 0;
+
+        grid.setVisited(start, true);
+        size = expand(grid, start, frontier, size, inFrontier);
+
+        while (size > 0)
+        {
+            int i = random.nextInt(size);
+            int cell = frontier[i];
+            frontier[i] = frontier[--size];
+
+            //Join the frontier cell to a random neighbour already in the maze,
+            //border cells are visited too so the neighbour must be in bounds.
+            int cx = cell % stride;
+            int cy = cell / stride;
+            int count = 0;
+            if (cy < dim && grid.isVisited(cell + stride))
+            {
+                options[count++] = MazeGrid.SOUTH;
+            }
+            if (cx < dim && grid.isVisited(cell + 1))
+            {
+                options[count++] = MazeGrid.EAST;
+            }
+            if (cy > 1 && grid.isVisited(cell - stride))
+            {
+                options[count++] = MazeGrid.NORTH;
+            }
+            if (cx > 1 && grid.isVisited(cell - 1))
+            {
+                options[count++] = MazeGrid.WEST;
+            }
+            grid.carve(cell, options[count == 1 ? 0 : random.nextInt(count)]);
+            grid.setVisited(cell, true);
+            size = expand(grid, cell, frontier, size, inFrontier);
+        }
+    }
+
+    /**
+     * Adds the unvisited neighbours of a cell which are not yet part of the
+     * frontier to the frontier.
+     *
+     * @param grid Grid being carved.
+     * @param cell Cell number which was just added to the maze.
+     * @param frontier Frontier cell numbers.
+     * @param size Number of cells in the frontier.
+     * @param inFrontier Bitset of the cells that have entered the frontier.
+     * @return New number of cells in the frontier.
+     */
+    private static int expand(MazeGrid grid, int cell, int[] frontier, int size, long[] inFrontier)
+    {
+        int stride = grid.size();
+        size = add(grid, cell - stride, frontier, size, inFrontier);
+        size = add(grid, cell + 1, frontier, size, inFrontier);
+        size = add(grid, cell + stride, frontier, size, inFrontier);
+        return add(grid, cell - 1, frontier, size, inFrontier);
+    }
+
+    /**
+     * Adds a cell to the frontier if it is unvisited and not yet part of the
+     * frontier.
+     *
+     * @param grid Grid being carved.
+     * @param cell Cell number
+     * @param frontier Frontier cell numbers.
+     * @param size Number of cells in the frontier.
+     * @param inFrontier Bitset of the cells that have entered the frontier.
+     * @return New number of cells in the frontier.
+     */
+    private static int add(MazeGrid grid, int cell, int[] frontier, int size, long[] inFrontier)
+    {
+        if (!grid.isVisited(cell) && (inFrontier[cell >>> 6] & (1L << cell)) == 0)
+        {
+            inFrontier[cell >>> 6] |= 1L << cell;
+            frontier[size++] = cell;
+        }
+        return size;
+    }
+}
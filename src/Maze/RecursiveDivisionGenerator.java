@@ -0,0 +1,293 @@
+package Maze;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Recursive division maze generator. Unlike the other generators, which carve
+ * passages out of a completely closed grid, this one starts with every inner
+ * wall destroyed and adds walls: a chamber is divided in two by a straight
+ * wall with a single door in it, and both halves are divided in the same way
+ * until the chambers are one cell wide. Every division joins two trees by a
+ * single door, so the result is a perfect maze. The mazes have long straight
+ * walls and corridors.
+ *
+ * The two halves of a division never touch the same cells, so large chambers
+ * are divided concurrently as fork/join tasks on the pool shared with
+ * ParallelMazeGenerator, while small chambers are divided sequentially. Every
+ * chamber that is handed to a task gets its own generator, derived in a fixed
+ * order, so the maze does not depend on which thread divides which chamber.
+ *
+ * @see ParallelMazeGenerator
+ */
+public class RecursiveDivisionGenerator implements MazeGenerator
+{
+
+    /**
+     * Chambers with fewer cells than this are divided sequentially by the
+     * task that created them.
+     */
+    private static final int SEQUENTIAL_CELLS = 64 * 64;
+
+    /**
+     * Returns the name of this generator.
+     *
+     * @return Generator name
+     */
+    @Override
+    public String getName()
+    {
+        return "division";
+    }
+
+    /**
+     * Generates a perfect maze covering the whole grid, the start cell is not
+     * needed since the walls are added chamber by chamber.
+     *
+     * @param grid Grid to add the walls of the maze to.
+     * @param start Cell number where the algorithm starts carving (unused).
+     * @param random Source of randomness for this generation.
+     */
+    @Override
+    public void generate(MazeGrid grid, int start, MazeRandom random)
+    {
+        int dim = grid.getDimensions();
+
+        //Destroy every inner wall, only the outer walls of the maze remain.
+        for (int y = 1; y <= dim; y++)
+        {
+            for (int x = 1; x <= dim; x++)
+            {
+                int walls = (y == 1 ? MazeGrid.NORTH : 0) | (x == dim ? MazeGrid.EAST : 0)
+                        | (y == dim ? MazeGrid.SOUTH : 0) | (x == 1 ? MazeGrid.WEST : 0);
+                int cell = grid.index(x, y);
+                grid.setWalls(cell, walls);
+                grid.setVisited(cell, true);
+            }
+        }
+        ParallelMazeGenerator.POOL.invoke(new ChamberTask(grid, 1, 1, dim, dim, random));
+    }
+
+    /**
+     * Divides the chamber spanning rows x0 to x1 and columns y0 to y1
+     * (inclusive) with a single wall that has one door in it. Tall chambers
+     * are divided horizontally, wide ones vertically and square ones either
+     * way, which keeps the chambers roughly square.
+     *
+     * @param grid Grid to add the wall to.
+     * @param x0 First row of the chamber.
+     * @param y0 First column of the chamber.
+     * @param x1 Last row of the chamber.
+     * @param y1 Last column of the chamber.
+     * @param random Source of randomness for the chamber.
+     * @return Position of the wall: the last column above a horizontal wall,
+     * or minus the last row before a vertical wall.
+     */
+    private static int divide(MazeGrid grid, int x0, int y0, int x1, int y1, MazeRandom random)
+    {
+        int width = x1 - x0 + 1;
+        int height = y1 - y0 + 1;
+        boolean horizontal = height > width || (height == width && random.nextBoolean());
+
+        if (horizontal)
+        {
+            int y = y0 + random.nextInt(height - 1);
+            int door = x0 + random.nextInt(width);
+            for (int x = x0; x <= x1; x++)
+            {
+                if (x != door)
+                {
+                    grid.build(grid.index(x, y), MazeGrid.SOUTH);
+                }
+            }
+            return y;
+        }
+        int x = x0 + random.nextInt(width - 1);
+        int door = y0 + random.nextInt(height);
+        for (int y = y0; y <= y1; y++)
+        {
+            if (y != door)
+            {
+                grid.build(grid.index(x, y), MazeGrid.EAST);
+            }
+        }
+        return -x;
+    }
+
+    /**
+     * Fork/join task which divides a chamber and everything inside it. Large
+     * chambers are divided in a loop which forks the smaller half and keeps
+     * dividing the larger one, so tasks waiting on each other never nest
+     * deeper than the logarithm of the chamber size. Small chambers are
+     * divided sequentially with an explicit stack.
+     */
+    private static class ChamberTask extends RecursiveAction
+    {
+
+        /**
+         * Version of the serialized form of the task.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Grid to add the walls to.
+         */
+        private final MazeGrid grid;
+        /**
+         * First row of the chamber.
+         */
+        private final int x0;
+        /**
+         * First column of the chamber.
+         */
+        private final int y0;
+        /**
+         * Last row of the chamber.
+         */
+        private final int x1;
+        /**
+         * Last column of the chamber.
+         */
+        private final int y1;
+        /**
+         * Source of randomness for the chamber.
+         */
+        private final MazeRandom random;
+
+        /**
+         * Initializes a task for the chamber spanning rows x0 to x1 and
+         * columns y0 to y1 (inclusive).
+         *
+         * @param grid Grid to add the walls to.
+         * @param x0 First row of the chamber.
+         * @param y0 First column of the chamber.
+         * @param x1 Last row of the chamber.
+         * @param y1 Last column of the chamber.
+         * @param random Source of randomness for the chamber.
+         */
+        ChamberTask(MazeGrid grid, int x0, int y0, int x1, int y1, MazeRandom random)
+        {
+            this.grid = grid;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+            this.random = random;
+        }
+
+        /**
+         * Divides the chamber, forking the smaller half of every division of
+         * a large chamber.
+         */
+        @Override
+        protected void compute()
+        {
+            List<ChamberTask> forked = new ArrayList<>();
+            int ax = x0, ay = y0, bx = x1, by = y1;
+
+            while ((long) (bx - ax + 1) * (by - ay + 1) >= SEQUENTIAL_CELLS && bx > ax && by > ay)
+            {
+                int wall = divide(grid, ax, ay, bx, by, random);
+                ChamberTask task;
+                if (wall >= 0)
+                {
+                    //Horizontal wall on the south side of column wall.
+                    if (wall - ay < by - wall)
+                    {
+                        task = new ChamberTask(grid, ax, ay, bx, wall, random.split());
+                        ay = wall + 1;
+                    } else
+                    {
+                        task = new ChamberTask(grid, ax, wall + 1, bx, by, random.split());
+                        by = wall;
+                    }
+                } else
+                {
+                    //Vertical wall on the east side of row -wall.
+                    if (-wall - ax < bx + wall)
+                    {
+                        task = new ChamberTask(grid, ax, ay, -wall, by, random.split());
+                        ax = -wall + 1;
+                    } else
+                    {
+                        task = new ChamberTask(grid, -wall + 1, ay, bx, by, random.split());
+                        bx = -wall;
+                    }
+                }
+                task.fork();
+                forked.add(task);
+            }
+            divideAll(grid, ax, ay, bx, by, random);
+
+            for (int i = forked.size() - 1; i >= 0; i--)
+            {
+                forked.get(i).join();
+            }
+        }
+
+        /**
+         * Divides a chamber and everything inside it on the current thread.
+         * Chambers waiting to be divided are kept on an explicit stack of
+         * bounds, so chambers of any shape can be divided without deep
+         * recursion.
+         *
+         * @param grid Grid to add the walls to.
+         * @param x0 First row of the chamber.
+         * @param y0 First column of the chamber.
+         * @param x1 Last row of the chamber.
+         * @param y1 Last column of the chamber.
+         * @param random Source of randomness for the chamber.
+         */
+        private static void divideAll(MazeGrid grid, int x0, int y0, int x1, int y1, MazeRandom random)
+        {
+            //Four ints (x0, y0, x1, y1) per chamber.
+            int[] stack = new int[64];
+            int top = 0;
+            stack[top++] = x0;
+            stack[top++] = y0;
+            stack[top++] = x1;
+            stack[top++] = y1;
+
+            while (top > 0)
+            {
+                int by = stack[--top];
+                int bx = stack[--top];
+                int ay = stack[--top];
+                int ax = stack[--top];
+                if (bx <= ax || by <= ay)
+                {
+                    //A single row or column of cells is already a corridor.
+                    continue;
+                }
+                if (top + 8 > stack.length)
+                {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+
+                int wall = divide(grid, ax, ay, bx, by, random);
+                if (wall >= 0)
+                {
+                    stack[top++] = ax;
+                    stack[top++] = wall + 1;
+                    stack[top++] = bx;
+                    stack[top++] = by;
+                    stack[top++] = ax;
+                    stack[top++] = ay;
+                    stack[top++] = bx;
+                    stack[top++] = wall;
+                } else
+                {
+                    stack[top++] = -wall + 1;
+                    stack[top++] = ay;
+                    stack[top++] = bx;
+                    stack[top++] = by;
+                    stack[top++] = ax;
+                    stack[top++] = ay;
+                    stack[top++] = -wall;
+                    stack[top++] = by;
+                }
+            }
+        }
+    }
+}
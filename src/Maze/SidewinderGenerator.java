@@ -0,0 +1,98 @@
+package Maze;
+
+/**
+ * Sidewinder maze generator on a bitboard. The first row is a single open
+ * corridor. Every other row is split into runs of cells joined east to east,
+ * a run is closed after a cell with a random choice (and always at the last
+ * cell of the row), and each run opens the north wall of one random cell of
+ * the run into the row above. Every run is joined to the rows above by
+ * exactly one opening, so the maze is a perfect maze. A single random word
+ * decides where the runs of 64 cells end, and one random draw per run places
+ * its opening. The mazes have an open first row and a vertical bias.
+ *
+ * @see BitboardMaze
+ */
+public class SidewinderGenerator implements MazeGenerator
+{
+
+    /**
+     * Returns the name of this generator.
+     *
+     * @return Generator name
+     */
+    @Override
+    public String getName()
+    {
+        return "sidewinder";
+    }
+
+    /**
+     * Carves a maze through the whole grid, the start cell is not needed
+     * since the rows are carved in order.
+     *
+     * @param grid Grid to carve the maze into.
+     * @param start Cell number where the algorithm starts carving (unused).
+     * @param random Source of randomness for this generation.
+     */
+    @Override
+    public void generate(MazeGrid grid, int start, MazeRandom random)
+    {
+        int dim = grid.getDimensions();
+        BitboardMaze maze = new BitboardMaze(dim, dim);
+        carve(maze, random);
+        maze.writeTo(grid);
+    }
+
+    /**
+     * Carves a sidewinder maze into a completely closed bitboard. The east
+     * walls of a row are exactly the cells that close a run, so one random
+     * word gives the east walls of 64 cells. The runs are then walked using
+     * the closing bits and each gets one north opening, drawn from half of a
+     * random word.
+     *
+     * @param maze Completely closed bitboard.
+     * @param random Source of randomness for this generation.
+     */
+    public static void carve(BitboardMaze maze, MazeRandom random)
+    {
+        int words = maze.getWords();
+        int height = maze.getHeight();
+
+        for (int w = 0; w < words; w++)
+        {
+            maze.setEastWord(1, w, maze.lastCellMask(w));
+        }
+
+        long bits = 0;
+        boolean half = false;
+        for (int y = 2; y <= height; y++)
+        {
+            //First cell of the current run (1 based).
+            int runStart = 1;
+            for (int w = 0; w < words; w++)
+            {
+                long close = (random.nextLong() | maze.lastCellMask(w)) & maze.validMask(w);
+                maze.setEastWord(y, w, close);
+
+                int base = w << 6;
+                while (close != 0)
+                {
+                    int runEnd = base + Long.numberOfTrailingZeros(close) + 1;
+                    close &= close - 1;
+
+                    //Each run uses 32 random bits to pick its opening.
+                    if (!half)
+                    {
+                        bits = random.nextLong();
+                    }
+                    half = !half;
+                    long r = bits & 0xFFFFFFFFL;
+                    bits >>>= 32;
+                    int x = runStart + (int) ((r * (runEnd - runStart + 1)) >>> 32);
+                    maze.carveSouth(x, y - 1);
+                    runStart = runEnd + 1;
+                }
+            }
+        }
+    }
+}
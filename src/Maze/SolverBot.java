@@ -0,0 +1,230 @@
+package Maze;
+
+/**
+ * MoveHandler which plays a level on its own by following the shortest route
+ * to the end point, so that a game runs with nobody at the keyboard (demo
+ * mode, soak tests and benchmarks). The route is not searched for: every move
+ * reads the level's precomputed distances to the end point for the cell under
+ * the centre of the character and its four neighbours, and heads for the
+ * neighbour one step closer, so a decision takes constant time.
+ *
+ * The character moves a few pixels per move and is narrower than a corridor,
+ * so before moving along a corridor the bot lines the character up with the
+ * middle of the corridor, which is where the character starts a level: it
+ * first moves across the corridor until the character is centred, then along
+ * it. When the route leaves the floor by a staircase, the bot centres the
+ * character in the cell and asks for the staircase the way the page up and
+ * page down keys do.
+ *
+ * The game loop calls update() once per frame before Character.move(), the
+ * bot decides then and answers the four direction queries of the move from
+ * that decision, so the character moves in at most one direction per move
+ * whatever order the directions are asked in.
+ *
+ * @see Level#stepsToExit(int, int)
+ * @see InputHandler
+ */
+public class SolverBot implements MoveHandler
+{
+
+    /**
+     * Wall bits of the four sides in the order of their side number, north
+     * 0, east 1, south 2 and west 3.
+     */
+    private static final int[] SIDES =
+    {
+        MazeGrid.NORTH, MazeGrid.EAST, MazeGrid.SOUTH, MazeGrid.WEST
+    };
+    /**
+     * Row offset of the neighbour on each side.
+     */
+    private static final int[] DX =
+    {
+        0, 1, 0, -1
+    };
+    /**
+     * Column offset of the neighbour on each side.
+     */
+    private static final int[] DY =
+    {
+        -1, 0, 1, 0
+    };
+    /**
+     * Character driven by the bot.
+     */
+    private final Character player;
+    /**
+     * Level being played, whose maze is that of the floor being played.
+     */
+    private final Level level;
+    /**
+     * Wall bit of the direction of the next move, 0 to stay still.
+     */
+    private int direction;
+    /**
+     * Staircase the bot asked to take, +1 up, -1 down, 0 once it has been
+     * taken.
+     */
+    private int stairs;
+
+    /**
+     * Initializes a bot which drives a character through a level.
+     *
+     * @param player Character driven by the bot.
+     * @param level Level being played.
+     */
+    public SolverBot(Character player, Level level)
+    {
+        this.player = player;
+        this.level = level;
+    }
+
+    /**
+     * Decides the next move from the current position of the character, to
+     * be called once per frame before the character moves.
+     */
+    public void update()
+    {
+        decide();
+    }
+
+    /**
+     * Returns a boolean that represents movement in the up direction.
+     *
+     * @return True to move up.
+     */
+    @Override
+    public boolean moveUp()
+    {
+        return direction == MazeGrid.NORTH;
+    }
+
+    /**
+     * Returns a boolean that represents movement in the down direction.
+     *
+     * @return True to move down.
+     */
+    @Override
+    public boolean moveDown()
+    {
+        return direction == MazeGrid.SOUTH;
+    }
+
+    /**
+     * Returns a boolean that represents movement in the left direction.
+     *
+     * @return True to move left.
+     */
+    @Override
+    public boolean moveLeft()
+    {
+        return direction == MazeGrid.WEST;
+    }
+
+    /**
+     * Returns a boolean that represents movement in the right direction.
+     *
+     * @return True to move right.
+     */
+    @Override
+    public boolean moveRight()
+    {
+        return direction == MazeGrid.EAST;
+    }
+
+    /**
+     * Returns the staircase the bot asked to take since the last call and
+     * clears the request, like InputHandler.takeStairs().
+     *
+     * @return 1 to go up, -1 to go down, 0 if no staircase was asked for.
+     */
+    public int takeStairs()
+    {
+        int taken = stairs;
+        stairs = 0;
+        return taken;
+    }
+
+    /**
+     * Decides the direction of the next move from the cell under the centre
+     * of the character. The bot stays still while the maze is being carved
+     * and if the character is not in the maze.
+     */
+    private void decide()
+    {
+        direction = 0;
+        GenMaze maze = level.getMaze();
+        int size = GenMaze.CELL_SIZE;
+        int px = player.getxPos();
+        int py = player.getyPos();
+        //Pixel offsets of the centre of the character from the maze origin.
+        int ox = px + player.getWidth() / 2 - maze.getCoordX(1);
+        int oy = py + player.getHeight() / 2 - maze.getCoordY(1);
+        int x = ox < 0 ? 0 : ox / size + 1;
+        int y = oy < 0 ? 0 : oy / size + 1;
+        int steps = level.stepsToExit(x, y);
+        if (steps == DistanceField.UNREACHABLE)
+        {
+            return;
+        }
+        int walls = maze.getGrid().walls(x, y);
+        if (steps == 0)
+        {
+            //The end point is only noticed when the character moves, which
+            //it may not have done yet if it came up or down the stairs. A
+            //centred character can move a little even in a closed cell.
+            direction = MazeGrid.NORTH;
+            for (int s = 0; s < 4; s++)
+            {
+                if ((walls & SIDES[s]) == 0)
+                {
+                    direction = SIDES[s];
+                }
+            }
+            return;
+        }
+
+        int side = -1;
+        for (int s = 0; s < 4 && side < 0; s++)
+        {
+            if ((walls & SIDES[s]) == 0 && level.stepsToExit(x + DX[s], y + DY[s]) == steps - 1)
+            {
+                side = s;
+            }
+        }
+
+        //Position of the character centred in the cell.
+        int centreX = maze.getCoordX(x) + (size - player.getWidth()) / 2;
+        int centreY = maze.getCoordY(y) + (size - player.getHeight()) / 2;
+        int speed = player.getMovementSpeed();
+        if (side < 0)
+        {
+            //The route goes on by the staircase of this cell. The floor
+            //above or below may have walls where this one has a passage, so
+            //the character is centred in the cell before it takes the stairs.
+            if (Math.abs(py - centreY) >= speed)
+            {
+                direction = py > centreY ? MazeGrid.NORTH : MazeGrid.SOUTH;
+            } else if (Math.abs(px - centreX) >= speed)
+            {
+                direction = px > centreX ? MazeGrid.WEST : MazeGrid.EAST;
+            } else
+            {
+                boolean up = (level.stairs(x, y) & MazeVolume.STAIRS_UP) != 0
+                        && level.stepsToExit(x, y, level.getFloor() + 1) == steps - 1;
+                stairs = up ? 1 : -1;
+            }
+            return;
+        }
+        if (DX[side] != 0 && Math.abs(py - centreY) >= speed)
+        {
+            direction = py > centreY ? MazeGrid.NORTH : MazeGrid.SOUTH;
+        } else if (DY[side] != 0 && Math.abs(px - centreX) >= speed)
+        {
+            direction = px > centreX ? MazeGrid.WEST : MazeGrid.EAST;
+        } else
+        {
+            direction = SIDES[side];
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package Maze;
+
+/**
+ * Factories for the maze topologies built on MazeGraph: square, hexagonal,
+ * triangular and polar (circular) mazes. Vertex coordinates are in cell
+ * units, every cell side is about one unit long, and all coordinates are
+ * positive with y growing downwards as on the screen.
+ *
+ * @see MazeGraph
+ */
+public final class Topologies
+{
+
+    /**
+     * Height of an equilateral triangle with sides of one unit, also the
+     * width of a hexagon with corners one unit from its centre.
+     */
+    private static final float ROOT3_2 = (float) (Math.sqrt(3) / 2);
+
+    /**
+     * Topologies only has static factories.
+     */
+    private Topologies()
+    {
+    }
+
+    /**
+     * Builds a grid of square cells, cell (c, r) being number r * width + c.
+     * Sides are listed north, east, south and west.
+     *
+     * @param width Number of columns.
+     * @param height Number of rows.
+     * @return The graph, every edge closed.
+     */
+    public static MazeGraph square(int width, int height)
+    {
+        MazeGraphBuilder builder = new MazeGraphBuilder(width * height, 4 * width * height);
+        float[] xs = new float[4];
+        float[] ys = new float[4];
+        int[] adjacent = new int[4];
+        for (int r = 0; r < height; r++)
+        {
+            for (int c = 0; c < width; c++)
+            {
+                int cell = r * width + c;
+                xs[0] = c;
+                ys[0] = r;
+                xs[1] = c + 1;
+                ys[1] = r;
+                xs[2] = c + 1;
+                ys[2] = r + 1;
+                xs[3] = c;
+                ys[3] = r + 1;
+                adjacent[0] = r > 0 ? cell - width : -1;
+                adjacent[1] = c < width - 1 ? cell + 1 : -1;
+                adjacent[2] = r < height - 1 ? cell + width : -1;
+                adjacent[3] = c > 0 ? cell - 1 : -1;
+                builder.addCell(xs, ys, adjacent, 4);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds a grid of pointy topped hexagons with odd rows shifted half a
+     * cell to the east, cell (c, r) being number r * width + c. Sides are
+     * listed east, south east, south west, west, north west and north east.
+     *
+     * @param width Number of columns.
+     * @param height Number of rows.
+     * @return The graph, every edge closed.
+     */
+    public static MazeGraph hex(int width, int height)
+    {
+        MazeGraphBuilder builder = new MazeGraphBuilder(width * height, 6 * width * height);
+        float[] xs = new float[6];
+        float[] ys = new float[6];
+        int[] adjacent = new int[6];
+        float[] cornerX = new float[6];
+        float[] cornerY = new float[6];
+        for (int i = 0; i < 6; i++)
+        {
+            double angle = Math.toRadians(60 * i - 30);
+            cornerX[i] = (float) Math.cos(angle);
+            cornerY[i] = (float) Math.sin(angle);
+        }
+        for (int r = 0; r < height; r++)
+        {
+            //Column of the south west and north west neighbours relative to
+            //the cell, the south east and north east ones are one further.
+            int shift = (r & 1) == 0 ? -1 : 0;
+            for (int c = 0; c < width; c++)
+            {
+                float cx = ROOT3_2 * (2 * c + 1 + (r & 1));
+                float cy = 1 + 1.5f * r;
+                for (int i = 0; i < 6; i++)
+                {
+                    xs[i] = cx + cornerX[i];
+                    ys[i] = cy + cornerY[i];
+                }
+                int west = c + shift;
+                int east = west + 1;
+                adjacent[0] = c < width - 1 ? r * width + c + 1 : -1;
+                adjacent[1] = r < height - 1 && east < width ? (r + 1) * width + east : -1;
+                adjacent[2] = r < height - 1 && west >= 0 ? (r + 1) * width + west : -1;
+                adjacent[3] = c > 0 ? r * width + c - 1 : -1;
+                adjacent[4] = r > 0 && west >= 0 ? (r - 1) * width + west : -1;
+                adjacent[5] = r > 0 && east < width ? (r - 1) * width + east : -1;
+                builder.addCell(xs, ys, adjacent, 6);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds rows of equilateral triangles pointing alternately up and down,
+     * cell (c, r) being number r * width + c and pointing up when c + r is
+     * even. Each triangle borders its west and east neighbours in the row
+     * and the triangle below (pointing up) or above (pointing down).
+     *
+     * @param width Number of triangles in each row.
+     * @param height Number of rows.
+     * @return The graph, every edge closed.
+     */
+    public static MazeGraph triangle(int width, int height)
+    {
+        MazeGraphBuilder builder = new MazeGraphBuilder(width * height, 3 * width * height);
+        float[] xs = new float[3];
+        float[] ys = new float[3];
+        int[] adjacent = new int[3];
+        for (int r = 0; r < height; r++)
+        {
+            for (int c = 0; c < width; c++)
+            {
+                int cell = r * width + c;
+                int west = c > 0 ? cell - 1 : -1;
+                int east = c < width - 1 ? cell + 1 : -1;
+                float top = ROOT3_2 * r;
+                float bottom = top + ROOT3_2;
+                if (((c + r) & 1) == 0)
+                {
+                    //Pointing up: base, east side, west side.
+                    xs[0] = c / 2f;
+                    ys[0] = bottom;
+                    xs[1] = (c + 2) / 2f;
+                    ys[1] = bottom;
+                    xs[2] = (c + 1) / 2f;
+                    ys[2] = top;
+                    adjacent[0] = r < height - 1 ? cell + width : -1;
+                    adjacent[1] = east;
+                    adjacent[2] = west;
+                } else
+                {
+                    //Pointing down: west side, east side, top.
+                    xs[0] = c / 2f;
+                    ys[0] = top;
+                    xs[1] = (c + 1) / 2f;
+                    ys[1] = bottom;
+                    xs[2] = (c + 2) / 2f;
+                    ys[2] = top;
+                    adjacent[0] = west;
+                    adjacent[1] = east;
+                    adjacent[2] = r > 0 ? cell - width : -1;
+                }
+                builder.addCell(xs, ys, adjacent, 3);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds a circular maze of concentric rings around a single centre cell.
+     * Ring i spans radii i to i + 1, and whenever the cells of a ring would
+     * become too wide they are split, so the number of cells in a ring is a
+     * multiple of the number in the ring inside it. The centre cell is number
+     * 0 and the cells of each ring follow clockwise from the east.
+     *
+     * @param rings Number of rings, including the centre cell.
+     * @return The graph, every edge closed.
+     */
+    public static MazeGraph polar(int rings)
+    {
+        //Number of cells in every ring and number of cells before it.
+        int[] counts = new int[rings];
+        int[] firsts = new int[rings + 1];
+        counts[0] = 1;
+        firsts[1] = 1;
+        for (int i = 1; i < rings; i++)
+        {
+            double width = 2 * Math.PI * i / counts[i - 1];
+            counts[i] = counts[i - 1] * (int) Math.max(1, Math.round(width));
+            firsts[i + 1] = firsts[i] + counts[i];
+        }
+
+        int cells = firsts[rings];
+        int maxSides = 4 + (rings > 1 ? counts[Math.min(rings - 1, 1)] : 0);
+        for (int i = 1; i < rings; i++)
+        {
+            maxSides = Math.max(maxSides, 3 + counts[Math.min(i + 1, rings - 1)] / counts[i]);
+        }
+        MazeGraphBuilder builder = new MazeGraphBuilder(cells, 6 * cells);
+        float[] xs = new float[maxSides];
+        float[] ys = new float[maxSides];
+        int[] adjacent = new int[maxSides];
+        float centre = rings;
+
+        //Centre cell: a polygon with a corner at every boundary of ring 1.
+        if (rings == 1)
+        {
+            for (int k = 0; k < 4; k++)
+            {
+                double angle = Math.PI / 2 * k;
+                xs[k] = centre + (float) Math.cos(angle);
+                ys[k] = centre + (float) Math.sin(angle);
+                adjacent[k] = -1;
+            }
+            builder.addCell(xs, ys, adjacent, 4);
+            return builder.build();
+        }
+        for (int k = 0; k < counts[1]; k++)
+        {
+            double angle = 2 * Math.PI * k / counts[1];
+            xs[k] = centre + (float) Math.cos(angle);
+            ys[k] = centre + (float) Math.sin(angle);
+            adjacent[k] = firsts[1] + k;
+        }
+        builder.addCell(xs, ys, adjacent, counts[1]);
+
+        for (int i = 1; i < rings; i++)
+        {
+            int n = counts[i];
+            int ratioIn = n / counts[i - 1];
+            int ratioOut = i + 1 < rings ? counts[i + 1] / n : 1;
+            for (int k = 0; k < n; k++)
+            {
+                int count = 0;
+                double a0 = 2 * Math.PI * k / n;
+                double a1 = 2 * Math.PI * (k + 1) / n;
+                //Inner side, bordering the parent cell in the ring inside.
+                xs[count] = centre + (float) (i * Math.cos(a0));
+                ys[count] = centre + (float) (i * Math.sin(a0));
+                adjacent[count++] = firsts[i - 1] + k / ratioIn;
+                //Clockwise side, bordering the next cell of the ring.
+                xs[count] = centre + (float) (i * Math.cos(a1));
+                ys[count] = centre + (float) (i * Math.sin(a1));
+                adjacent[count++] = firsts[i] + (k + 1) % n;
+                //Outer sides, one per child cell in the ring outside, from
+                //the clockwise end back to the start.
+                for (int j = ratioOut; j > 0; j--)
+                {
+                    double angle = a0 + (a1 - a0) * j / ratioOut;
+                    xs[count] = centre + (float) ((i + 1) * Math.cos(angle));
+                    ys[count] = centre + (float) ((i + 1) * Math.sin(angle));
+                    adjacent[count++] = i + 1 < rings ? firsts[i + 1] + k * ratioOut + j - 1 : -1;
+                }
+                //Anticlockwise side, bordering the previous cell of the ring.
+                xs[count] = centre + (float) ((i + 1) * Math.cos(a0));
+                ys[count] = centre + (float) ((i + 1) * Math.sin(a0));
+                adjacent[count++] = firsts[i] + (k + n - 1) % n;
+                builder.addCell(xs, ys, adjacent, count);
+            }
+        }
+        return builder.build();
+    }
+}
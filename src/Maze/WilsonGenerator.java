@@ -0,0 +1,83 @@
+package Maze;
+
+/**
+ * Wilson's algorithm maze generator. Starting from a maze containing only the
+ * start cell, a random walk is taken from every cell which is not yet part of
+ * the maze until the walk reaches the maze, the loops of the walk are erased
+ * and the remaining path is added to the maze. The walk is remembered as one
+ * direction per cell, overwriting the direction when a cell is revisited,
+ * which erases loops without any extra bookkeeping. Every perfect maze is
+ * equally likely (uniform spanning tree), the trade off is that the early
+ * walks are long and the algorithm is the slowest of the generators.
+ */
+public class WilsonGenerator implements MazeGenerator
+{
+
+    /**
+     * Returns the name of this generator.
+     *
+     * @return Generator name
+     */
+    @Override
+    public String getName()
+    {
+        return "wilson";
+    }
+
+    /**
+     * Carves a maze through the whole grid, the start cell is the initial
+     * maze that the random walks travel towards.
+     *
+     * @param grid Grid to carve the maze into.
+     * @param start Cell number where the algorithm starts carving.
+     * @param random Source of randomness for this generation.
+     */
+    @Override
+    public void generate(MazeGrid grid, int start, MazeRandom random)
+    {
+        int dim = grid.getDimensions();
+        int stride = grid.size();
+        //Wall crossed when the walk last left each cell.
+        byte[] walk = new byte[stride * stride];
+
+        grid.setVisited(start, true);
+        for (int y = 1; y <= dim; y++)
+        {
+            for (int x = 1; x <= dim; x++)
+            {
+                int cell = grid.index(x, y);
+                if (grid.isVisited(cell))
+                {
+                    continue;
+                }
+
+                //Random walk until the maze is reached, border cells are
+                //visited too so the walk has to stay in bounds.
+                int current = cell;
+                while (!grid.isVisited(current))
+                {
+                    int cx = current % stride;
+                    int cy = current / stride;
+                    int wall;
+                    do
+                    {
+                        wall = 1 << random.nextInt(4);
+                    } while ((wall == MazeGrid.NORTH && cy == 1) || (wall == MazeGrid.SOUTH && cy == dim)
+                            || (wall == MazeGrid.WEST && cx == 1) || (wall == MazeGrid.EAST && cx == dim));
+                    walk[current] = (byte) wall;
+                    current = grid.neighbour(current, wall);
+                }
+
+                //Follow the loop erased walk again and add it to the maze.
+                current = cell;
+                while (!grid.isVisited(current))
+                {
+                    int wall = walk[current];
+                    grid.setVisited(current, true);
+                    grid.carve(current, wall);
+                    current = grid.neighbour(current, wall);
+                }
+            }
+        }
+    }
+}